@@ -10,6 +10,8 @@ public final class ApiRoutes {
     public static final String NOTIFICATIONS = API_V1 + "/notifications";
     public static final String PREFERENCES = API_V1 + "/notification-preferences";
     public static final String STATS = API_V1 + "/notification-stats";
+    public static final String LOGS = API_V1 + "/notification-logs";
+    public static final String TEMPLATES = API_V1 + "/notification-templates";
 
     // Notification endpoints
     public static final String SEND_EMAIL = "/email";
@@ -17,6 +19,7 @@ public final class ApiRoutes {
     public static final String SEND_TEMPLATED_EMAIL = "/templated-email";
     public static final String SEND_BULK = "/bulk";
     public static final String SEND_REAL_TIME = "/real-time";
+    public static final String BROADCAST_REAL_TIME = "/real-time/broadcast";
 
     // Integration endpoints
     public static final String SEND_WELCOME_EMAIL = "/welcome-email";
@@ -34,6 +37,13 @@ public final class ApiRoutes {
     public static final String WEEKLY_STATS = "/weekly";
     public static final String CUSTOM_STATS = "/custom";
 
+    // Template endpoints
+    public static final String TEMPLATE = "/{templateName}";
+    public static final String INVALIDATE_TEMPLATE = "/{templateName}/invalidate";
+
+    // Log endpoints
+    public static final String EXPORT_LOGS = "/export";
+
     // Health endpoint
     public static final String HEALTH = "/health";
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.iam.notification.config;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -9,11 +10,18 @@ import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientAsyncConfiguration;
+import software.amazon.awssdk.core.client.config.SdkAdvancedAsyncClientOption;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.SdkEventLoopGroup;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.ses.SesAsyncClient;
 import software.amazon.awssdk.services.sns.SnsAsyncClient;
 
+import java.time.Duration;
+
 @Configuration
 @ConditionalOnProperty(name = "aws.enabled", havingValue = "true")
 @Slf4j
@@ -46,39 +54,76 @@ public class AwsConfig {
         }
     }
 
+    // One event loop group and connection pool for every AWS client instead of one per client
+    @Bean(destroyMethod = "close")
+    public SdkAsyncHttpClient awsHttpClient(NotificationConfig notificationConfig) {
+        NotificationConfig.AwsHttp http = notificationConfig.getAwsHttp();
+        log.info("Configuring shared AWS HTTP client with max concurrency {}", http.getMaxConcurrency());
+
+        return NettyNioAsyncHttpClient.builder()
+                .eventLoopGroupBuilder(SdkEventLoopGroup.builder()
+                        .numberOfThreads(http.getEventLoopThreads() > 0 ? http.getEventLoopThreads() : null))
+                .maxConcurrency(http.getMaxConcurrency())
+                .maxPendingConnectionAcquires(http.getMaxPendingConnectionAcquires())
+                .connectionAcquisitionTimeout(Duration.ofMillis(http.getConnectionAcquisitionTimeoutMs()))
+                .connectionTimeout(Duration.ofMillis(http.getConnectionTimeoutMs()))
+                .readTimeout(Duration.ofMillis(http.getReadTimeoutMs()))
+                .writeTimeout(Duration.ofMillis(http.getWriteTimeoutMs()))
+                .connectionMaxIdleTime(Duration.ofSeconds(http.getConnectionMaxIdleSeconds()))
+                .build();
+    }
+
     @Bean
-    @ConditionalOnProperty(name = "notification.email.provider", havingValue = "aws-ses")
-    public SesAsyncClient sesAsyncClient(AwsCredentialsProvider credentialsProvider) {
+    @ConditionalOnExpression("'${notification.email.provider:smtp},${notification.email.failover:}'.contains('aws-ses')")
+    public SesAsyncClient sesAsyncClient(AwsCredentialsProvider credentialsProvider, SdkAsyncHttpClient awsHttpClient,
+                                         NotificationConfig notificationConfig) {
         log.info("Configuring AWS SES client for region: {}", awsRegion);
 
         return SesAsyncClient.builder()
                 .region(Region.of(awsRegion))
                 .credentialsProvider(credentialsProvider)
+                .httpClient(awsHttpClient)
+                .asyncConfiguration(asyncConfiguration(notificationConfig))
                 .build();
     }
 
     @Bean
-    @ConditionalOnProperty(name = "notification.sms.provider", havingValue = "aws-sns")
-    public SnsAsyncClient snsAsyncClient(AwsCredentialsProvider credentialsProvider) {
+    @ConditionalOnExpression("'${notification.sms.provider:mock},${notification.sms.failover:}'.contains('aws-sns')")
+    public SnsAsyncClient snsAsyncClient(AwsCredentialsProvider credentialsProvider, SdkAsyncHttpClient awsHttpClient,
+                                         NotificationConfig notificationConfig) {
         log.info("Configuring AWS SNS client for region: {}", awsRegion);
 
         return SnsAsyncClient.builder()
                 .region(Region.of(awsRegion))
                 .credentialsProvider(credentialsProvider)
+                .httpClient(awsHttpClient)
+                .asyncConfiguration(asyncConfiguration(notificationConfig))
                 .build();
     }
 
     @Bean
     @ConditionalOnProperty(name = "notification.template.storage", havingValue = "aws-s3")
-    public S3AsyncClient s3AsyncClient(AwsCredentialsProvider credentialsProvider) {
+    public S3AsyncClient s3AsyncClient(AwsCredentialsProvider credentialsProvider, SdkAsyncHttpClient awsHttpClient,
+                                       NotificationConfig notificationConfig) {
         log.info("Configuring AWS S3 client for region: {}", awsRegion);
 
         return S3AsyncClient.builder()
                 .region(Region.of(awsRegion))
                 .credentialsProvider(credentialsProvider)
+                .httpClient(awsHttpClient)
+                .asyncConfiguration(asyncConfiguration(notificationConfig))
                 .build();
     }
 
+    private ClientAsyncConfiguration asyncConfiguration(NotificationConfig notificationConfig) {
+        ClientAsyncConfiguration.Builder builder = ClientAsyncConfiguration.builder();
+        if (notificationConfig.getAwsHttp().isCompleteOnEventLoop()) {
+            // Futures complete on the Netty event loop, so everything chained on them must stay non-blocking
+            builder.advancedOption(SdkAdvancedAsyncClientOption.FUTURE_COMPLETION_EXECUTOR, Runnable::run);
+        }
+        return builder.build();
+    }
+
     @Bean
     @ConditionalOnProperty(name = "notification.template.storage", havingValue = "aws-s3")
     public String s3BucketName() {
@@ -0,0 +1,60 @@
+package com.iam.notification.config;
+
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.cache.AlwaysValidCacheEntryValidity;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ITemplateResolver;
+import org.thymeleaf.templateresolver.TemplateResolution;
+import org.thymeleaf.templateresource.StringTemplateResource;
+
+import java.util.Map;
+
+// Resolves templates whose source travels in the resolution attributes. The attributes are
+// part of the engine's cache key, so the source is wrapped in a Source that compares by the
+// versioned name only; lookups never hash or compare the template body.
+public class CompiledTemplateResolver implements ITemplateResolver {
+
+    public static final String SOURCE_ATTRIBUTE = "source";
+
+    public record Source(String key, String content) {
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Source source && key.equals(source.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode();
+        }
+    }
+
+    private final int order;
+
+    public CompiledTemplateResolver(int order) {
+        this.order = order;
+    }
+
+    @Override
+    public String getName() {
+        return getClass().getSimpleName();
+    }
+
+    @Override
+    public Integer getOrder() {
+        return order;
+    }
+
+    @Override
+    public TemplateResolution resolveTemplate(IEngineConfiguration configuration, String ownerTemplate,
+                                              String template, Map<String, Object> templateResolutionAttributes) {
+        Object source = templateResolutionAttributes != null ? templateResolutionAttributes.get(SOURCE_ATTRIBUTE) : null;
+        if (!(source instanceof Source compiled)) {
+            return null; // not a compiled template, let the string resolver handle it
+        }
+
+        // Names carry the template version, so a cached model never goes stale
+        return new TemplateResolution(new StringTemplateResource(compiled.content()), TemplateMode.HTML,
+                AlwaysValidCacheEntryValidity.INSTANCE);
+    }
+}
@@ -0,0 +1,44 @@
+package com.iam.notification.config;
+
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+@Configuration
+@Slf4j
+public class HttpClientConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider providerConnectionProvider(NotificationConfig notificationConfig) {
+        NotificationConfig.Http http = notificationConfig.getHttp();
+        log.info("Configuring provider HTTP pool with {} connections", http.getMaxConnections());
+
+        return ConnectionProvider.builder("notification-providers")
+                .maxConnections(http.getMaxConnections())
+                .pendingAcquireMaxCount(http.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(Duration.ofMillis(http.getPendingAcquireTimeoutMs()))
+                .maxIdleTime(Duration.ofSeconds(http.getMaxIdleTimeSeconds()))
+                .evictInBackground(Duration.ofSeconds(http.getMaxIdleTimeSeconds()))
+                .build();
+    }
+
+    // Requests run on the shared Reactor Netty event loops, so in-flight sends hold no threads
+    @Bean
+    public WebClient providerWebClient(WebClient.Builder builder, ConnectionProvider providerConnectionProvider,
+                                       NotificationConfig notificationConfig) {
+        NotificationConfig.Http http = notificationConfig.getHttp();
+        HttpClient httpClient = HttpClient.create(providerConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, http.getConnectTimeoutMs())
+                .responseTimeout(Duration.ofMillis(http.getResponseTimeoutMs()))
+                .compress(true);
+
+        return builder.clientConnector(new ReactorClientHttpConnector(httpClient)).build();
+    }
+}
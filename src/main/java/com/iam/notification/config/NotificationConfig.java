@@ -4,6 +4,11 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Configuration
 @ConfigurationProperties(prefix = "notification")
 @Data
@@ -11,13 +16,22 @@ public class NotificationConfig {
 
     private Email email = new Email();
     private Sms sms = new Sms();
+    private Smtp smtp = new Smtp();
     private Template template = new Template();
     private Queue queue = new Queue();
+    private Preference preference = new Preference();
+    private Logs logs = new Logs();
     private RealTime realTime = new RealTime();
+    private Map<String, RateLimit> rateLimits = new HashMap<>(); // keyed by provider name
+    private boolean rateLimitsShared = true; // one rate budget per provider across replicas, kept in Redis
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private Http http = new Http();
+    private AwsHttp awsHttp = new AwsHttp();
 
     @Data
     public static class Email {
         private String provider = "smtp"; // smtp, aws-ses, sendgrid
+        private List<String> failover = new ArrayList<>(); // tried in order when the primary is failing
         private String fromAddress = "noreply@iam-system.com";
         private String fromName = "IAM System";
         private boolean enabled = true;
@@ -28,26 +42,107 @@ public class NotificationConfig {
     @Data
     public static class Sms {
         private String provider = "mock"; // mock, aws-sns, twilio
+        private List<String> failover = new ArrayList<>();
         private String fromNumber = "+1234567890";
         private boolean enabled = true;
         private int retryAttempts = 3;
     }
 
+    @Data
+    public static class Smtp {
+        private int poolSize = 8; // open connections, and threads sending on them
+        private int maxMessagesPerConnection = 100; // many servers cap messages per session
+        private int maxIdleSeconds = 30; // below typical server idle timeouts
+    }
+
     @Data
     public static class Template {
         private String storage = "file"; // file, aws-s3, database
         private String defaultLanguage = "en";
         private boolean cacheEnabled = true;
         private int cacheTtlMinutes = 60;
+        private int cacheMaxSize = 500; // in-process entries per replica
+        private int compiledCacheMaxSize = 2000; // parsed template parts kept by the engine
     }
 
     @Data
     public static class Queue {
         private boolean enabled = true;
-        private String provider = "redis"; // redis, aws-sqs
+        private String provider = "redis"; // redis, redis-stream, aws-sqs
         private int maxRetries = 3;
-        private int retryDelaySeconds = 30;
+        private int retryDelaySeconds = 30; // base delay, doubled per attempt
+        private int retryMaxDelaySeconds = 3600;
+        private long retryPollIntervalMs = 1000; // how often due retries are swept
+        private int retryBatchSize = 100; // due retries claimed per round trip; a sweep drains all that are due
         private int batchSize = 10;
+        private int concurrency = 16; // max in-flight provider sends per job
+        private int pollTimeoutSeconds = 5; // blocking pop timeout while the queue is idle
+        private String consumerName; // redis-stream consumer, defaults to a random id
+        private int claimIdleSeconds = 120; // redis-stream entries idle this long are reclaimed
+        private int enqueueChunkSize = 1000; // recipients per LPUSH/XADD pipeline round trip
+        private int jobTtlHours = 72; // how long bulk job metadata outlives its enqueue
+        private int itemFormatVersion = 2; // 2 carries user ids for bulk preference checks; 1 only while older consumers drain
+    }
+
+    @Data
+    public static class Preference {
+        private boolean cacheEnabled = true;
+        private int cacheTtlMinutes = 10; // safety net if an invalidation message is missed
+        private int cacheMaxSize = 100000; // users per replica
+    }
+
+    @Data
+    public static class Logs {
+        private int bufferCapacity = 20000; // rows held in memory before writes go inline
+        private int batchSize = 500; // rows per multi-row INSERT
+        private long flushIntervalMs = 1000;
+        private int minuteRollupRetentionDays = 7; // hourly rollups are kept
+        private String partitionInterval = "daily"; // daily, monthly
+        private int partitionsAhead = 7;
+        private int retentionDays = 90;
+        private String retentionAction = "drop"; // drop, detach (keep the table for archiving)
+        private int exportPageSize = 500; // rows per keyset page when streaming logs
+    }
+
+    @Data
+    public static class RateLimit {
+        private double ratePerSecond; // 0 disables the rate limit
+        private int burst = 1;
+        private int maxInFlight; // 0 disables the concurrency limit
+    }
+
+    @Data
+    public static class CircuitBreaker {
+        private int windowSize = 50; // most recent calls considered per provider
+        private int minimumCalls = 10;
+        private int failureRateThreshold = 50; // percent
+        private long slowCallThresholdMs = 10000; // measured from when the rate limiter lets the call through
+        private int slowCallRateThreshold = 80; // percent
+        private int openDurationSeconds = 30;
+        private int halfOpenCalls = 3;
+    }
+
+    @Data
+    public static class Http {
+        private int maxConnections = 500; // shared by the SendGrid and Twilio clients
+        private int pendingAcquireMaxCount = 10000; // sends queued for a connection before failing fast
+        private long pendingAcquireTimeoutMs = 10000;
+        private int maxIdleTimeSeconds = 30; // below the providers' keep-alive timeouts
+        private int connectTimeoutMs = 5000;
+        private int responseTimeoutMs = 30000;
+    }
+
+    @Data
+    public static class AwsHttp {
+        private int maxConcurrency = 200; // connections per AWS endpoint, shared by SES, SNS and S3
+        private int maxPendingConnectionAcquires = 10000;
+        private long connectionAcquisitionTimeoutMs = 10000;
+        private long connectionTimeoutMs = 2000;
+        private long readTimeoutMs = 30000;
+        private long writeTimeoutMs = 30000;
+        private int connectionMaxIdleSeconds = 60;
+        private int eventLoopThreads; // 0 uses Netty's default of two per core
+        private boolean completeOnEventLoop = true; // skip the SDK's completion executor hop
     }
 
     @Data
@@ -55,6 +150,10 @@ public class NotificationConfig {
         private boolean enabled = true;
         private String provider = "websocket"; // websocket, aws-websocket, pusher
         private int connectionTimeoutSeconds = 30;
-        private int maxConnections = 1000;
+        private int maxConnections = 100000; // sockets per node
+        private int sessionBufferSize = 256; // queued outbound messages per socket before dropping
+        private String nodeId; // presence id of this replica, defaults to a random id
+        private int heartbeatIntervalSeconds = 10;
+        private int nodeTimeoutSeconds = 30; // missed heartbeats after which a node's presence is removed
     }
 }
\ No newline at end of file
@@ -10,6 +10,7 @@ import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 @Configuration
@@ -56,4 +57,19 @@ public class RedisConfig {
 
         return new ReactiveRedisTemplate<>(connectionFactory, serializationContext);
     }
+
+    @Bean
+    public ReactiveRedisTemplate<String, byte[]> reactiveBinaryRedisTemplate(ReactiveRedisConnectionFactory connectionFactory) {
+        StringRedisSerializer stringSerializer = new StringRedisSerializer();
+
+        RedisSerializationContext<String, byte[]> serializationContext = RedisSerializationContext
+                .<String, byte[]>newSerializationContext()
+                .key(stringSerializer)
+                .value(RedisSerializer.byteArray())
+                .hashKey(stringSerializer)
+                .hashValue(RedisSerializer.byteArray())
+                .build();
+
+        return new ReactiveRedisTemplate<>(connectionFactory, serializationContext);
+    }
 }
\ No newline at end of file
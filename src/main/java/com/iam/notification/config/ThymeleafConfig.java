@@ -3,6 +3,8 @@ package com.iam.notification.config;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.cache.StandardCacheManager;
+import org.thymeleaf.spring6.SpringTemplateEngine;
 import org.thymeleaf.templatemode.TemplateMode;
 import org.thymeleaf.templateresolver.StringTemplateResolver;
 
@@ -10,14 +12,26 @@ import org.thymeleaf.templateresolver.StringTemplateResolver;
 public class ThymeleafConfig {
 
     @Bean
-    public TemplateEngine templateEngine() {
-        TemplateEngine templateEngine = new TemplateEngine();
+    public CompiledTemplateResolver compiledTemplateResolver() {
+        return new CompiledTemplateResolver(1);
+    }
+
+    @Bean
+    public TemplateEngine templateEngine(CompiledTemplateResolver compiledTemplateResolver, NotificationConfig notificationConfig) {
+        // SpEL-based; the plain engine needs OGNL, which is not on the classpath
+        TemplateEngine templateEngine = new SpringTemplateEngine();
 
         StringTemplateResolver templateResolver = new StringTemplateResolver();
         templateResolver.setTemplateMode(TemplateMode.HTML);
         templateResolver.setCacheable(true);
+        templateResolver.setOrder(2);
+
+        StandardCacheManager cacheManager = new StandardCacheManager();
+        cacheManager.setTemplateCacheMaxSize(notificationConfig.getTemplate().getCompiledCacheMaxSize());
 
-        templateEngine.setTemplateResolver(templateResolver);
+        templateEngine.addTemplateResolver(compiledTemplateResolver);
+        templateEngine.addTemplateResolver(templateResolver);
+        templateEngine.setCacheManager(cacheManager);
         return templateEngine;
     }
-}
\ No newline at end of file
+}
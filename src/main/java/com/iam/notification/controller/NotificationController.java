@@ -50,7 +50,7 @@ public class NotificationController {
         return requestMono
                 .doOnNext(request -> log.info("Bulk notification request for {} recipients", request.getRecipients().size()))
                 .flatMap(notificationService::sendBulkNotification)
-                .map(response -> ResponseEntity.ok(ApiResponse.success(response, "Bulk notification queued")));
+                .map(response -> ResponseEntity.accepted().body(ApiResponse.success(response, "Bulk notification queued")));
     }
 
     @PostMapping(ApiRoutes.SEND_REAL_TIME)
@@ -60,6 +60,14 @@ public class NotificationController {
                 .map(response -> ResponseEntity.ok(ApiResponse.success(response, "Real-time notification sent")));
     }
 
+    @PostMapping(ApiRoutes.BROADCAST_REAL_TIME)
+    public Mono<ResponseEntity<ApiResponse<BroadcastResult>>> broadcastRealTimeNotification(@Valid @RequestBody Mono<BroadcastRealTimeNotificationRequest> requestMono) {
+        return requestMono
+                .doOnNext(request -> log.info("Real-time broadcast request of type {}", request.getType()))
+                .flatMap(notificationService::broadcastRealTimeNotification)
+                .map(result -> ResponseEntity.ok(ApiResponse.success(result, "Real-time notification broadcast")));
+    }
+
     // Integration endpoints for other services
     @PostMapping(ApiRoutes.SEND_WELCOME_EMAIL)
     public Mono<ResponseEntity<ApiResponse<Void>>> sendWelcomeEmail(
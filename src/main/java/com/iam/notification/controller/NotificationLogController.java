@@ -0,0 +1,37 @@
+package com.iam.notification.controller;
+
+import com.iam.notification.config.ApiRoutes;
+import com.iam.notification.model.NotificationLog;
+import com.iam.notification.service.NotificationLogQueryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@RestController
+@RequestMapping(ApiRoutes.LOGS)
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationLogController {
+
+    private final NotificationLogQueryService logQueryService;
+
+    // Newline-delimited JSON, written as rows are read so exports of any size stream with backpressure
+    @GetMapping(value = ApiRoutes.EXPORT_LOGS, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<NotificationLog> exportLogs(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(required = false) Integer organizationId,
+            @RequestParam(required = false) UUID userId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String notificationType) {
+
+        log.info("Exporting notification logs from {} to {} for organization {}", start, end, organizationId);
+        return logQueryService.streamLogs(start, end, organizationId, userId, status, notificationType);
+    }
+}
@@ -0,0 +1,43 @@
+package com.iam.notification.controller;
+
+import com.iam.notification.config.ApiRoutes;
+import com.iam.notification.dto.SaveTemplateRequest;
+import com.iam.notification.model.NotificationTemplate;
+import com.iam.notification.service.TemplateService;
+import com.iam.common.response.ApiResponse;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping(ApiRoutes.TEMPLATES)
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationTemplateController {
+
+    private final TemplateService templateService;
+
+    @PutMapping(ApiRoutes.TEMPLATE)
+    public Mono<ResponseEntity<ApiResponse<NotificationTemplate>>> saveTemplate(
+            @PathVariable String templateName,
+            @Valid @RequestBody Mono<SaveTemplateRequest> requestMono) {
+
+        return requestMono
+                .doOnNext(request -> log.info("Saving {} template {} ({})", request.getTemplateType(), templateName, request.getLanguage()))
+                .flatMap(request -> templateService.saveTemplate(templateName, request))
+                .map(template -> ResponseEntity.ok(ApiResponse.success(template, "Template saved")));
+    }
+
+    // For templates changed outside this service, e.g. directly in the database or in template storage
+    @PostMapping(ApiRoutes.INVALIDATE_TEMPLATE)
+    public Mono<ResponseEntity<ApiResponse<Void>>> invalidateTemplate(
+            @PathVariable String templateName,
+            @RequestParam String templateType) {
+
+        return templateService.invalidateTemplate(templateName, templateType)
+                .then(Mono.just(ResponseEntity.ok(ApiResponse.<Void>success("Template caches invalidated"))));
+    }
+}
@@ -0,0 +1,20 @@
+package com.iam.notification.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BroadcastRealTimeNotificationRequest {
+
+    @NotBlank(message = "Message is required")
+    private String message;
+
+    @NotBlank(message = "Type is required")
+    private String type; // INFO, WARNING, ERROR, SUCCESS
+}
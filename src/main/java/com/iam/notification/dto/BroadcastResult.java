@@ -0,0 +1,19 @@
+package com.iam.notification.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BroadcastResult {
+    private int sessions;     // local sockets targeted
+    private int delivered;    // queued on the socket's outbound buffer
+    private int dropped;      // buffer full
+    private int closed;       // socket already closed
+    private long remoteNodes; // other replicas the broadcast was published to
+    private long durationMs;
+}
@@ -0,0 +1,24 @@
+package com.iam.notification.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkJob {
+    private UUID jobId;
+    private String templateName;
+    private String notificationType; // EMAIL, SMS, BOTH
+    private String notificationCategory;
+    private Map<String, Object> variables;
+    private String language;
+    private UUID requestedBy;
+    private Integer organizationId;
+}
@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.UUID;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -15,4 +17,12 @@ public class NotificationResponse {
     private String providerId;
     private String message;
     private String errorMessage;
+    private UUID jobId; // set for queued bulk notifications
+    private Failure failure; // why a send failed; null on success
+
+    public enum Failure {
+        REJECTED,  // the provider refused this request, e.g. a bad recipient; sending it again will not help
+        RETRYABLE, // throttled, a server error, or the provider was never reached; safe to send again or elsewhere
+        UNKNOWN    // e.g. a timeout after the request went out; it may already have been sent
+    }
 }
\ No newline at end of file
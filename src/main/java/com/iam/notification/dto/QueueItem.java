@@ -0,0 +1,18 @@
+package com.iam.notification.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueueItem {
+    private UUID jobId;
+    private String recipient;
+    private UUID userId; // null when the job has no user ids
+}
@@ -0,0 +1,15 @@
+package com.iam.notification.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueueMessage {
+    private String id; // provider message id, null for providers without acknowledgement
+    private byte[] payload;
+}
@@ -0,0 +1,29 @@
+package com.iam.notification.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaveTemplateRequest {
+
+    @NotBlank(message = "Template type is required")
+    private String templateType; // EMAIL, SMS, PUSH, IN_APP
+
+    @Builder.Default
+    private String language = "en";
+
+    private String subject;
+    private String bodyHtml;
+    private String bodyText;
+    private String variables; // JSON string of available variables
+    private Boolean isActive;
+    private UUID updatedBy;
+}
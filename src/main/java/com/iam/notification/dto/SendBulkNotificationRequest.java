@@ -1,5 +1,7 @@
 package com.iam.notification.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
 import lombok.AllArgsConstructor;
@@ -28,9 +30,21 @@ public class SendBulkNotificationRequest {
 
     private Map<String, Object> variables;
 
+    // Optional, aligned with recipients; lets the queue drop opted-out users before sending
+    private List<UUID> userIds;
+
+    @Builder.Default
+    private String notificationCategory = "ACCOUNT"; // SECURITY, ACCOUNT, SYSTEM, MARKETING
+
     @Builder.Default
     private String language = "en";
 
     private UUID requestedBy;
     private Integer organizationId;
+
+    @JsonIgnore
+    @AssertTrue(message = "User ids must match recipients one to one")
+    public boolean isUserIdsAligned() {
+        return userIds == null || recipients == null || userIds.size() == recipients.size();
+    }
 }
@@ -36,7 +36,10 @@ public class NotificationLog {
     private String subject;
 
     @Column("content")
-    private String content;
+    private String content; // SMS message or the HTML part of an email
+
+    @Column("content_text")
+    private String contentText; // plain-text part of an email
 
     @Column("status")
     private String status; // PENDING, SENT, FAILED, DELIVERED
@@ -2,10 +2,24 @@ package com.iam.notification.provider;
 
 import com.iam.notification.dto.EmailRequest;
 import com.iam.notification.dto.NotificationResponse;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 public interface EmailProvider {
     Mono<NotificationResponse> sendEmail(EmailRequest request);
     Mono<Boolean> verifyEmailAddress(String email);
     String getProviderName();
+
+    // Responses are emitted in request order, with at most concurrency sends in flight;
+    // providers with a cheaper batch path override this and getMaxBatchSize
+    default Flux<NotificationResponse> sendBatch(List<EmailRequest> requests, int concurrency) {
+        return Flux.fromIterable(requests).flatMapSequential(this::sendEmail, concurrency);
+    }
+
+    // Requests the provider sends in one call; callers split larger batches into chunks of this size
+    default int getMaxBatchSize() {
+        return 1;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.iam.notification.provider;
+
+import com.iam.notification.dto.QueueMessage;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+public interface NotificationQueueProvider {
+    Mono<Void> pushAll(List<byte[]> items);
+    Mono<List<QueueMessage>> poll(int batchSize, Duration timeout);
+    Mono<Void> acknowledge(List<QueueMessage> messages);
+    // Parks messages that can never be processed and removes them from the queue
+    Mono<Void> deadLetter(List<QueueMessage> messages);
+    String getProviderName();
+}
@@ -0,0 +1,73 @@
+package com.iam.notification.provider;
+
+import com.iam.notification.dto.NotificationResponse.Failure;
+import jakarta.mail.SendFailedException;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSenderFailedException;
+import org.eclipse.angus.mail.util.MailConnectException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+// Classifies send errors so routing fails over only when the request cannot have been delivered
+public final class ProviderFailures {
+
+    private ProviderFailures() {}
+
+    public static Failure forStatus(int httpStatus) {
+        return httpStatus == 429 || httpStatus >= 500 ? Failure.RETRYABLE : Failure.REJECTED;
+    }
+
+    public static Failure classify(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+
+        if (error instanceof AwsServiceException aws) {
+            return aws.isThrottlingException() ? Failure.RETRYABLE : forStatus(aws.statusCode());
+        }
+        if (error instanceof WebClientResponseException http) {
+            return forStatus(http.getStatusCode().value());
+        }
+        if (error instanceof SMTPSendFailedException smtp) {
+            return forSmtpReply(smtp.getReturnCode());
+        }
+        if (error instanceof SMTPAddressFailedException smtp) {
+            return forSmtpReply(smtp.getReturnCode());
+        }
+        if (error instanceof SMTPSenderFailedException smtp) {
+            return forSmtpReply(smtp.getReturnCode());
+        }
+        if (error instanceof SendFailedException) {
+            return Failure.REJECTED; // invalid addresses
+        }
+        if (isConnectFailure(error)) {
+            return Failure.RETRYABLE;
+        }
+
+        // Timeouts and dropped connections land here: the provider may have acted on the request
+        return Failure.UNKNOWN;
+    }
+
+    // 4xx SMTP replies are transient and the message was not accepted; 5xx are permanent
+    private static Failure forSmtpReply(int returnCode) {
+        return returnCode >= 400 && returnCode < 500 ? Failure.RETRYABLE : Failure.REJECTED;
+    }
+
+    // Netty's ConnectTimeoutException is a ConnectException; MailConnectException covers SMTP connect timeouts
+    private static boolean isConnectFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof UnknownHostException
+                    || cause instanceof NoRouteToHostException || cause instanceof MailConnectException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
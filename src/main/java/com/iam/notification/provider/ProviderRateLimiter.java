@@ -0,0 +1,222 @@
+package com.iam.notification.provider;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Token bucket (GCRA) plus a max-in-flight limit for calls to one provider. Callers over the
+// limit are delayed rather than rejected, which backpressures bulk fan-out to the provider's rate.
+// With a Redis template the rate is one budget shared by every replica, matching provider quotas
+// that are per account; the in-flight limit is always per replica.
+@Slf4j
+public class ProviderRateLimiter {
+
+    private static final ProviderRateLimiter UNLIMITED = new ProviderRateLimiter(0, 1, Integer.MAX_VALUE);
+    private static final String KEY_PREFIX = "notification:ratelimit:";
+
+    // Context key of an AtomicLong that is set to System.nanoTime() when the call is let through,
+    // so callers can time the provider call without the wait for a permit or rate slot
+    public static final String GRANTED_AT = ProviderRateLimiter.class.getName() + ".grantedAt";
+
+    // Same reservation as the local one, on the Redis clock in microseconds; returns the wait
+    private static final RedisScript<Long> RESERVE_SCRIPT = RedisScript.of("""
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000000 + tonumber(time[2])
+            local cost = tonumber(ARGV[1])
+            local slot = math.max(tonumber(redis.call('GET', KEYS[1]) or now), now)
+            redis.call('SET', KEYS[1], string.format('%d', slot + cost),
+                'PX', string.format('%d', math.ceil((slot + cost - now) / 1000) + 1000))
+            return slot - tonumber(ARGV[2]) - now
+            """, Long.class);
+
+    private final long intervalNanos;       // time between sends at the sustained rate; 0 means no rate limit
+    private final long burstToleranceNanos;
+    private final int maxInFlight;
+    private final ReactiveRedisTemplate<String, String> redisTemplate; // null keeps the rate local
+    private final String key;
+
+    private final AtomicLong theoreticalArrival = new AtomicLong(System.nanoTime());
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    public ProviderRateLimiter(double ratePerSecond, int burst, int maxInFlight) {
+        this(ratePerSecond, burst, maxInFlight, null, null);
+    }
+
+    public ProviderRateLimiter(double ratePerSecond, int burst, int maxInFlight,
+                               ReactiveRedisTemplate<String, String> redisTemplate, String providerName) {
+        this.intervalNanos = ratePerSecond > 0 ? (long) (1_000_000_000L / ratePerSecond) : 0;
+        this.burstToleranceNanos = intervalNanos * Math.max(0, burst - 1);
+        this.maxInFlight = maxInFlight > 0 ? maxInFlight : Integer.MAX_VALUE;
+        this.redisTemplate = redisTemplate;
+        this.key = KEY_PREFIX + providerName;
+    }
+
+    public static ProviderRateLimiter unlimited() {
+        return UNLIMITED;
+    }
+
+    public <T> Mono<T> execute(Supplier<Mono<T>> call) {
+        return execute(1, call);
+    }
+
+    // A call that sends several messages at once, e.g. a bulk API call, takes one rate slot per
+    // message and is let through once the last of them is due; it holds a single in-flight permit
+    public <T> Mono<T> execute(int messages, Supplier<Mono<T>> call) {
+        if (this == UNLIMITED) {
+            return granted(call);
+        }
+
+        // The permit is held while waiting for a rate slot, so reservations stay bounded
+        return Mono.usingWhen(
+                acquire(),
+                permit -> awaitRateSlot(Math.max(1, messages)).then(granted(call)),
+                permit -> Mono.fromRunnable(this::release));
+    }
+
+    private static <T> Mono<T> granted(Supplier<Mono<T>> call) {
+        return Mono.deferContextual(context -> {
+            context.<AtomicLong>getOrEmpty(GRANTED_AT).ifPresent(grantedAt -> grantedAt.set(System.nanoTime()));
+            return call.get();
+        });
+    }
+
+    private Mono<Void> awaitRateSlot(int messages) {
+        if (intervalNanos == 0) {
+            return Mono.empty();
+        }
+
+        // The call may go once its last slot is within the burst tolerance
+        long costNanos = intervalNanos * messages;
+        long toleranceNanos = burstToleranceNanos - costNanos + intervalNanos;
+        if (redisTemplate == null) {
+            return awaitSlot(reserveLocalSlot(costNanos, toleranceNanos), () -> refundLocalSlot(costNanos));
+        }
+
+        // A Redis outage falls back to this replica's own budget rather than stopping sends
+        return redisTemplate.execute(RESERVE_SCRIPT, List.of(key),
+                        List.of(String.valueOf(costNanos / 1000), String.valueOf(toleranceNanos / 1000)))
+                .next()
+                .map(waitMicros -> awaitSlot(waitMicros * 1000, () -> refundSharedSlot(costNanos)))
+                .onErrorResume(error -> {
+                    log.warn("Shared rate limit {} unavailable, limiting locally: {}", key, error.getMessage());
+                    return Mono.just(awaitSlot(reserveLocalSlot(costNanos, toleranceNanos), () -> refundLocalSlot(costNanos)));
+                })
+                .flatMap(wait -> wait);
+    }
+
+    // A caller cancelled while waiting gives its slot back, so abandoned sends do not slow the rest
+    private Mono<Void> awaitSlot(long waitNanos, Runnable refund) {
+        return waitNanos > 0
+                ? Mono.delay(Duration.ofNanos(waitNanos)).then().doOnCancel(refund)
+                : Mono.empty();
+    }
+
+    private long reserveLocalSlot(long costNanos, long toleranceNanos) {
+        // Reserve the next slots; up to burst sends may run ahead of the sustained rate
+        long now = System.nanoTime();
+        long previous;
+        long slot;
+        do {
+            previous = theoreticalArrival.get();
+            slot = Math.max(previous, now);
+        } while (!theoreticalArrival.compareAndSet(previous, slot + costNanos));
+
+        return slot - toleranceNanos - now;
+    }
+
+    private void refundLocalSlot(long costNanos) {
+        theoreticalArrival.addAndGet(-costNanos);
+    }
+
+    private void refundSharedSlot(long costNanos) {
+        redisTemplate.opsForValue().decrement(key, costNanos / 1000).subscribe(
+                unused -> {},
+                error -> log.debug("Failed to refund shared rate slot {}: {}", key, error.getMessage()));
+    }
+
+    private Mono<Boolean> acquire() {
+        return Mono.create(sink -> {
+            Waiter waiter = new Waiter(sink, this::release);
+            sink.onCancel(waiter::cancel);
+            if (tryAcquire()) {
+                if (!waiter.grant()) {
+                    release(); // cancelled before it was subscribed
+                }
+                return;
+            }
+
+            waiters.offer(waiter);
+            grantWaiters(); // a permit may have been released before we were queued
+        });
+    }
+
+    private void release() {
+        inFlight.decrementAndGet();
+        grantWaiters();
+    }
+
+    private void grantWaiters() {
+        while (!waiters.isEmpty() && tryAcquire()) {
+            Waiter waiter = waiters.poll();
+            if (waiter == null || !waiter.grant()) {
+                inFlight.decrementAndGet(); // nobody to hand the permit to
+                if (waiter == null) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= maxInFlight) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private static final class Waiter {
+        private static final int WAITING = 0;
+        private static final int GRANTED = 1;
+        private static final int CANCELLED = 2;
+
+        private final MonoSink<Boolean> sink;
+        private final Runnable release;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+
+        Waiter(MonoSink<Boolean> sink, Runnable release) {
+            this.sink = sink;
+            this.release = release;
+        }
+
+        boolean grant() {
+            if (!state.compareAndSet(WAITING, GRANTED)) {
+                return false;
+            }
+            sink.success(true);
+            return true;
+        }
+
+        // The sink only reports a cancel when the permit did not reach the caller, so a permit
+        // granted in the meantime is handed back here rather than lost
+        void cancel() {
+            if (!state.compareAndSet(WAITING, CANCELLED)) {
+                release.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.iam.notification.provider;
+
+import com.iam.notification.config.NotificationConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+@Slf4j
+public class ProviderRateLimiterRegistry {
+
+    private final Map<String, NotificationConfig.RateLimit> limits;
+    private final ReactiveRedisTemplate<String, String> redisTemplate; // null when each replica keeps its own rate
+    private final Map<String, ProviderRateLimiter> limiters = new ConcurrentHashMap<>();
+
+    public ProviderRateLimiterRegistry(NotificationConfig notificationConfig, ReactiveRedisTemplate<String, String> redisTemplate) {
+        this.limits = notificationConfig.getRateLimits();
+        this.redisTemplate = notificationConfig.isRateLimitsShared() ? redisTemplate : null;
+    }
+
+    // Keyed by provider name (AWS_SES, SENDGRID, SMTP, AWS_SNS, TWILIO); unconfigured providers are unlimited
+    public ProviderRateLimiter get(String providerName) {
+        return limiters.computeIfAbsent(providerName, name -> {
+            NotificationConfig.RateLimit limit = limits.get(name);
+            if (limit == null) {
+                return ProviderRateLimiter.unlimited();
+            }
+
+            log.info("Rate limiting {} to {}/s {} (burst {}, max in flight {} per replica)",
+                    name, limit.getRatePerSecond(), redisTemplate != null ? "across replicas" : "per replica",
+                    limit.getBurst(), limit.getMaxInFlight());
+            return new ProviderRateLimiter(limit.getRatePerSecond(), limit.getBurst(), limit.getMaxInFlight(), redisTemplate, name);
+        });
+    }
+}
@@ -6,8 +6,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
+import software.amazon.awssdk.core.ResponseBytes;
 import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
 import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.model.*;
 
@@ -34,10 +35,9 @@ public class AwsS3TemplateStorage implements TemplateStorageProvider {
                             .key(key)
                             .build();
 
-                    return s3Client.getObject(request, AsyncRequestBody.fromString(""));
+                    return s3Client.getObject(request, AsyncResponseTransformer.toBytes());
                 })
-                .map(response -> response.toString())
-                .subscribeOn(Schedulers.boundedElastic())
+                .map(ResponseBytes::asUtf8String)
                 .doOnSuccess(template -> log.debug("Template {} fetched successfully from S3", templateName))
                 .onErrorResume(throwable -> {
                     log.warn("Failed to fetch template {} from S3: {}", templateName, throwable.getMessage());
@@ -62,7 +62,6 @@ public class AwsS3TemplateStorage implements TemplateStorageProvider {
                             AsyncRequestBody.fromString(content, StandardCharsets.UTF_8));
                 })
                 .then()
-                .subscribeOn(Schedulers.boundedElastic())
                 .doOnSuccess(unused -> log.info("Template {} saved successfully to S3", templateName))
                 .onErrorResume(throwable -> {
                     log.error("Failed to save template {} to S3: {}", templateName, throwable.getMessage());
@@ -83,8 +82,7 @@ public class AwsS3TemplateStorage implements TemplateStorageProvider {
                     return s3Client.headObject(request);
                 })
                 .map(response -> true)
-                .onErrorReturn(false)
-                .subscribeOn(Schedulers.boundedElastic());
+                .onErrorReturn(false);
     }
 
     @Override
@@ -1,33 +1,49 @@
 package com.iam.notification.provider.aws;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.iam.notification.provider.EmailProvider;
+import com.iam.notification.provider.ProviderFailures;
+import com.iam.notification.provider.ProviderRateLimiterRegistry;
 import com.iam.notification.dto.EmailRequest;
 import com.iam.notification.dto.NotificationResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 import software.amazon.awssdk.services.ses.SesAsyncClient;
 import software.amazon.awssdk.services.ses.model.*;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
-@ConditionalOnProperty(name = "notification.email.provider", havingValue = "aws-ses")
+@ConditionalOnExpression("'${notification.email.provider:smtp},${notification.email.failover:}'.contains('aws-ses')")
 @RequiredArgsConstructor
 @Slf4j
 public class AwsSesEmailProvider implements EmailProvider {
 
+    private static final int MAX_BULK_DESTINATIONS = 50; // SES limit per SendBulkTemplatedEmail call
+    private static final String BULK_TEMPLATE_PREFIX = "iam-notification-passthrough-";
+
     private final SesAsyncClient sesClient;
+    private final ProviderRateLimiterRegistry rateLimiters;
+    private final ObjectMapper objectMapper;
+    // Pass-through bulk templates by name, created in SES on first use
+    private final Map<String, Mono<Void>> bulkTemplates = new ConcurrentHashMap<>();
 
     @Override
     public Mono<NotificationResponse> sendEmail(EmailRequest request) {
         log.info("Sending email via AWS SES to: {}", request.getTo());
 
-        return Mono.fromFuture(this::sendEmailAsync)
-                .subscribeOn(Schedulers.boundedElastic())
+        return rateLimiters.get(getProviderName())
+                .execute(() -> Mono.fromFuture(() -> sendEmailAsync(request)))
                 .map(response -> NotificationResponse.builder()
                         .success(true)
                         .provider("AWS_SES")
@@ -36,42 +52,183 @@ public class AwsSesEmailProvider implements EmailProvider {
                         .build())
                 .onErrorResume(throwable -> {
                     log.error("Failed to send email via AWS SES: {}", throwable.getMessage(), throwable);
-                    return Mono.just(NotificationResponse.builder()
-                            .success(false)
-                            .provider("AWS_SES")
-                            .errorMessage(throwable.getMessage())
-                            .build());
+                    return Mono.just(failure(throwable));
                 });
     }
 
-    private CompletableFuture<SendEmailResponse> sendEmailAsync(EmailRequest request) {
+    // Each chunk of up to MAX_BULK_DESTINATIONS recipients is one SendBulkTemplatedEmail call
+    // through a template that passes the already rendered content through, so a bulk job's
+    // content is sent once per call as default data and only what differs goes per destination
+    @Override
+    public Flux<NotificationResponse> sendBatch(List<EmailRequest> requests, int concurrency) {
+        return Flux.range(0, (requests.size() + MAX_BULK_DESTINATIONS - 1) / MAX_BULK_DESTINATIONS)
+                .map(chunk -> requests.subList(chunk * MAX_BULK_DESTINATIONS,
+                        Math.min(requests.size(), (chunk + 1) * MAX_BULK_DESTINATIONS)))
+                .flatMapSequential(this::sendChunk, concurrency);
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return MAX_BULK_DESTINATIONS;
+    }
+
+    private Flux<NotificationResponse> sendChunk(List<EmailRequest> requests) {
+        // One call has one sender and one template, so mixed chunks are sent one by one
+        EmailRequest first = requests.get(0);
+        boolean uniform = requests.stream().allMatch(request -> Objects.equals(request.getFrom(), first.getFrom())
+                && templateName(request).equals(templateName(first)));
+        if (requests.size() == 1 || !uniform) {
+            return Flux.fromIterable(requests).concatMap(this::sendEmail);
+        }
+
+        String template = templateName(first);
+        return bulkTemplate(template, hasText(first.getBodyHtml()), hasText(first.getBodyText()))
+                .thenReturn(true)
+                .onErrorResume(error -> {
+                    log.warn("AWS SES bulk template {} unavailable, sending one by one: {}", template, error.getMessage());
+                    return Mono.just(false);
+                })
+                .flatMapMany(bulk -> bulk
+                        ? sendBulk(template, requests)
+                        : Flux.fromIterable(requests).concatMap(this::sendEmail));
+    }
+
+    private Flux<NotificationResponse> sendBulk(String template, List<EmailRequest> requests) {
+        log.info("Sending {} emails via AWS SES bulk send", requests.size());
+
+        return rateLimiters.get(getProviderName())
+                .execute(requests.size(), () -> Mono.fromFuture(() -> sendBulkAsync(template, requests)))
+                .map(this::bulkResponses)
+                .onErrorResume(throwable -> {
+                    log.error("Failed to send {} emails via AWS SES bulk send: {}", requests.size(), throwable.getMessage(), throwable);
+                    NotificationResponse failure = failure(throwable);
+                    return Mono.just(requests.stream().map(request -> failure).toList());
+                })
+                .flatMapIterable(responses -> responses);
+    }
+
+    private CompletableFuture<SendBulkTemplatedEmailResponse> sendBulkAsync(String template, List<EmailRequest> requests) {
         try {
-            // Build email content
-            Content subject = Content.builder()
-                    .data(request.getSubject())
-                    .charset("UTF-8")
-                    .build();
+            // Fields every recipient shares go once as default data
+            List<Map<String, String>> data = requests.stream().map(AwsSesEmailProvider::templateData).toList();
+            Map<String, String> defaults = new HashMap<>(data.get(0));
+            for (Map<String, String> fields : data) {
+                defaults.entrySet().removeIf(field -> !field.getValue().equals(fields.get(field.getKey())));
+            }
 
-            Content htmlBody = Content.builder()
-                    .data(request.getBodyHtml())
-                    .charset("UTF-8")
-                    .build();
+            List<BulkEmailDestination> destinations = new ArrayList<>(requests.size());
+            for (int i = 0; i < requests.size(); i++) {
+                Map<String, String> replacements = new HashMap<>(data.get(i));
+                replacements.keySet().removeAll(defaults.keySet());
+                EmailRequest request = requests.get(i);
+                destinations.add(BulkEmailDestination.builder()
+                        .destination(Destination.builder().toAddresses(request.getTo()).build())
+                        .replacementTemplateData(objectMapper.writeValueAsString(replacements))
+                        .build());
+            }
 
-            Content textBody = Content.builder()
-                    .data(request.getBodyText())
-                    .charset("UTF-8")
+            SendBulkTemplatedEmailRequest bulkRequest = SendBulkTemplatedEmailRequest.builder()
+                    .source(requests.get(0).getFrom())
+                    .template(template)
+                    .defaultTemplateData(objectMapper.writeValueAsString(defaults))
+                    .destinations(destinations)
                     .build();
 
-            Body body = Body.builder()
-                    .html(htmlBody)
-                    .text(textBody)
-                    .build();
+            return sesClient.sendBulkTemplatedEmail(bulkRequest);
 
-            Message message = Message.builder()
-                    .subject(subject)
-                    .body(body)
-                    .build();
+        } catch (Exception e) {
+            CompletableFuture<SendBulkTemplatedEmailResponse> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
 
+    // Statuses come back in destination order
+    private List<NotificationResponse> bulkResponses(SendBulkTemplatedEmailResponse response) {
+        List<NotificationResponse> responses = new ArrayList<>(response.status().size());
+        for (BulkEmailDestinationStatus status : response.status()) {
+            if (status.status() == BulkEmailStatus.SUCCESS) {
+                responses.add(NotificationResponse.builder()
+                        .success(true)
+                        .provider("AWS_SES")
+                        .providerId(status.messageId())
+                        .message("Email sent successfully via AWS SES")
+                        .build());
+            } else {
+                responses.add(NotificationResponse.builder()
+                        .success(false)
+                        .provider("AWS_SES")
+                        .errorMessage(status.statusAsString() + (status.error() != null ? ": " + status.error() : ""))
+                        .failure(bulkFailure(status.status()))
+                        .build());
+            }
+        }
+        return responses;
+    }
+
+    // Account and configuration problems did not send anything, so another provider may; a
+    // rejected message or parameter would be rejected anywhere
+    private static NotificationResponse.Failure bulkFailure(BulkEmailStatus status) {
+        return switch (status) {
+            case MESSAGE_REJECTED, INVALID_PARAMETER_VALUE -> NotificationResponse.Failure.REJECTED;
+            case ACCOUNT_THROTTLED, TRANSIENT_FAILURE, ACCOUNT_DAILY_QUOTA_EXCEEDED, ACCOUNT_SENDING_PAUSED,
+                 ACCOUNT_SUSPENDED, CONFIGURATION_SET_SENDING_PAUSED, CONFIGURATION_SET_DOES_NOT_EXIST,
+                 MAIL_FROM_DOMAIN_NOT_VERIFIED, TEMPLATE_DOES_NOT_EXIST, INVALID_SENDING_POOL_NAME -> NotificationResponse.Failure.RETRYABLE;
+            default -> NotificationResponse.Failure.UNKNOWN;
+        };
+    }
+
+    // Triple braces, so the rendered content is inserted without escaping
+    private Mono<Void> bulkTemplate(String name, boolean html, boolean text) {
+        return bulkTemplates.computeIfAbsent(name, key -> Mono.fromFuture(() -> sesClient.createTemplate(CreateTemplateRequest.builder()
+                                .template(Template.builder()
+                                        .templateName(name)
+                                        .subjectPart("{{{subject}}}")
+                                        .htmlPart(html ? "{{{html}}}" : null)
+                                        .textPart(text ? "{{{text}}}" : null)
+                                        .build())
+                                .build()))
+                        .then()
+                        .onErrorResume(AlreadyExistsException.class, e -> Mono.empty())
+                        // Failures are not kept, so the next batch tries to create it again
+                        .doOnError(error -> bulkTemplates.remove(name))
+                        .cache());
+    }
+
+    // One template per combination of body parts, as SES would send an empty part otherwise
+    private static String templateName(EmailRequest request) {
+        boolean html = hasText(request.getBodyHtml());
+        boolean text = hasText(request.getBodyText());
+        return BULK_TEMPLATE_PREFIX + (html && text ? "html-text" : html ? "html" : text ? "text" : "subject");
+    }
+
+    private static Map<String, String> templateData(EmailRequest request) {
+        Map<String, String> data = new HashMap<>();
+        data.put("subject", request.getSubject() != null ? request.getSubject() : "");
+        if (hasText(request.getBodyHtml())) {
+            data.put("html", request.getBodyHtml());
+        }
+        if (hasText(request.getBodyText())) {
+            data.put("text", request.getBodyText());
+        }
+        return data;
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isEmpty();
+    }
+
+    private NotificationResponse failure(Throwable throwable) {
+        return NotificationResponse.builder()
+                .success(false)
+                .provider("AWS_SES")
+                .errorMessage(throwable.getMessage())
+                .failure(ProviderFailures.classify(throwable))
+                .build();
+    }
+
+    private CompletableFuture<SendEmailResponse> sendEmailAsync(EmailRequest request) {
+        try {
             // Build destination
             Destination destination = Destination.builder()
                     .toAddresses(request.getTo())
@@ -81,7 +238,7 @@ public class AwsSesEmailProvider implements EmailProvider {
             SendEmailRequest sendRequest = SendEmailRequest.builder()
                     .source(request.getFrom())
                     .destination(destination)
-                    .message(message)
+                    .message(buildMessage(request))
                     .build();
 
             return sesClient.sendEmail(sendRequest);
@@ -93,6 +250,34 @@ public class AwsSesEmailProvider implements EmailProvider {
         }
     }
 
+    private Message buildMessage(EmailRequest request) {
+        // Build email content
+        Content subject = Content.builder()
+                .data(request.getSubject())
+                .charset("UTF-8")
+                .build();
+
+        // SES rejects parts with null data, so only include the bodies we have
+        Body.Builder bodyBuilder = Body.builder();
+        if (request.getBodyHtml() != null && !request.getBodyHtml().isEmpty()) {
+            bodyBuilder.html(Content.builder()
+                    .data(request.getBodyHtml())
+                    .charset("UTF-8")
+                    .build());
+        }
+        if (request.getBodyText() != null && !request.getBodyText().isEmpty()) {
+            bodyBuilder.text(Content.builder()
+                    .data(request.getBodyText())
+                    .charset("UTF-8")
+                    .build());
+        }
+
+        return Message.builder()
+                .subject(subject)
+                .body(bodyBuilder.build())
+                .build();
+    }
+
     @Override
     public Mono<Boolean> verifyEmailAddress(String email) {
         return Mono.fromFuture(() -> {
@@ -107,8 +292,7 @@ public class AwsSesEmailProvider implements EmailProvider {
                     IdentityVerificationAttributes attrs = response.verificationAttributes().get(email);
                     return attrs != null && attrs.verificationStatus() == VerificationStatus.SUCCESS;
                 })
-                .onErrorReturn(false)
-                .subscribeOn(Schedulers.boundedElastic());
+                .onErrorReturn(false);
     }
 
     @Override
@@ -1,14 +1,15 @@
 package com.iam.notification.provider.aws;
 
+import com.iam.notification.provider.ProviderFailures;
+import com.iam.notification.provider.ProviderRateLimiterRegistry;
 import com.iam.notification.provider.SmsProvider;
 import com.iam.notification.dto.SmsRequest;
 import com.iam.notification.dto.NotificationResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 import software.amazon.awssdk.services.sns.SnsAsyncClient;
 import software.amazon.awssdk.services.sns.model.PublishRequest;
 import software.amazon.awssdk.services.sns.model.PublishResponse;
@@ -16,19 +17,20 @@ import software.amazon.awssdk.services.sns.model.PublishResponse;
 import java.util.concurrent.CompletableFuture;
 
 @Service
-@ConditionalOnProperty(name = "notification.sms.provider", havingValue = "aws-sns")
+@ConditionalOnExpression("'${notification.sms.provider:mock},${notification.sms.failover:}'.contains('aws-sns')")
 @RequiredArgsConstructor
 @Slf4j
 public class AwsSnsProvider implements SmsProvider {
 
     private final SnsAsyncClient snsClient;
+    private final ProviderRateLimiterRegistry rateLimiters;
 
     @Override
     public Mono<NotificationResponse> sendSms(SmsRequest request) {
         log.info("Sending SMS via AWS SNS to: {}", request.getPhoneNumber());
 
-        return Mono.fromFuture(() -> sendSmsAsync(request))
-                .subscribeOn(Schedulers.boundedElastic())
+        return rateLimiters.get(getProviderName())
+                .execute(() -> Mono.fromFuture(() -> sendSmsAsync(request)))
                 .map(response -> NotificationResponse.builder()
                         .success(true)
                         .provider("AWS_SNS")
@@ -41,6 +43,7 @@ public class AwsSnsProvider implements SmsProvider {
                             .success(false)
                             .provider("AWS_SNS")
                             .errorMessage(throwable.getMessage())
+                            .failure(ProviderFailures.classify(throwable))
                             .build());
                 });
     }
@@ -67,7 +70,7 @@ public class AwsSnsProvider implements SmsProvider {
         return Mono.fromCallable(() -> {
             String formatted = formatPhoneNumber(phoneNumber);
             return formatted.matches("^\\+[1-9]\\d{1,14}$");
-        }).subscribeOn(Schedulers.boundedElastic());
+        });
     }
 
     @Override
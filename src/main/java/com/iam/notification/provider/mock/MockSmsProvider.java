@@ -4,14 +4,14 @@ import com.iam.notification.provider.SmsProvider;
 import com.iam.notification.dto.SmsRequest;
 import com.iam.notification.dto.NotificationResponse;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
 import java.util.UUID;
 
 @Service
-@ConditionalOnProperty(name = "notification.sms.provider", havingValue = "mock", matchIfMissing = true)
+@ConditionalOnExpression("'${notification.sms.provider:mock},${notification.sms.failover:}'.contains('mock')")
 @Slf4j
 public class MockSmsProvider implements SmsProvider {
 
@@ -0,0 +1,67 @@
+package com.iam.notification.provider.redis;
+
+import com.iam.notification.dto.QueueMessage;
+import com.iam.notification.provider.NotificationQueueProvider;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+@Service
+@ConditionalOnProperty(name = "notification.queue.provider", havingValue = "redis", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class RedisListQueueProvider implements NotificationQueueProvider {
+
+    private static final String QUEUE_KEY = "notification:queue";
+    private static final String DEAD_LETTER_KEY = "notification:queue:dead-letter";
+    private static final long DEAD_LETTER_MAX_SIZE = 100_000;
+
+    private final ReactiveRedisTemplate<String, byte[]> redisTemplate;
+
+    @Override
+    public Mono<Void> pushAll(List<byte[]> items) {
+        // Single variadic LPUSH per chunk
+        return redisTemplate.opsForList().leftPushAll(QUEUE_KEY, items).then();
+    }
+
+    @Override
+    public Mono<List<QueueMessage>> poll(int batchSize, Duration timeout) {
+        // Block on BRPOP for the first item, then fill the batch with pipelined RPOPs
+        return redisTemplate.opsForList().rightPop(QUEUE_KEY, timeout)
+                .flatMapMany(first -> Flux.range(0, batchSize - 1)
+                        .flatMap(i -> redisTemplate.opsForList().rightPop(QUEUE_KEY), Math.max(1, batchSize - 1))
+                        .startWith(first))
+                .map(payload -> QueueMessage.builder().payload(payload).build())
+                .collectList();
+    }
+
+    @Override
+    public Mono<Void> acknowledge(List<QueueMessage> messages) {
+        // Popped items are already removed from the list
+        return Mono.empty();
+    }
+
+    @Override
+    public Mono<Void> deadLetter(List<QueueMessage> messages) {
+        if (messages.isEmpty()) {
+            return Mono.empty();
+        }
+
+        List<byte[]> payloads = messages.stream().map(QueueMessage::getPayload).toList();
+        return redisTemplate.opsForList().leftPushAll(DEAD_LETTER_KEY, payloads)
+                .then(redisTemplate.opsForList().trim(DEAD_LETTER_KEY, 0, DEAD_LETTER_MAX_SIZE - 1))
+                .then();
+    }
+
+    @Override
+    public String getProviderName() {
+        return "REDIS_LIST";
+    }
+}
@@ -0,0 +1,192 @@
+package com.iam.notification.provider.redis;
+
+import com.iam.notification.config.NotificationConfig;
+import com.iam.notification.dto.QueueMessage;
+import com.iam.notification.provider.NotificationQueueProvider;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveStreamOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Service
+@ConditionalOnProperty(name = "notification.queue.provider", havingValue = "redis-stream")
+@Slf4j
+public class RedisStreamQueueProvider implements NotificationQueueProvider {
+
+    private static final String STREAM_KEY = "notification:stream";
+    private static final String CONSUMER_GROUP = "notification-workers";
+    private static final String PAYLOAD_FIELD = "payload";
+    private static final String ORIGINAL_ID_FIELD = "original-id";
+    private static final String DEAD_LETTER_KEY = "notification:stream:dead-letter";
+    private static final long DEAD_LETTER_MAX_SIZE = 100_000;
+
+    private final ReactiveStreamOperations<String, String, byte[]> streamOps;
+    private final NotificationConfig notificationConfig;
+    private final String consumerName;
+
+    // Start by re-reading our own pending entries left over from a previous run
+    private final AtomicBoolean readPending = new AtomicBoolean(true);
+    private volatile boolean groupCreated;
+
+    public RedisStreamQueueProvider(ReactiveRedisTemplate<String, byte[]> redisTemplate, NotificationConfig notificationConfig) {
+        this.streamOps = redisTemplate.opsForStream();
+        this.notificationConfig = notificationConfig;
+
+        String configuredName = notificationConfig.getQueue().getConsumerName();
+        this.consumerName = configuredName != null && !configuredName.isBlank()
+                ? configuredName
+                : UUID.randomUUID().toString();
+
+        log.info("Redis stream queue consumer {} in group {}", consumerName, CONSUMER_GROUP);
+    }
+
+    @Override
+    public Mono<Void> pushAll(List<byte[]> items) {
+        // XADD has no variadic form; issue them concurrently so Lettuce pipelines the whole chunk
+        return ensureGroup()
+                .thenMany(Flux.fromIterable(items)
+                        .flatMap(item -> streamOps.add(STREAM_KEY, Map.of(PAYLOAD_FIELD, item)), Math.max(1, items.size())))
+                .then();
+    }
+
+    @Override
+    public Mono<List<QueueMessage>> poll(int batchSize, Duration timeout) {
+        boolean pendingOnly = readPending.getAndSet(false);
+        ReadOffset offset = pendingOnly ? ReadOffset.from("0") : ReadOffset.lastConsumed();
+
+        return ensureGroup()
+                .thenMany(read(StreamReadOptions.empty().count(batchSize).block(timeout), offset))
+                .map(record -> QueueMessage.builder()
+                        .id(record.getId().getValue())
+                        .payload(record.getValue().get(PAYLOAD_FIELD)) // null for entries deleted while pending
+                        .build())
+                .collectList()
+                .doOnNext(messages -> {
+                    if (pendingOnly && messages.size() == batchSize) {
+                        readPending.set(true); // more of our pending entries may remain
+                    }
+                });
+    }
+
+    // read() only takes generic varargs offsets; the one-element array it builds never escapes
+    @SuppressWarnings("unchecked")
+    private Flux<MapRecord<String, String, byte[]>> read(StreamReadOptions options, ReadOffset offset) {
+        return streamOps.read(Consumer.from(CONSUMER_GROUP, consumerName), options, StreamOffset.create(STREAM_KEY, offset));
+    }
+
+    @Override
+    public Mono<Void> acknowledge(List<QueueMessage> messages) {
+        if (messages.isEmpty()) {
+            return Mono.empty();
+        }
+
+        RecordId[] ids = messages.stream()
+                .map(message -> RecordId.of(message.getId()))
+                .toArray(RecordId[]::new);
+
+        // Single consumer group, so acknowledged entries can be dropped from the stream
+        return streamOps.acknowledge(STREAM_KEY, CONSUMER_GROUP, ids)
+                .then(streamOps.delete(STREAM_KEY, ids))
+                .then();
+    }
+
+    @Override
+    public Mono<Void> deadLetter(List<QueueMessage> messages) {
+        if (messages.isEmpty()) {
+            return Mono.empty();
+        }
+
+        return Flux.fromIterable(messages)
+                .filter(message -> message.getPayload() != null)
+                .flatMap(message -> streamOps.add(DEAD_LETTER_KEY, Map.of(PAYLOAD_FIELD, message.getPayload(),
+                        ORIGINAL_ID_FIELD, message.getId().getBytes(StandardCharsets.UTF_8))))
+                // Approximate trimming keeps it cheap; the oldest dead letters go first
+                .then(streamOps.trim(DEAD_LETTER_KEY, DEAD_LETTER_MAX_SIZE, true))
+                .then(acknowledge(messages));
+    }
+
+    @Scheduled(fixedDelay = 30000) // Reclaim entries stuck on crashed consumers every 30 seconds
+    public void reclaimStuckMessages() {
+        Duration minIdle = Duration.ofSeconds(notificationConfig.getQueue().getClaimIdleSeconds());
+        int maxDeliveries = notificationConfig.getQueue().getMaxRetries() + 1;
+
+        ensureGroup()
+                .then(streamOps.pending(STREAM_KEY, CONSUMER_GROUP, Range.unbounded(), notificationConfig.getQueue().getBatchSize() * 10L))
+                .flatMapMany(Flux::fromIterable)
+                .filter(pending -> pending.getElapsedTimeSinceLastDelivery().compareTo(minIdle) >= 0)
+                .groupBy(pending -> pending.getTotalDeliveryCount() >= maxDeliveries)
+                .flatMap(group -> group.map(PendingMessage::getId)
+                        .collectList()
+                        .flatMap(ids -> Boolean.TRUE.equals(group.key())
+                                ? deadLetterPoisonMessages(ids, minIdle)
+                                : claimMessages(ids, minIdle)))
+                .reduce(0L, Long::sum)
+                .subscribe(
+                        claimed -> {
+                            if (claimed > 0) {
+                                log.info("Reclaimed {} stuck stream entries for consumer {}", claimed, consumerName);
+                                readPending.set(true);
+                            }
+                        },
+                        error -> log.error("Error reclaiming stuck stream entries: {}", error.getMessage())
+                );
+    }
+
+    @Override
+    public String getProviderName() {
+        return "REDIS_STREAM";
+    }
+
+    private Mono<Long> claimMessages(List<RecordId> ids, Duration minIdle) {
+        return streamOps.claim(STREAM_KEY, CONSUMER_GROUP, consumerName, minIdle, ids.toArray(RecordId[]::new))
+                .count();
+    }
+
+    private Mono<Long> deadLetterPoisonMessages(List<RecordId> ids, Duration minIdle) {
+        log.error("Dead-lettering {} stream entries that exceeded the maximum delivery attempts: {}", ids.size(), ids);
+
+        // Claiming first makes this replica the only one moving them, and returns their payloads
+        return streamOps.claim(STREAM_KEY, CONSUMER_GROUP, consumerName, minIdle, ids.toArray(RecordId[]::new))
+                .map(record -> QueueMessage.builder()
+                        .id(record.getId().getValue())
+                        .payload(record.getValue().get(PAYLOAD_FIELD))
+                        .build())
+                .collectList()
+                .flatMap(this::deadLetter)
+                .thenReturn(0L);
+    }
+
+    private Mono<Void> ensureGroup() {
+        if (groupCreated) {
+            return Mono.empty();
+        }
+
+        return streamOps.createGroup(STREAM_KEY, ReadOffset.from("0"), CONSUMER_GROUP)
+                .then()
+                .onErrorResume(error -> {
+                    String message = NestedExceptionUtils.getMostSpecificCause(error).getMessage();
+                    return message != null && message.contains("BUSYGROUP") ? Mono.empty() : Mono.error(error);
+                })
+                .doOnSuccess(unused -> groupCreated = true);
+    }
+}
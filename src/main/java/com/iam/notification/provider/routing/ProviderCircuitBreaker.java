@@ -0,0 +1,118 @@
+package com.iam.notification.provider.routing;
+
+import com.iam.notification.config.NotificationConfig;
+import lombok.extern.slf4j.Slf4j;
+
+// Count-based rolling window of call outcomes for one provider. Opens when the failure or
+// slow-call rate crosses its threshold, then lets a few trial calls through after a cool-down.
+@Slf4j
+public class ProviderCircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String providerName;
+    private final NotificationConfig.CircuitBreaker config;
+    private final boolean[] failures;
+    private final boolean[] slowCalls;
+
+    private State state = State.CLOSED;
+    private int recorded;
+    private int position;
+    private int failureCount;
+    private int slowCount;
+    private long openUntil;
+    private int trialCalls;
+    private int trialSuccesses;
+
+    public ProviderCircuitBreaker(String providerName, NotificationConfig.CircuitBreaker config) {
+        this.providerName = providerName;
+        this.config = config;
+        this.failures = new boolean[config.getWindowSize()];
+        this.slowCalls = new boolean[config.getWindowSize()];
+    }
+
+    public synchronized boolean tryAcquire() {
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> {
+                if (System.currentTimeMillis() < openUntil) {
+                    yield false;
+                }
+                transition(State.HALF_OPEN);
+                yield tryTrialCall();
+            }
+            case HALF_OPEN -> tryTrialCall();
+        };
+    }
+
+    public synchronized void record(boolean success, long elapsedMillis) {
+        boolean slow = elapsedMillis >= config.getSlowCallThresholdMs();
+
+        if (state == State.HALF_OPEN) {
+            if (!success || slow) {
+                open();
+            } else if (++trialSuccesses >= config.getHalfOpenCalls()) {
+                transition(State.CLOSED);
+            }
+            return;
+        }
+
+        if (recorded == failures.length) {
+            failureCount -= failures[position] ? 1 : 0;
+            slowCount -= slowCalls[position] ? 1 : 0;
+        } else {
+            recorded++;
+        }
+        failures[position] = !success;
+        slowCalls[position] = slow;
+        failureCount += success ? 0 : 1;
+        slowCount += slow ? 1 : 0;
+        position = (position + 1) % failures.length;
+
+        if (state == State.CLOSED && recorded >= config.getMinimumCalls()
+                && (failureCount * 100 >= config.getFailureRateThreshold() * recorded
+                || slowCount * 100 >= config.getSlowCallRateThreshold() * recorded)) {
+            open();
+        }
+    }
+
+    // Gives back a trial slot when the call was cancelled before an outcome was recorded
+    public synchronized void release() {
+        if (state == State.HALF_OPEN && trialCalls > trialSuccesses) {
+            trialCalls--;
+        }
+    }
+
+    public synchronized boolean isHealthy() {
+        return state == State.CLOSED || System.currentTimeMillis() >= openUntil;
+    }
+
+    private boolean tryTrialCall() {
+        if (trialCalls >= config.getHalfOpenCalls()) {
+            return false;
+        }
+        trialCalls++;
+        return true;
+    }
+
+    private void open() {
+        openUntil = System.currentTimeMillis() + config.getOpenDurationSeconds() * 1000L;
+        transition(State.OPEN);
+    }
+
+    private void transition(State next) {
+        if (state != next) {
+            log.warn("Circuit for provider {} changed from {} to {}", providerName, state, next);
+        }
+
+        state = next;
+        trialCalls = 0;
+        trialSuccesses = 0;
+        if (next == State.CLOSED) {
+            recorded = 0;
+            position = 0;
+            failureCount = 0;
+            slowCount = 0;
+        }
+    }
+}
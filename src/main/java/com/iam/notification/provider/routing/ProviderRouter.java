@@ -0,0 +1,219 @@
+package com.iam.notification.provider.routing;
+
+import com.iam.notification.config.NotificationConfig;
+import com.iam.notification.dto.NotificationResponse;
+import com.iam.notification.dto.NotificationResponse.Failure;
+import com.iam.notification.provider.ProviderFailures;
+import com.iam.notification.provider.ProviderRateLimiter;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.function.Tuples;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+// Orders the live backends by the configured provider and failover list, and sends each call
+// to the first one whose circuit admits it. A send moves down the list only when it failed in a
+// way that cannot have delivered it (throttling, server errors, no connection); rejected
+// recipients and timeouts are returned as they are.
+@Slf4j
+class ProviderRouter<P> {
+
+    private record Route<P>(P provider, String name, ProviderCircuitBreaker breaker) {}
+
+    private final List<Route<P>> routes = new ArrayList<>();
+
+    ProviderRouter(List<P> candidates, Function<P, String> nameOf, String primary, List<String> failover,
+                   NotificationConfig.CircuitBreaker config) {
+        List<String> order = new ArrayList<>();
+        order.add(primary);
+        order.addAll(failover);
+
+        for (String id : order) {
+            // aws-ses -> AWS_SES; mock also matches MOCK_SMS
+            String normalized = id.trim().toUpperCase(Locale.ROOT).replace('-', '_');
+            candidates.stream()
+                    .filter(candidate -> {
+                        String name = nameOf.apply(candidate);
+                        return name.equals(normalized) || name.startsWith(normalized + "_");
+                    })
+                    .filter(candidate -> routes.stream().noneMatch(route -> route.provider() == candidate))
+                    .findFirst()
+                    .ifPresentOrElse(
+                            candidate -> routes.add(new Route<>(candidate, nameOf.apply(candidate),
+                                    new ProviderCircuitBreaker(nameOf.apply(candidate), config))),
+                            () -> log.warn("Configured provider {} has no active backend", id));
+        }
+
+        if (routes.isEmpty()) {
+            throw new IllegalStateException("No provider backend matches " + order);
+        }
+
+        log.info("Provider routing order: {}", routes.stream().map(Route::name).toList());
+    }
+
+    // The backend is picked when the send is subscribed, so a deferred send sees current circuit states
+    Mono<NotificationResponse> send(Function<P, Mono<NotificationResponse>> call) {
+        return Mono.defer(() -> attempt(0, call, null));
+    }
+
+    // Requests are sent in chunks sized for the primary backend. Each chunk goes to the first backend
+    // whose circuit admits it, as one call, and every request keeps its own response; only requests
+    // that failed in a way that cannot have delivered them move down the list, one by one, so
+    // requests that were sent are never sent again
+    <R> Flux<NotificationResponse> sendBatch(List<R> requests, ToIntFunction<P> maxBatchSize,
+                                             BiFunction<P, List<R>, Flux<NotificationResponse>> batchCall,
+                                             BiFunction<P, R, Mono<NotificationResponse>> call, int concurrency) {
+        int chunkSize = Math.max(1, maxBatchSize.applyAsInt(routes.get(0).provider()));
+        if (chunkSize == 1) {
+            return Flux.fromIterable(requests)
+                    .flatMapSequential(request -> send(provider -> call.apply(provider, request)), concurrency);
+        }
+
+        return Flux.range(0, (requests.size() + chunkSize - 1) / chunkSize)
+                .map(chunk -> requests.subList(chunk * chunkSize, Math.min(requests.size(), (chunk + 1) * chunkSize)))
+                .flatMapSequential(chunk -> sendChunk(chunk, batchCall, call, concurrency), concurrency);
+    }
+
+    private <R> Flux<NotificationResponse> sendChunk(List<R> chunk, BiFunction<P, List<R>, Flux<NotificationResponse>> batchCall,
+                                                     BiFunction<P, R, Mono<NotificationResponse>> call, int concurrency) {
+        return Mono.defer(() -> {
+                    for (int index = 0; index < routes.size(); index++) {
+                        Route<P> route = routes.get(index);
+                        if (route.breaker().tryAcquire()) {
+                            int routeIndex = index;
+                            return callBatch(route, chunk, batchCall).map(responses -> Tuples.of(routeIndex, responses));
+                        }
+                    }
+                    return Mono.just(Tuples.of(routes.size(), chunk.stream().map(request -> unavailable()).toList()));
+                })
+                .flatMapMany(routed -> {
+                    int index = routed.getT1();
+                    List<NotificationResponse> responses = routed.getT2();
+                    return Flux.range(0, chunk.size())
+                            .flatMapSequential(i -> {
+                                NotificationResponse response = responses.get(i);
+                                if (!shouldFailOver(response) || index + 1 >= routes.size()) {
+                                    return Mono.just(response);
+                                }
+
+                                log.warn("Provider {} failed ({}), failing over", routes.get(index).name(), response.getErrorMessage());
+                                R request = chunk.get(i);
+                                return attempt(index + 1, provider -> call.apply(provider, request), response);
+                            }, concurrency);
+                });
+    }
+
+    // One outcome per chunk on the route's circuit, healthy only when every request was handled
+    // as intended; a request without a response gets the error that ended the call
+    private <R> Mono<List<NotificationResponse>> callBatch(Route<P> route, List<R> chunk,
+                                                           BiFunction<P, List<R>, Flux<NotificationResponse>> batchCall) {
+        return Mono.defer(() -> {
+            AtomicLong grantedAt = new AtomicLong(System.nanoTime());
+            List<NotificationResponse> responses = new ArrayList<>(chunk.size());
+            return Flux.defer(() -> batchCall.apply(route.provider(), chunk))
+                    .doOnNext(responses::add)
+                    .then()
+                    .onErrorResume(error -> {
+                        while (responses.size() < chunk.size()) {
+                            responses.add(failure(route, error));
+                        }
+                        return Mono.empty();
+                    })
+                    .then(Mono.fromSupplier(() -> {
+                        while (responses.size() < chunk.size()) {
+                            responses.add(failure(route, new IllegalStateException("No response from provider " + route.name())));
+                        }
+                        route.breaker().record(responses.stream().allMatch(ProviderRouter::isProviderHealthy),
+                                (System.nanoTime() - grantedAt.get()) / 1_000_000);
+                        return responses;
+                    }))
+                    .doOnCancel(route.breaker()::release)
+                    .contextWrite(Context.of(ProviderRateLimiter.GRANTED_AT, grantedAt));
+        });
+    }
+
+    // Read-only calls go to the first backend that is not known to be failing
+    <T> Mono<T> first(Function<P, Mono<T>> call) {
+        return Mono.defer(() -> call.apply(routes.get(firstHealthy()).provider()));
+    }
+
+    private int firstHealthy() {
+        for (int i = 0; i < routes.size(); i++) {
+            if (routes.get(i).breaker().isHealthy()) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private Mono<NotificationResponse> attempt(int index, Function<P, Mono<NotificationResponse>> call,
+                                               NotificationResponse lastFailure) {
+        if (index == routes.size()) {
+            return Mono.just(lastFailure != null ? lastFailure : unavailable());
+        }
+
+        Route<P> route = routes.get(index);
+        if (!route.breaker().tryAcquire()) {
+            return attempt(index + 1, call, lastFailure);
+        }
+
+        return call(route, call)
+                .flatMap(response -> {
+                    if (!shouldFailOver(response) || index + 1 == routes.size()) {
+                        return Mono.just(response);
+                    }
+
+                    log.warn("Provider {} failed ({}), failing over", route.name(), response.getErrorMessage());
+                    return attempt(index + 1, call, response);
+                });
+    }
+
+    // Records the outcome on the route's circuit; the slow-call clock starts once the provider's
+    // rate limiter lets the call through, so waiting for our own limits never opens a circuit
+    private Mono<NotificationResponse> call(Route<P> route, Function<P, Mono<NotificationResponse>> call) {
+        return Mono.defer(() -> {
+            AtomicLong grantedAt = new AtomicLong(System.nanoTime());
+            return Mono.defer(() -> call.apply(route.provider()))
+                    .onErrorResume(error -> Mono.just(failure(route, error)))
+                    .doOnNext(response -> route.breaker().record(isProviderHealthy(response),
+                            (System.nanoTime() - grantedAt.get()) / 1_000_000))
+                    .doOnCancel(route.breaker()::release)
+                    .contextWrite(Context.of(ProviderRateLimiter.GRANTED_AT, grantedAt));
+        });
+    }
+
+    private static boolean shouldFailOver(NotificationResponse response) {
+        return !response.isSuccess() && response.getFailure() == Failure.RETRYABLE;
+    }
+
+    // A provider that answered with a rejection, e.g. of a bad recipient, is working as intended
+    private static boolean isProviderHealthy(NotificationResponse response) {
+        return response.isSuccess() || response.getFailure() == Failure.REJECTED;
+    }
+
+    private NotificationResponse unavailable() {
+        return NotificationResponse.builder()
+                .success(false)
+                .provider(routes.get(0).name())
+                .errorMessage("All providers are unavailable")
+                .failure(Failure.RETRYABLE)
+                .build();
+    }
+
+    private NotificationResponse failure(Route<P> route, Throwable error) {
+        return NotificationResponse.builder()
+                .success(false)
+                .provider(route.name())
+                .errorMessage(error.getMessage())
+                .failure(ProviderFailures.classify(error))
+                .build();
+    }
+}
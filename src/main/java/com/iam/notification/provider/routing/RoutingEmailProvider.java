@@ -0,0 +1,50 @@
+package com.iam.notification.provider.routing;
+
+import com.iam.notification.config.NotificationConfig;
+import com.iam.notification.dto.EmailRequest;
+import com.iam.notification.dto.NotificationResponse;
+import com.iam.notification.provider.EmailProvider;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@Service
+@Primary
+public class RoutingEmailProvider implements EmailProvider {
+
+    private final ProviderRouter<EmailProvider> router;
+
+    public RoutingEmailProvider(List<EmailProvider> providers, NotificationConfig notificationConfig) {
+        NotificationConfig.Email email = notificationConfig.getEmail();
+        this.router = new ProviderRouter<>(
+                providers.stream().filter(provider -> provider != this).toList(),
+                EmailProvider::getProviderName,
+                email.getProvider(),
+                email.getFailover(),
+                notificationConfig.getCircuitBreaker());
+    }
+
+    @Override
+    public Mono<NotificationResponse> sendEmail(EmailRequest request) {
+        return router.send(provider -> provider.sendEmail(request));
+    }
+
+    @Override
+    public Flux<NotificationResponse> sendBatch(List<EmailRequest> requests, int concurrency) {
+        return router.sendBatch(requests, EmailProvider::getMaxBatchSize,
+                (provider, chunk) -> provider.sendBatch(chunk, concurrency), EmailProvider::sendEmail, concurrency);
+    }
+
+    @Override
+    public Mono<Boolean> verifyEmailAddress(String email) {
+        return router.first(provider -> provider.verifyEmailAddress(email));
+    }
+
+    @Override
+    public String getProviderName() {
+        return "ROUTING";
+    }
+}
@@ -0,0 +1,43 @@
+package com.iam.notification.provider.routing;
+
+import com.iam.notification.config.NotificationConfig;
+import com.iam.notification.dto.SmsRequest;
+import com.iam.notification.dto.NotificationResponse;
+import com.iam.notification.provider.SmsProvider;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@Service
+@Primary
+public class RoutingSmsProvider implements SmsProvider {
+
+    private final ProviderRouter<SmsProvider> router;
+
+    public RoutingSmsProvider(List<SmsProvider> providers, NotificationConfig notificationConfig) {
+        NotificationConfig.Sms sms = notificationConfig.getSms();
+        this.router = new ProviderRouter<>(
+                providers.stream().filter(provider -> provider != this).toList(),
+                SmsProvider::getProviderName,
+                sms.getProvider(),
+                sms.getFailover(),
+                notificationConfig.getCircuitBreaker());
+    }
+
+    @Override
+    public Mono<NotificationResponse> sendSms(SmsRequest request) {
+        return router.send(provider -> provider.sendSms(request));
+    }
+
+    @Override
+    public Mono<Boolean> validatePhoneNumber(String phoneNumber) {
+        return router.first(provider -> provider.validatePhoneNumber(phoneNumber));
+    }
+
+    @Override
+    public String getProviderName() {
+        return "ROUTING";
+    }
+}
@@ -1,72 +1,83 @@
 package com.iam.notification.provider.sendgrid;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.iam.notification.provider.EmailProvider;
+import com.iam.notification.provider.ProviderFailures;
+import com.iam.notification.provider.ProviderRateLimiterRegistry;
 import com.iam.notification.dto.EmailRequest;
 import com.iam.notification.dto.NotificationResponse;
-import com.sendgrid.Method;
-import com.sendgrid.Request;
-import com.sendgrid.Response;
-import com.sendgrid.SendGrid;
-import com.sendgrid.helpers.mail.Mail;
-import com.sendgrid.helpers.mail.objects.Content;
-import com.sendgrid.helpers.mail.objects.Email;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
 
 @Service
-@ConditionalOnProperty(name = "notification.email.provider", havingValue = "sendgrid")
-@RequiredArgsConstructor
+@ConditionalOnExpression("'${notification.email.provider:smtp},${notification.email.failover:}'.contains('sendgrid')")
 @Slf4j
 public class SendGridEmailProvider implements EmailProvider {
 
-    @Value("${sendgrid.api-key}")
-    private String apiKey;
+    private final ProviderRateLimiterRegistry rateLimiters;
+    private final WebClient webClient;
+
+    public SendGridEmailProvider(ProviderRateLimiterRegistry rateLimiters,
+                                 WebClient providerWebClient,
+                                 @Value("${sendgrid.api-key}") String apiKey,
+                                 @Value("${sendgrid.base-url:https://api.sendgrid.com}") String baseUrl) {
+        this.rateLimiters = rateLimiters;
+        // Shares the pooled connector; only the base URL and credentials differ
+        this.webClient = providerWebClient.mutate()
+                .baseUrl(baseUrl)
+                .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
+                .build();
+    }
 
     @Override
     public Mono<NotificationResponse> sendEmail(EmailRequest request) {
         log.info("Sending email via SendGrid to: {}", request.getTo());
 
-        return Mono.fromCallable(() -> {
-            try {
-                Email from = new Email(request.getFrom());
-                Email to = new Email(request.getTo());
-                Content content = new Content("text/html", request.getBodyHtml());
-
-                Mail mail = new Mail(from, request.getSubject(), to, content);
-
-                SendGrid sg = new SendGrid(apiKey);
-                Request sgRequest = new Request();
-                sgRequest.setMethod(Method.POST);
-                sgRequest.setEndpoint("mail/send");
-                sgRequest.setBody(mail.build());
-
-                Response response = sg.api(sgRequest);
+        return rateLimiters.get(getProviderName()).execute(() -> webClient.post()
+                .uri("/v3/mail/send")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(toMail(request))
+                .exchangeToMono(response -> {
+                    if (response.statusCode().is2xxSuccessful()) {
+                        return response.releaseBody().thenReturn(NotificationResponse.builder()
+                                .success(true)
+                                .provider("SENDGRID")
+                                .providerId(response.headers().asHttpHeaders().getFirst("X-Message-Id"))
+                                .message("Email sent successfully via SendGrid")
+                                .build());
+                    }
 
-                if (response.getStatusCode() >= 200 && response.getStatusCode() < 300) {
-                    return NotificationResponse.builder()
-                            .success(true)
+                    return response.bodyToMono(String.class)
+                            .defaultIfEmpty(response.statusCode().toString())
+                            .map(body -> {
+                                log.error("SendGrid rejected email to {}: {}", request.getTo(), body);
+                                return NotificationResponse.builder()
+                                        .success(false)
+                                        .provider("SENDGRID")
+                                        .errorMessage("SendGrid API error: " + body)
+                                        .failure(ProviderFailures.forStatus(response.statusCode().value()))
+                                        .build();
+                            });
+                })
+                .onErrorResume(e -> {
+                    log.error("Failed to send email via SendGrid: {}", e.getMessage());
+                    return Mono.just(NotificationResponse.builder()
+                            .success(false)
                             .provider("SENDGRID")
-                            .providerId(response.getHeaders().get("X-Message-Id"))
-                            .message("Email sent successfully via SendGrid")
-                            .build();
-                } else {
-                    throw new RuntimeException("SendGrid API error: " + response.getBody());
-                }
-
-            } catch (Exception e) {
-                log.error("Failed to send email via SendGrid: {}", e.getMessage(), e);
-                return NotificationResponse.builder()
-                        .success(false)
-                        .provider("SENDGRID")
-                        .errorMessage(e.getMessage())
-                        .build();
-            }
-        }).subscribeOn(Schedulers.boundedElastic());
+                            .errorMessage(e.getMessage())
+                            .failure(ProviderFailures.classify(e))
+                            .build());
+                }));
     }
 
     @Override
@@ -82,4 +93,33 @@ public class SendGridEmailProvider implements EmailProvider {
     public String getProviderName() {
         return "SENDGRID";
     }
-}
\ No newline at end of file
+
+    private Mail toMail(EmailRequest request) {
+        // text/plain must precede text/html in the v3 API
+        List<Content> content = new ArrayList<>(2);
+        if (request.getBodyText() != null) {
+            content.add(new Content("text/plain", request.getBodyText()));
+        }
+        if (request.getBodyHtml() != null) {
+            content.add(new Content("text/html", request.getBodyHtml()));
+        }
+
+        return new Mail(
+                List.of(new Personalization(List.of(new Address(request.getTo())))),
+                new Address(request.getFrom()),
+                request.getReplyTo() != null ? new Address(request.getReplyTo()) : null,
+                request.getSubject(),
+                content);
+    }
+
+    // Request body of POST /v3/mail/send
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private record Mail(List<Personalization> personalizations, Address from,
+                        @JsonProperty("reply_to") Address replyTo, String subject, List<Content> content) {}
+
+    private record Personalization(List<Address> to) {}
+
+    private record Address(String email) {}
+
+    private record Content(String type, String value) {}
+}
@@ -1,35 +1,65 @@
 package com.iam.notification.provider.smtp;
 
 import com.iam.notification.provider.EmailProvider;
+import com.iam.notification.provider.ProviderFailures;
+import com.iam.notification.provider.ProviderRateLimiterRegistry;
 import com.iam.notification.dto.EmailRequest;
 import com.iam.notification.dto.NotificationResponse;
-import lombok.RequiredArgsConstructor;
+import com.iam.notification.config.NotificationConfig;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 
+import jakarta.annotation.PreDestroy;
 import jakarta.mail.internet.MimeMessage;
-import java.util.UUID;
 
 @Service
-@ConditionalOnProperty(name = "notification.email.provider", havingValue = "smtp", matchIfMissing = true)
-@RequiredArgsConstructor
+@ConditionalOnExpression("'${notification.email.provider:smtp},${notification.email.failover:}'.contains('smtp')")
 @Slf4j
 public class SmtpEmailProvider implements EmailProvider {
 
-    private final JavaMailSender mailSender;
+    private final ProviderRateLimiterRegistry rateLimiters;
+    private final SmtpTransportPool transportPool;
+    // SMTP I/O is blocking; one thread per pooled connection keeps every send on a warm connection
+    private final Scheduler sendScheduler;
+
+    public SmtpEmailProvider(JavaMailSenderImpl mailSender, ProviderRateLimiterRegistry rateLimiters,
+                             NotificationConfig notificationConfig) {
+        NotificationConfig.Smtp smtp = notificationConfig.getSmtp();
+        this.rateLimiters = rateLimiters;
+        this.transportPool = new SmtpTransportPool(
+                mailSender.getSession(),
+                mailSender.getProtocol(),
+                mailSender.getHost(),
+                mailSender.getPort(),
+                StringUtils.hasLength(mailSender.getUsername()) ? mailSender.getUsername() : null,
+                StringUtils.hasLength(mailSender.getPassword()) ? mailSender.getPassword() : null,
+                smtp.getPoolSize(),
+                smtp.getMaxMessagesPerConnection(),
+                smtp.getMaxIdleSeconds());
+        this.sendScheduler = Schedulers.newBoundedElastic(smtp.getPoolSize(),
+                Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "smtp-send");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sendScheduler.dispose();
+        transportPool.close();
+    }
 
     @Override
     public Mono<NotificationResponse> sendEmail(EmailRequest request) {
         log.info("Sending email via SMTP to: {}", request.getTo());
 
-        return Mono.fromCallable(() -> {
+        return rateLimiters.get(getProviderName()).execute(() -> Mono.fromCallable(() -> {
             try {
-                MimeMessage message = mailSender.createMimeMessage();
+                MimeMessage message = transportPool.createMessage();
                 MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
 
                 helper.setTo(request.getTo());
@@ -42,12 +72,13 @@ public class SmtpEmailProvider implements EmailProvider {
                     helper.setText(request.getBodyText(), false);
                 }
 
-                mailSender.send(message);
+                message.saveChanges(); // assigns the Message-ID
+                transportPool.send(message);
 
                 return NotificationResponse.builder()
                         .success(true)
                         .provider("SMTP")
-                        .providerId(UUID.randomUUID().toString())
+                        .providerId(message.getMessageID())
                         .message("Email sent successfully via SMTP")
                         .build();
 
@@ -57,9 +88,10 @@ public class SmtpEmailProvider implements EmailProvider {
                         .success(false)
                         .provider("SMTP")
                         .errorMessage(e.getMessage())
+                        .failure(ProviderFailures.classify(e))
                         .build();
             }
-        }).subscribeOn(Schedulers.boundedElastic());
+        }).subscribeOn(sendScheduler));
     }
 
     @Override
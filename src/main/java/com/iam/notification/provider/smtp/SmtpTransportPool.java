@@ -0,0 +1,118 @@
+package com.iam.notification.provider.smtp;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Keeps authenticated SMTP connections open between sends so the TCP, STARTTLS and AUTH
+// handshakes are paid once per connection rather than once per message. Callers are expected
+// to cap their concurrency at the pool size; extra borrowers simply open another connection.
+@Slf4j
+class SmtpTransportPool {
+
+    // Connections idle longer than this are probed with NOOP before reuse
+    private static final long VALIDATE_AFTER_IDLE_MS = 2000;
+
+    private final Session session;
+    private final String protocol;
+    private final String host;
+    private final int port;
+    private final String username;
+    private final String password;
+    private final int maxMessagesPerConnection;
+    private final long maxIdleMillis;
+    private final BlockingQueue<PooledTransport> idle;
+
+    private volatile boolean closed;
+
+    SmtpTransportPool(Session session, String protocol, String host, int port, String username, String password,
+                      int poolSize, int maxMessagesPerConnection, int maxIdleSeconds) {
+        this.session = session;
+        this.protocol = protocol;
+        this.host = host;
+        this.port = port;
+        this.username = username;
+        this.password = password;
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.maxIdleMillis = maxIdleSeconds * 1000L;
+        this.idle = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    MimeMessage createMessage() {
+        return new MimeMessage(session);
+    }
+
+    void send(MimeMessage message) throws MessagingException {
+        PooledTransport pooled = borrow();
+        boolean reusable = false;
+
+        try {
+            pooled.transport.sendMessage(message, message.getAllRecipients());
+            pooled.messagesSent++;
+            reusable = true;
+        } catch (SendFailedException e) {
+            // Rejected recipients leave the connection usable; a failed MAIL FROM or DATA, such as
+            // 421 service closing, may mean the server is about to drop it
+            reusable = !(e instanceof SMTPSendFailedException);
+            throw e;
+        } finally {
+            release(pooled, reusable);
+        }
+    }
+
+    void close() {
+        closed = true;
+        PooledTransport pooled;
+        while ((pooled = idle.poll()) != null) {
+            closeQuietly(pooled);
+        }
+    }
+
+    private PooledTransport borrow() throws MessagingException {
+        PooledTransport pooled;
+        while ((pooled = idle.poll()) != null) {
+            long idleMillis = System.currentTimeMillis() - pooled.lastUsed;
+            if (idleMillis < maxIdleMillis && (idleMillis < VALIDATE_AFTER_IDLE_MS || pooled.transport.isConnected())) {
+                return pooled;
+            }
+            closeQuietly(pooled);
+        }
+
+        Transport transport = session.getTransport(protocol);
+        transport.connect(host, port, username, password);
+        log.debug("Opened SMTP connection to {}:{}", host, port);
+        return new PooledTransport(transport);
+    }
+
+    private void release(PooledTransport pooled, boolean reusable) {
+        pooled.lastUsed = System.currentTimeMillis();
+        if (!reusable || closed || pooled.messagesSent >= maxMessagesPerConnection || !idle.offer(pooled)) {
+            closeQuietly(pooled);
+        }
+    }
+
+    private void closeQuietly(PooledTransport pooled) {
+        try {
+            pooled.transport.close();
+        } catch (MessagingException e) {
+            log.debug("Error closing SMTP connection: {}", e.getMessage());
+        }
+    }
+
+    private static final class PooledTransport {
+        private final Transport transport;
+        private int messagesSent;
+        private long lastUsed = System.currentTimeMillis();
+
+        private PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+    }
+}
@@ -1,39 +1,46 @@
 package com.iam.notification.provider.twilio;
 
+import com.iam.notification.provider.ProviderFailures;
+import com.iam.notification.provider.ProviderRateLimiterRegistry;
 import com.iam.notification.provider.SmsProvider;
 import com.iam.notification.dto.SmsRequest;
 import com.iam.notification.dto.NotificationResponse;
-import com.twilio.Twilio;
-import com.twilio.rest.api.v2010.account.Message;
-import com.twilio.type.PhoneNumber;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
-import jakarta.annotation.PostConstruct;
+import java.util.regex.Pattern;
 
 @Service
-@ConditionalOnProperty(name = "notification.sms.provider", havingValue = "twilio")
-@RequiredArgsConstructor
+@ConditionalOnExpression("'${notification.sms.provider:mock},${notification.sms.failover:}'.contains('twilio')")
 @Slf4j
 public class TwilioSmsProvider implements SmsProvider {
 
-    @Value("${twilio.account-sid}")
-    private String accountSid;
+    private static final Pattern E164 = Pattern.compile("^\\+[1-9]\\d{1,14}$");
 
-    @Value("${twilio.auth-token}")
-    private String authToken;
+    private final ProviderRateLimiterRegistry rateLimiters;
+    private final WebClient webClient;
+    private final String messagesPath;
+    private final String fromNumber;
 
-    @Value("${twilio.from-number}")
-    private String fromNumber;
-
-    @PostConstruct
-    public void init() {
-        Twilio.init(accountSid, authToken);
+    public TwilioSmsProvider(ProviderRateLimiterRegistry rateLimiters,
+                             WebClient providerWebClient,
+                             @Value("${twilio.account-sid}") String accountSid,
+                             @Value("${twilio.auth-token}") String authToken,
+                             @Value("${twilio.from-number}") String fromNumber,
+                             @Value("${twilio.base-url:https://api.twilio.com}") String baseUrl) {
+        this.rateLimiters = rateLimiters;
+        this.fromNumber = fromNumber;
+        this.messagesPath = "/2010-04-01/Accounts/" + accountSid + "/Messages.json";
+        // Shares the pooled connector; only the base URL and credentials differ
+        this.webClient = providerWebClient.mutate()
+                .baseUrl(baseUrl)
+                .defaultHeaders(headers -> headers.setBasicAuth(accountSid, authToken))
+                .build();
         log.info("Twilio SMS provider initialized");
     }
 
@@ -41,47 +48,60 @@ public class TwilioSmsProvider implements SmsProvider {
     public Mono<NotificationResponse> sendSms(SmsRequest request) {
         log.info("Sending SMS via Twilio to: {}", request.getPhoneNumber());
 
-        return Mono.fromCallable(() -> {
-            try {
-                Message message = Message.creator(
-                        new PhoneNumber(request.getPhoneNumber()),
-                        new PhoneNumber(fromNumber),
-                        request.getMessage()
-                ).create();
-
-                return NotificationResponse.builder()
-                        .success(true)
-                        .provider("TWILIO")
-                        .providerId(message.getSid())
-                        .message("SMS sent successfully via Twilio")
-                        .build();
+        return rateLimiters.get(getProviderName()).execute(() -> webClient.post()
+                .uri(messagesPath)
+                .body(BodyInserters.fromFormData("To", request.getPhoneNumber())
+                        .with("From", fromNumber)
+                        .with("Body", request.getMessage()))
+                .exchangeToMono(response -> {
+                    if (response.statusCode().is2xxSuccessful()) {
+                        return response.bodyToMono(TwilioMessage.class)
+                                .map(message -> NotificationResponse.builder()
+                                        .success(true)
+                                        .provider("TWILIO")
+                                        .providerId(message.sid())
+                                        .message("SMS sent successfully via Twilio")
+                                        .build());
+                    }
 
-            } catch (Exception e) {
-                log.error("Failed to send SMS via Twilio: {}", e.getMessage(), e);
-                return NotificationResponse.builder()
-                        .success(false)
-                        .provider("TWILIO")
-                        .errorMessage(e.getMessage())
-                        .build();
-            }
-        }).subscribeOn(Schedulers.boundedElastic());
+                    return response.bodyToMono(TwilioError.class)
+                            .map(error -> error.code() + ": " + error.message())
+                            .onErrorResume(unreadable -> Mono.empty())
+                            .defaultIfEmpty(response.statusCode().toString())
+                            .map(detail -> {
+                                log.error("Twilio rejected SMS to {}: {}", request.getPhoneNumber(), detail);
+                                return NotificationResponse.builder()
+                                        .success(false)
+                                        .provider("TWILIO")
+                                        .errorMessage("Twilio API error " + detail)
+                                        .failure(ProviderFailures.forStatus(response.statusCode().value()))
+                                        .build();
+                            });
+                })
+                .onErrorResume(e -> {
+                    log.error("Failed to send SMS via Twilio: {}", e.getMessage());
+                    return Mono.just(NotificationResponse.builder()
+                            .success(false)
+                            .provider("TWILIO")
+                            .errorMessage(e.getMessage())
+                            .failure(ProviderFailures.classify(e))
+                            .build());
+                }));
     }
 
     @Override
     public Mono<Boolean> validatePhoneNumber(String phoneNumber) {
-        return Mono.fromCallable(() -> {
-            try {
-                // Use Twilio's phone number validation
-                PhoneNumber phone = new PhoneNumber(phoneNumber);
-                return phone.getEndpoint() != null;
-            } catch (Exception e) {
-                return false;
-            }
-        });
+        // Twilio only accepts E.164 numbers
+        return Mono.just(phoneNumber != null && E164.matcher(phoneNumber).matches());
     }
 
     @Override
     public String getProviderName() {
         return "TWILIO";
     }
-}
\ No newline at end of file
+
+    // Fields of the Messages resource we use; the rest of the payload is ignored
+    private record TwilioMessage(String sid) {}
+
+    private record TwilioError(Integer code, String message) {}
+}
@@ -20,7 +20,7 @@ public interface NotificationLogRepository extends ReactiveCrudRepository<Notifi
     Flux<NotificationLog> findByProvider(String provider);
     Flux<NotificationLog> findByTemplateName(String templateName);
 
-    // Date range queries
+    // Date range queries; created_at bounds let Postgres prune partitions
     Flux<NotificationLog> findByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
     Flux<NotificationLog> findBySentAtBetween(LocalDateTime start, LocalDateTime end);
 
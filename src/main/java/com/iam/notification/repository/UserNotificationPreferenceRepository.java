@@ -31,6 +31,9 @@ public interface UserNotificationPreferenceRepository extends ReactiveCrudReposi
     Mono<Boolean> isInAppEnabledForUser(UUID userId, String category);
 
     // Bulk operations
+    @Query("SELECT * FROM user_notification_preferences WHERE user_id = ANY(:userIds)")
+    Flux<UserNotificationPreference> findAllByUserIds(UUID[] userIds);
+
     @Query("SELECT user_id FROM user_notification_preferences WHERE email_enabled = true AND notification_category = :category")
     Flux<UUID> findUsersWithEmailEnabled(String category);
 
@@ -0,0 +1,233 @@
+package com.iam.notification.service;
+
+import com.iam.notification.config.NotificationConfig;
+import com.iam.notification.dto.*;
+import com.iam.notification.model.NotificationLog;
+import com.iam.notification.model.UserNotificationPreference;
+import com.iam.notification.provider.EmailProvider;
+import com.iam.notification.provider.SmsProvider;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BulkNotificationProcessor {
+
+    private final EmailProvider emailProvider;
+    private final SmsProvider smsProvider;
+    private final TemplateService templateService;
+    private final CohortTemplateCache cohortTemplates;
+    private final NotificationPreferenceService preferenceService;
+    private final NotificationLogWriter logWriter;
+    private final NotificationRetryScheduler retryScheduler;
+    private final NotificationConfig notificationConfig;
+
+    // Variables that differ per recipient within a bulk job
+    private static final String RECIPIENT_VARIABLE = "recipient";
+    private static final Set<String> RECIPIENT_VARIABLES = Set.of(RECIPIENT_VARIABLE);
+
+    // Completes with the recipients that were sent to, logged for retry or skipped on purpose.
+    // Errors propagate so the queue leaves the batch pending instead of acknowledging it
+    public Mono<Set<String>> deliver(BulkJob job, List<QueueItem> items) {
+        log.debug("Delivering {} to {} recipients", job.getTemplateName(), items.size());
+
+        // Opted-out users are dropped before anything is rendered or sent
+        return resolvePreferences(job, items)
+                .flatMap(preferences -> {
+                    List<String> emailRecipients = new ArrayList<>();
+                    List<String> smsRecipients = new ArrayList<>();
+                    Set<String> handled = new HashSet<>();
+
+                    for (QueueItem item : items) {
+                        String recipient = item.getRecipient();
+                        handled.add(recipient);
+                        switch (job.getNotificationType()) {
+                            case "EMAIL" -> emailRecipients.add(recipient);
+                            case "SMS" -> smsRecipients.add(recipient);
+                            case "BOTH" -> (recipient.contains("@") ? emailRecipients : smsRecipients).add(recipient);
+                            default -> log.warn("Unsupported bulk notification type: {}", job.getNotificationType());
+                        }
+                    }
+
+                    List<String> emails = filterOptedOut(emailRecipients, items, preferences, true);
+                    List<String> sms = filterOptedOut(smsRecipients, items, preferences, false);
+
+                    // Skipped recipients count as handled; the rest only once their send was logged
+                    handled.removeAll(emails);
+                    handled.removeAll(sms);
+                    return Flux.merge(deliverEmails(job, emails), deliverSms(job, sms))
+                            .collect(() -> handled, Set::add);
+                });
+    }
+
+    private Mono<Map<UUID, UserNotificationPreference>> resolvePreferences(BulkJob job, List<QueueItem> items) {
+        Set<UUID> userIds = items.stream()
+                .map(QueueItem::getUserId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        String category = job.getNotificationCategory() != null ? job.getNotificationCategory() : "ACCOUNT";
+        return preferenceService.getPreferences(userIds, category);
+    }
+
+    // Users with no preference row get the same defaults as a single send; recipients without a
+    // user id are always sent to
+    private List<String> filterOptedOut(List<String> recipients, List<QueueItem> items,
+                                        Map<UUID, UserNotificationPreference> preferences, boolean email) {
+        if (recipients.isEmpty()) {
+            return recipients;
+        }
+
+        Set<String> optedOut = new HashSet<>();
+        for (QueueItem item : items) {
+            if (item.getUserId() == null) {
+                continue;
+            }
+
+            UserNotificationPreference preference = preferences.get(item.getUserId());
+            boolean enabled = preference == null
+                    ? (email ? NotificationPreferenceService.DEFAULT_EMAIL_ENABLED : NotificationPreferenceService.DEFAULT_SMS_ENABLED)
+                    : Boolean.TRUE.equals(email ? preference.getEmailEnabled() : preference.getSmsEnabled());
+            if (!enabled) {
+                optedOut.add(item.getRecipient());
+            }
+        }
+
+        if (!optedOut.isEmpty()) {
+            log.debug("Skipping {} opted-out recipients", optedOut.size());
+        }
+        return optedOut.isEmpty() ? recipients : recipients.stream().filter(recipient -> !optedOut.contains(recipient)).toList();
+    }
+
+    private Flux<String> deliverEmails(BulkJob job, List<String> recipients) {
+        if (recipients.isEmpty()) {
+            return Flux.empty();
+        }
+
+        // Render once for the whole job, then splice in each recipient's values
+        return cohortTemplates.get(job.getJobId(), "EMAIL", () ->
+                        templateService.processEmailCohort(job.getTemplateName(), job.getVariables(), job.getLanguage(), RECIPIENT_VARIABLES))
+                .map(cohort -> sendEmails(job, recipients, cohort))
+                // A missing template will not appear on redelivery, so its recipients are dropped
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    log.warn("Email template {} not found, dropping {} recipients", job.getTemplateName(), recipients.size());
+                    return Flux.fromIterable(recipients);
+                }))
+                .flatMapMany(sent -> sent);
+    }
+
+    private Flux<String> sendEmails(BulkJob job, List<String> recipients, CohortTemplate cohort) {
+        List<ProcessedTemplate> rendered = new ArrayList<>(recipients.size());
+        List<EmailRequest> requests = new ArrayList<>(recipients.size());
+        for (String recipient : recipients) {
+            ProcessedTemplate processed = cohort.render(Map.of(RECIPIENT_VARIABLE, recipient));
+            rendered.add(processed);
+            requests.add(EmailRequest.builder()
+                    .to(recipient)
+                    .from(notificationConfig.getEmail().getFromAddress())
+                    .replyTo(notificationConfig.getEmail().getReplyToAddress())
+                    .subject(processed.getSubject())
+                    .bodyHtml(processed.getBodyHtml())
+                    .bodyText(processed.getBodyText())
+                    .build());
+        }
+
+        // Responses come back in request order
+        return emailProvider.sendBatch(requests, notificationConfig.getQueue().getConcurrency())
+                .index()
+                .flatMap(indexed -> {
+                    int i = indexed.getT1().intValue();
+                    ProcessedTemplate processed = rendered.get(i);
+                    return logDelivery("EMAIL", recipients.get(i), job,
+                            processed.getSubject(), processed.getBodyHtml(), processed.getBodyText(), indexed.getT2())
+                            .onErrorResume(error -> {
+                                log.error("Failed to log bulk email to {}: {}", recipients.get(i), error.getMessage());
+                                return Mono.empty();
+                            });
+                })
+                // Recipients already logged stay handled when the batch send fails part-way
+                .onErrorResume(error -> {
+                    log.error("Bulk email send for {} failed: {}", job.getTemplateName(), error.getMessage());
+                    return Flux.empty();
+                });
+    }
+
+    private Flux<String> deliverSms(BulkJob job, List<String> recipients) {
+        if (recipients.isEmpty()) {
+            return Flux.empty();
+        }
+
+        return cohortTemplates.get(job.getJobId(), "SMS", () ->
+                        templateService.processSmsCohort(job.getTemplateName(), job.getVariables(), job.getLanguage()))
+                .map(cohort -> Flux.fromIterable(recipients)
+                        .flatMap(recipient -> sendSms(job, recipient, cohort.render(Map.of(RECIPIENT_VARIABLE, recipient)).getBodyText()),
+                                notificationConfig.getQueue().getConcurrency()))
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    log.warn("SMS template {} not found, dropping {} recipients", job.getTemplateName(), recipients.size());
+                    return Flux.fromIterable(recipients);
+                }))
+                .flatMapMany(sent -> sent);
+    }
+
+    private Mono<String> sendSms(BulkJob job, String recipient, String message) {
+        return smsProvider.sendSms(SmsRequest.builder()
+                        .phoneNumber(recipient)
+                        .message(message)
+                        .build())
+                .flatMap(response -> logDelivery("SMS", recipient, job, null, message, null, response))
+                .onErrorResume(error -> {
+                    log.error("Bulk SMS send to {} failed: {}", recipient, error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    // Completes with the recipient once the outcome is logged and, on failure, scheduled for retry
+    private Mono<String> logDelivery(String type, String recipient, BulkJob job, String subject, String content,
+                                     String contentText, NotificationResponse response) {
+        NotificationLog notificationLog = NotificationLog.builder()
+                .logId(UUID.randomUUID())
+                .notificationType(type)
+                .recipient(recipient)
+                .templateName(job.getTemplateName())
+                // Content is only kept when it is needed for a retry
+                .subject(response.isSuccess() ? null : subject)
+                .content(response.isSuccess() ? null : content)
+                .contentText(response.isSuccess() ? null : contentText)
+                .status(response.isSuccess() ? "SENT" : "FAILED")
+                .provider(response.getProvider())
+                .providerMessageId(response.getProviderId())
+                .errorMessage(response.getErrorMessage())
+                .sentAt(response.isSuccess() ? LocalDateTime.now() : null)
+                .organizationId(job.getOrganizationId())
+                .retryCount(0)
+                .maxRetries(maxRetries(type))
+                .createdAt(LocalDateTime.now())
+                .build();
+
+        return logWriter.write(notificationLog)
+                .thenReturn(notificationLog)
+                .filter(written -> !response.isSuccess())
+                .flatMap(retryScheduler::schedule)
+                .thenReturn(recipient);
+    }
+
+    private int maxRetries(String type) {
+        return "SMS".equals(type)
+                ? notificationConfig.getSms().getRetryAttempts()
+                : notificationConfig.getEmail().getRetryAttempts();
+    }
+}
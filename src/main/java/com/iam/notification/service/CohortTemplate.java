@@ -0,0 +1,20 @@
+package com.iam.notification.service;
+
+import com.iam.notification.dto.ProcessedTemplate;
+
+import java.util.Map;
+import java.util.function.Function;
+
+// Template rendered once for a bulk job, completed per recipient with recipient-specific values
+public final class CohortTemplate {
+
+    private final Function<Map<String, Object>, ProcessedTemplate> renderer;
+
+    CohortTemplate(Function<Map<String, Object>, ProcessedTemplate> renderer) {
+        this.renderer = renderer;
+    }
+
+    public ProcessedTemplate render(Map<String, Object> recipientValues) {
+        return renderer.apply(recipientValues);
+    }
+}
@@ -0,0 +1,33 @@
+package com.iam.notification.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.iam.notification.config.NotificationConfig;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+// Cohort templates by bulk job, so a job is rendered once however many batches it is popped in.
+// Entries live as long as the job metadata; a missing template or a failed render is not cached.
+@Component
+public class CohortTemplateCache {
+
+    private static final int MAX_JOBS = 1000;
+
+    private final AsyncCache<String, CohortTemplate> cache;
+
+    public CohortTemplateCache(NotificationConfig notificationConfig) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(MAX_JOBS)
+                .expireAfterWrite(Duration.ofHours(notificationConfig.getQueue().getJobTtlHours()))
+                .buildAsync();
+    }
+
+    public Mono<CohortTemplate> get(UUID jobId, String type, Supplier<Mono<CohortTemplate>> loader) {
+        // Shared future: cancelling one batch must not cancel the render another batch waits on
+        return Mono.fromFuture(() -> cache.get(jobId + ":" + type, (key, executor) -> loader.get().toFuture()), true);
+    }
+}
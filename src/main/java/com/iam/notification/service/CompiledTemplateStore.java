@@ -0,0 +1,106 @@
+package com.iam.notification.service;
+
+import com.iam.notification.config.CompiledTemplateResolver;
+import com.iam.notification.model.NotificationTemplate;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.TemplateSpec;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.context.IContext;
+import org.thymeleaf.templatemode.TemplateMode;
+
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CompiledTemplateStore {
+
+    private static final String KEY_PREFIX = "compiled:";
+
+    private final TemplateEngine templateEngine;
+
+    // Latest versioned key per template part, so a newer version evicts the stale parsed model
+    private final Map<String, String> currentKeys = new ConcurrentHashMap<>();
+
+    // Placeholder fast path for text parts; empty when the source needs the full engine
+    private final Map<String, Optional<PlaceholderTemplate>> textTemplates = new ConcurrentHashMap<>();
+
+    public String render(NotificationTemplate template, String part, String source, IContext context) {
+        return render(compiledKey(template, part, source), source, modeFor(template, part), context);
+    }
+
+    public String renderText(NotificationTemplate template, String part, String source, Map<String, Object> variables) {
+        String key = compiledKey(template, part, source);
+        TemplateMode mode = modeFor(template, part);
+        Optional<PlaceholderTemplate> placeholderTemplate = mode == TemplateMode.TEXT
+                ? textTemplates.computeIfAbsent(key, unused -> PlaceholderTemplate.compile(source))
+                : Optional.empty();
+
+        if (placeholderTemplate.isPresent()) {
+            return placeholderTemplate.get().render(variables);
+        }
+
+        Context context = new Context();
+        variables.forEach(context::setVariable);
+        return render(key, source, mode, context);
+    }
+
+    // Drops the parsed parts of every template whose identity starts with the prefix
+    public void invalidate(String identityPrefix) {
+        currentKeys.entrySet().removeIf(entry -> {
+            if (entry.getKey().startsWith(identityPrefix)) {
+                evict(entry.getValue());
+                return true;
+            }
+            return false;
+        });
+    }
+
+    // The engine follows the template type: only the subject and HTML body of an email are markup,
+    // SMS, push and in-app bodies and the email text part are plain text
+    static TemplateMode modeFor(NotificationTemplate template, String part) {
+        return "EMAIL".equals(template.getTemplateType()) && !"text".equals(part) ? TemplateMode.HTML : TemplateMode.TEXT;
+    }
+
+    private String render(String key, String source, TemplateMode mode, IContext context) {
+        TemplateSpec spec = new TemplateSpec(key, null, mode,
+                Map.of(CompiledTemplateResolver.SOURCE_ATTRIBUTE, new CompiledTemplateResolver.Source(key, source)));
+
+        return templateEngine.process(spec, context);
+    }
+
+    private String compiledKey(NotificationTemplate template, String part, String source) {
+        String identity = identity(template, part);
+        String key = KEY_PREFIX + identity + ":" + version(template, source);
+
+        String previous = currentKeys.put(identity, key);
+        if (previous != null && !previous.equals(key)) {
+            log.debug("Template {} changed, evicting compiled version {}", identity, previous);
+            evict(previous);
+        }
+        return key;
+    }
+
+    private void evict(String key) {
+        templateEngine.clearTemplateCacheFor(key);
+        textTemplates.remove(key);
+    }
+
+    private String identity(NotificationTemplate template, String part) {
+        return template.getTemplateName() + ":" + template.getTemplateType() + ":" + template.getLanguage() + ":" + part;
+    }
+
+    private String version(NotificationTemplate template, String source) {
+        if (template.getUpdatedAt() != null) {
+            return Long.toString(template.getUpdatedAt().toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+        // Storage-provider templates carry no timestamp; String caches its hash after the first call
+        return Integer.toHexString(source.hashCode());
+    }
+}
@@ -0,0 +1,162 @@
+package com.iam.notification.service;
+
+import com.iam.notification.config.NotificationConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+// Keeps range partitions of notification_logs ahead of time and retires expired ones.
+// Does nothing until the table has been migrated with db/notification-logs-partitioning.sql.
+@Component
+@Slf4j
+public class NotificationLogPartitionManager {
+
+    private static final String TABLE = "notification_logs";
+    private static final String LEGACY_PARTITION = TABLE + "_legacy";
+    private static final DateTimeFormatter DAILY_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter MONTHLY_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String IS_PARTITIONED_QUERY = "SELECT COUNT(*) FROM pg_partitioned_table pt " +
+            "JOIN pg_class c ON c.oid = pt.partrelid WHERE c.relname = '" + TABLE + "'";
+    // Upper bound of each partition as stored by Postgres; null for the default partition
+    private static final String PARTITIONS_QUERY = "SELECT c.relname, " +
+            "(regexp_match(pg_get_expr(c.relpartbound, c.oid), 'TO \\(''([^'']+)''\\)'))[1]::timestamp AS upper_bound " +
+            "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent " +
+            "WHERE p.relname = '" + TABLE + "'";
+
+    private final DatabaseClient databaseClient;
+    private final NotificationConfig.Logs config;
+    private final boolean monthly;
+
+    public NotificationLogPartitionManager(DatabaseClient databaseClient, NotificationConfig notificationConfig) {
+        this.databaseClient = databaseClient;
+        this.config = notificationConfig.getLogs();
+        this.monthly = "monthly".equalsIgnoreCase(config.getPartitionInterval());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintainPartitions();
+    }
+
+    @Scheduled(cron = "0 5 0 * * *") // Daily, shortly after midnight
+    public void maintainPartitions() {
+        isPartitioned()
+                .filter(partitioned -> {
+                    if (!partitioned) {
+                        log.debug("{} is not partitioned, skipping partition maintenance", TABLE);
+                    }
+                    return partitioned;
+                })
+                .flatMap(partitioned -> partitions())
+                .flatMap(partitions -> createUpcomingPartitions(cutover(partitions)).then(retireExpiredPartitions(partitions)))
+                .subscribe(
+                        unused -> {},
+                        error -> log.error("Error maintaining {} partitions: {}", TABLE, error.getMessage())
+                );
+    }
+
+    private Mono<Boolean> isPartitioned() {
+        return databaseClient.sql(IS_PARTITIONED_QUERY)
+                .map((row, metadata) -> row.get(0, Long.class))
+                .one()
+                .map(count -> count > 0);
+    }
+
+    private Mono<List<Partition>> partitions() {
+        return databaseClient.sql(PARTITIONS_QUERY)
+                .map((row, metadata) -> new Partition(row.get("relname", String.class), row.get("upper_bound", LocalDateTime.class)))
+                .all()
+                .collectList();
+    }
+
+    // Where the migrated legacy partition ends; null once it has been retired
+    private LocalDateTime cutover(List<Partition> partitions) {
+        return partitions.stream()
+                .filter(partition -> LEGACY_PARTITION.equals(partition.name()))
+                .map(Partition::upperBound)
+                .findFirst()
+                .orElse(null);
+    }
+
+    private Mono<Void> createUpcomingPartitions(LocalDateTime cutover) {
+        LocalDate current = periodStart(LocalDate.now());
+
+        return Flux.range(0, config.getPartitionsAhead() + 1)
+                .map(offset -> monthly ? current.plusMonths(offset) : current.plusDays(offset))
+                .concatMap(from -> createPartition(from, cutover))
+                .then();
+    }
+
+    private Mono<Void> createPartition(LocalDate from, LocalDateTime cutover) {
+        LocalDateTime lower = from.atStartOfDay();
+        LocalDateTime upper = nextPeriod(from).atStartOfDay();
+        if (cutover != null && !upper.isAfter(cutover)) {
+            return Mono.empty(); // entirely covered by the legacy partition
+        }
+        if (cutover != null && cutover.isAfter(lower)) {
+            lower = cutover; // the period the cutover falls in starts where the legacy partition ends
+        }
+
+        // Names and bounds come from dates, never from input, so inlining them is safe
+        String sql = "CREATE TABLE IF NOT EXISTS " + partitionName(from) + " PARTITION OF " + TABLE +
+                " FOR VALUES FROM ('" + lower + "') TO ('" + upper + "')";
+
+        return execute(sql, "create partition " + partitionName(from));
+    }
+
+    private Mono<Void> retireExpiredPartitions(List<Partition> partitions) {
+        LocalDateTime cutoff = LocalDate.now().minusDays(config.getRetentionDays()).atStartOfDay();
+
+        // Only partitions entirely older than the retention window, judged by their stored bounds so
+        // the legacy partition and partitions of a previously configured interval are retired too
+        return Flux.fromIterable(partitions)
+                .filter(partition -> partition.upperBound() != null && !partition.upperBound().isAfter(cutoff))
+                .map(Partition::name)
+                .concatMap(this::retirePartition)
+                .then();
+    }
+
+    private Mono<Void> retirePartition(String name) {
+        log.info("Retiring expired partition {} ({})", name, config.getRetentionAction());
+
+        Mono<Void> detach = execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + name, "detach partition " + name);
+        return "detach".equalsIgnoreCase(config.getRetentionAction())
+                ? detach
+                : detach.then(execute("DROP TABLE IF EXISTS " + name, "drop partition " + name));
+    }
+
+    private Mono<Void> execute(String sql, String description) {
+        // Replicas run this concurrently; losing a race is harmless and picked up next run
+        return databaseClient.sql(sql)
+                .then()
+                .onErrorResume(error -> {
+                    log.warn("Failed to {}: {}", description, error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private String partitionName(LocalDate from) {
+        return TABLE + "_p" + from.format(monthly ? MONTHLY_SUFFIX : DAILY_SUFFIX);
+    }
+
+    private LocalDate periodStart(LocalDate date) {
+        return monthly ? date.withDayOfMonth(1) : date;
+    }
+
+    private LocalDate nextPeriod(LocalDate from) {
+        return monthly ? from.plusMonths(1) : from.plusDays(1);
+    }
+
+    private record Partition(String name, LocalDateTime upperBound) {}
+}
@@ -0,0 +1,70 @@
+package com.iam.notification.service;
+
+import com.iam.notification.config.NotificationConfig;
+import com.iam.notification.model.NotificationLog;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationLogQueryService {
+
+    private static final Sort KEYSET_ORDER = Sort.by("createdAt", "logId");
+
+    private final R2dbcEntityTemplate entityTemplate;
+    private final NotificationConfig notificationConfig;
+
+    // Streams matching logs in (created_at, log_id) order, one keyset page at a time, so memory
+    // stays flat regardless of how many rows match
+    public Flux<NotificationLog> streamLogs(LocalDateTime start, LocalDateTime end, Integer organizationId,
+                                            UUID userId, String status, String notificationType) {
+        Criteria filter = Criteria.where("createdAt").greaterThanOrEquals(start).and("createdAt").lessThan(end);
+        if (organizationId != null) {
+            filter = filter.and("organizationId").is(organizationId);
+        }
+        if (userId != null) {
+            filter = filter.and("userId").is(userId);
+        }
+        if (status != null) {
+            filter = filter.and("status").is(status);
+        }
+        if (notificationType != null) {
+            filter = filter.and("notificationType").is(notificationType);
+        }
+
+        Criteria baseFilter = filter;
+        int pageSize = notificationConfig.getLogs().getExportPageSize();
+
+        return fetchPage(baseFilter, null, pageSize)
+                .expand(page -> page.size() < pageSize
+                        ? Mono.empty()
+                        : fetchPage(baseFilter, page.get(page.size() - 1), pageSize))
+                // Only the page being written out is held in memory
+                .concatMapIterable(page -> page, 1);
+    }
+
+    private Mono<List<NotificationLog>> fetchPage(Criteria filter, NotificationLog after, int pageSize) {
+        Criteria criteria = filter;
+        if (after != null) {
+            criteria = criteria.and(Criteria.where("createdAt").greaterThan(after.getCreatedAt())
+                    .or(Criteria.where("createdAt").is(after.getCreatedAt()).and("logId").greaterThan(after.getLogId())));
+        }
+
+        return entityTemplate.select(NotificationLog.class)
+                .matching(Query.query(criteria).sort(KEYSET_ORDER).limit(pageSize))
+                .all()
+                .collectList();
+    }
+}
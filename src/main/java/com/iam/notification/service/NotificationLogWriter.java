@@ -0,0 +1,198 @@
+package com.iam.notification.service;
+
+import com.iam.notification.config.NotificationConfig;
+import com.iam.notification.model.NotificationLog;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Write-behind sink for new notification log rows. Rows are buffered in memory and
+// written with multi-row INSERTs, keeping the database off the send path.
+@Service
+@Slf4j
+public class NotificationLogWriter implements SmartLifecycle {
+
+    private static final List<LogColumn> COLUMNS = List.of(
+            new LogColumn("log_id", UUID.class, NotificationLog::getLogId),
+            new LogColumn("notification_type", String.class, NotificationLog::getNotificationType),
+            new LogColumn("recipient", String.class, NotificationLog::getRecipient),
+            new LogColumn("template_name", String.class, NotificationLog::getTemplateName),
+            new LogColumn("subject", String.class, NotificationLog::getSubject),
+            new LogColumn("content", String.class, NotificationLog::getContent),
+            new LogColumn("content_text", String.class, NotificationLog::getContentText),
+            new LogColumn("status", String.class, NotificationLog::getStatus),
+            new LogColumn("provider", String.class, NotificationLog::getProvider),
+            new LogColumn("provider_message_id", String.class, NotificationLog::getProviderMessageId),
+            new LogColumn("error_message", String.class, NotificationLog::getErrorMessage),
+            new LogColumn("sent_at", LocalDateTime.class, NotificationLog::getSentAt),
+            new LogColumn("delivered_at", LocalDateTime.class, NotificationLog::getDeliveredAt),
+            new LogColumn("retry_count", Integer.class, NotificationLog::getRetryCount),
+            new LogColumn("max_retries", Integer.class, NotificationLog::getMaxRetries),
+            new LogColumn("user_id", UUID.class, NotificationLog::getUserId),
+            new LogColumn("organization_id", Integer.class, NotificationLog::getOrganizationId),
+            new LogColumn("created_at", LocalDateTime.class, NotificationLog::getCreatedAt));
+
+    // Postgres accepts at most 65535 bind parameters per statement
+    private static final int MAX_BIND_PARAMETERS = 65535;
+    static final int MAX_BATCH_SIZE = MAX_BIND_PARAMETERS / COLUMNS.size();
+
+    private static final String INSERT_PREFIX = "INSERT INTO notification_logs (" +
+            COLUMNS.stream().map(LogColumn::name).collect(Collectors.joining(", ")) + ") VALUES ";
+
+    private final DatabaseClient databaseClient;
+    private final NotificationStatsRollups statsRollups;
+    private final int batchSize;
+    private final BlockingQueue<NotificationLog> buffer;
+    private final AtomicBoolean flushing = new AtomicBoolean();
+
+    private volatile boolean running;
+
+    public NotificationLogWriter(DatabaseClient databaseClient, NotificationStatsRollups statsRollups,
+                                 NotificationConfig notificationConfig) {
+        this.databaseClient = databaseClient;
+        this.statsRollups = statsRollups;
+        int configuredBatchSize = notificationConfig.getLogs().getBatchSize();
+        this.batchSize = Math.max(1, Math.min(configuredBatchSize, MAX_BATCH_SIZE));
+        if (batchSize != configuredBatchSize) {
+            log.warn("Notification log batch size {} is outside 1..{}, using {}", configuredBatchSize, MAX_BATCH_SIZE, batchSize);
+        }
+        this.buffer = new ArrayBlockingQueue<>(notificationConfig.getLogs().getBufferCapacity());
+    }
+
+    public Mono<Void> write(NotificationLog notificationLog) {
+        if (!running || !buffer.offer(notificationLog)) {
+            // Stopped or buffer full: write inline so callers slow down instead of dropping rows
+            return insert(List.of(notificationLog));
+        }
+
+        if (buffer.size() >= batchSize) {
+            flush();
+        }
+        return Mono.empty();
+    }
+
+    @Scheduled(fixedDelayString = "${notification.logs.flush-interval-ms:1000}")
+    public void flush() {
+        if (buffer.isEmpty() || !flushing.compareAndSet(false, true)) {
+            return;
+        }
+
+        drain()
+                .doFinally(signalType -> flushing.set(false))
+                .subscribe(
+                        unused -> {},
+                        error -> log.error("Error flushing notification logs: {}", error.getMessage())
+                );
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop(Runnable callback) {
+        running = false;
+        log.info("Flushing {} buffered notification logs", buffer.size());
+
+        // Wait for any scheduled flush, then write out whatever is left
+        Mono.defer(() -> flushing.compareAndSet(false, true) ? Mono.just(true) : Mono.empty())
+                .repeatWhenEmpty(attempts -> attempts.delayElements(Duration.ofMillis(50)))
+                .then(drain())
+                .doFinally(signalType -> {
+                    flushing.set(false);
+                    callback.run();
+                })
+                .subscribe(
+                        unused -> {},
+                        error -> log.error("Error flushing notification logs on shutdown: {}", error.getMessage())
+                );
+    }
+
+    @Override
+    public void stop() {
+        stop(() -> {});
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Stop after the queue consumer and the web server so their last rows are flushed
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private Mono<Void> drain() {
+        return Mono.fromCallable(this::nextBatch)
+                .repeat()
+                .takeWhile(batch -> !batch.isEmpty())
+                .concatMap(this::insert)
+                .then();
+    }
+
+    private List<NotificationLog> nextBatch() {
+        List<NotificationLog> batch = new ArrayList<>(batchSize);
+        buffer.drainTo(batch, batchSize);
+        return batch;
+    }
+
+    private Mono<Void> insert(List<NotificationLog> rows) {
+        return insertRows(rows)
+                .then(Mono.defer(() -> statsRollups.record(rows)))
+                .onErrorResume(error -> {
+                    if (rows.size() == 1) {
+                        log.error("Failed to write notification log {}: {}", rows.get(0).getLogId(), error.getMessage());
+                        return Mono.empty();
+                    }
+
+                    // Retry row by row so one bad row does not lose the whole batch
+                    log.warn("Batch insert of {} notification logs failed, retrying individually: {}", rows.size(), error.getMessage());
+                    return Flux.fromIterable(rows)
+                            .concatMap(row -> insert(List.of(row)))
+                            .then();
+                });
+    }
+
+    private Mono<Void> insertRows(List<NotificationLog> rows) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX);
+        for (int row = 0; row < rows.size(); row++) {
+            sql.append(row == 0 ? "(" : ", (");
+            for (int column = 0; column < COLUMNS.size(); column++) {
+                sql.append(column == 0 ? ":" : ", :").append(COLUMNS.get(column).name()).append(row);
+            }
+            sql.append(')');
+        }
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int row = 0; row < rows.size(); row++) {
+            NotificationLog notificationLog = rows.get(row);
+            for (LogColumn column : COLUMNS) {
+                Object value = column.value().apply(notificationLog);
+                String name = column.name() + row;
+                spec = value != null ? spec.bind(name, value) : spec.bindNull(name, column.type());
+            }
+        }
+
+        return spec.fetch().rowsUpdated().then();
+    }
+
+    private record LogColumn(String name, Class<?> type, Function<NotificationLog, Object> value) {}
+}
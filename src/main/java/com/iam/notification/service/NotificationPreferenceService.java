@@ -10,6 +10,9 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
@@ -18,12 +21,41 @@ import java.util.UUID;
 public class NotificationPreferenceService {
 
     private final UserNotificationPreferenceRepository preferenceRepository;
+    private final PreferenceCache preferenceCache;
+
+    // Channels for a known user without a preference row; SMS is opt-in
+    public static final boolean DEFAULT_EMAIL_ENABLED = true;
+    public static final boolean DEFAULT_SMS_ENABLED = false;
+
+    public Mono<UserNotificationPreference> getPreference(UUID userId, String category) {
+        return preferenceCache.get(userId)
+                .mapNotNull(preferences -> preferences.get(category));
+    }
 
     public Flux<UserNotificationPreference> getUserPreferences(UUID userId) {
         return preferenceRepository.findByUserId(userId)
                 .switchIfEmpty(createDefaultPreferences(userId).thenMany(preferenceRepository.findByUserId(userId)));
     }
 
+    // One query for a whole chunk of users; users without a preference for the category are absent
+    public Mono<Map<UUID, UserNotificationPreference>> getPreferences(Collection<UUID> userIds, String category) {
+        if (userIds.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+
+        return preferenceCache.getAll(userIds)
+                .map(preferences -> {
+                    Map<UUID, UserNotificationPreference> result = new HashMap<>();
+                    preferences.forEach((userId, byCategory) -> {
+                        UserNotificationPreference preference = byCategory.get(category);
+                        if (preference != null) {
+                            result.put(userId, preference);
+                        }
+                    });
+                    return result;
+                });
+    }
+
     public Mono<UserNotificationPreference> updatePreference(UUID userId, NotificationPreferenceRequest request) {
         return preferenceRepository.findByUserIdAndNotificationCategory(userId, request.getNotificationCategory())
                 .switchIfEmpty(createSinglePreference(userId, request.getNotificationCategory()))
@@ -46,13 +78,15 @@ public class NotificationPreferenceService {
                     preference.setUpdatedAt(LocalDateTime.now());
 
                     return preferenceRepository.save(preference);
-                });
+                })
+                .flatMap(saved -> preferenceCache.invalidate(userId).thenReturn(saved));
     }
 
     public Mono<Void> createDefaultPreferences(UUID userId) {
         log.info("Creating default notification preferences for user: {}", userId);
 
         return preferenceRepository.createDefaultPreferences(userId)
+                .then(preferenceCache.invalidate(userId))
                 .doOnSuccess(unused -> log.debug("Default preferences created for user: {}", userId));
     }
 
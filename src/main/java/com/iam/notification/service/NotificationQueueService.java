@@ -1,158 +1,210 @@
 package com.iam.notification.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iam.notification.config.NotificationConfig;
+import com.iam.notification.dto.BulkJob;
+import com.iam.notification.dto.QueueItem;
+import com.iam.notification.dto.QueueMessage;
 import com.iam.notification.dto.SendBulkNotificationRequest;
 import com.iam.notification.model.NotificationLog;
-import com.iam.notification.repository.NotificationLogRepository;
+import com.iam.notification.provider.NotificationQueueProvider;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.time.LocalDateTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class NotificationQueueService {
+public class NotificationQueueService implements SmartLifecycle {
 
-    private final ReactiveRedisTemplate<String, String> redisTemplate;
-    private final NotificationLogRepository logRepository;
-    private final NotificationService notificationService;
+    private final ReactiveRedisTemplate<String, byte[]> binaryRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final NotificationQueueProvider queueProvider;
+    private final BulkNotificationProcessor bulkProcessor;
+    private final NotificationRetryScheduler retryScheduler;
+    private final NotificationConfig notificationConfig;
 
-    private static final String QUEUE_KEY = "notification:queue";
-    private static final String RETRY_QUEUE_KEY = "notification:retry";
+    private static final String JOB_KEY = "notification:job:";
+    private static final int ENQUEUE_CHUNKS_IN_FLIGHT = 4;
 
-    public Mono<Void> enqueueBulkNotification(SendBulkNotificationRequest request) {
-        log.info("Queuing bulk notification for {} recipients", request.getRecipients().size());
+    private volatile boolean running;
+    private volatile Runnable stopCallback;
 
-        return Flux.fromIterable(request.getRecipients())
-                .flatMap(recipient -> {
-                    String queueItem = String.format("%s|%s|%s|%s",
-                            recipient,
-                            request.getTemplateName(),
-                            request.getNotificationType(),
-                            request.getRequestedBy());
+    public Mono<UUID> enqueueBulkNotification(SendBulkNotificationRequest request) {
+        log.info("Queuing bulk notification for {} recipients", request.getRecipients().size());
 
-                    return redisTemplate.opsForList().leftPush(QUEUE_KEY, queueItem);
-                })
-                .then()
-                .doOnSuccess(unused -> log.info("Bulk notification queued successfully"));
+        BulkJob job = BulkJob.builder()
+                .jobId(UUID.randomUUID())
+                .templateName(request.getTemplateName())
+                .notificationType(request.getNotificationType())
+                .notificationCategory(request.getNotificationCategory())
+                .variables(request.getVariables())
+                .language(request.getLanguage())
+                .requestedBy(request.getRequestedBy())
+                .organizationId(request.getOrganizationId())
+                .build();
+
+        List<String> recipients = request.getRecipients();
+        List<UUID> userIds = request.getUserIds();
+
+        // Job metadata is stored once; each queue item only carries the job id, recipient and user id
+        return saveJob(job)
+                .thenMany(Flux.range(0, recipients.size()))
+                .map(index -> QueueItemCodec.encode(QueueItem.builder()
+                        .jobId(job.getJobId())
+                        .recipient(recipients.get(index))
+                        .userId(userIds != null ? userIds.get(index) : null)
+                        .build(), notificationConfig.getQueue().getItemFormatVersion()))
+                .buffer(notificationConfig.getQueue().getEnqueueChunkSize())
+                .flatMap(queueProvider::pushAll, ENQUEUE_CHUNKS_IN_FLIGHT)
+                .then(Mono.just(job.getJobId()))
+                .doOnSuccess(jobId -> log.info("Bulk notification job {} queued successfully", jobId));
     }
 
     public Mono<Void> enqueueRetry(NotificationLog failedLog) {
-        if (failedLog.getRetryCount() >= failedLog.getMaxRetries()) {
-            log.warn("Max retries exceeded for notification: {}", failedLog.getLogId());
-            return Mono.empty();
-        }
-
-        String retryItem = String.format("%s|%d", failedLog.getLogId(), failedLog.getRetryCount() + 1);
-
-        return redisTemplate.opsForList()
-                .leftPush(RETRY_QUEUE_KEY, retryItem)
-                .then()
-                .doOnSuccess(unused -> log.debug("Notification {} queued for retry", failedLog.getLogId()));
+        return retryScheduler.schedule(failedLog);
     }
 
-    @Scheduled(fixedDelay = 5000) // Process queue every 5 seconds
-    public void processQueue() {
-        redisTemplate.opsForList()
-                .rightPop(QUEUE_KEY)
-                .repeatWhenEmpty(flux -> flux.delayElements(java.time.Duration.ofSeconds(1)))
-                .take(java.time.Duration.ofSeconds(4)) // Process for 4 seconds
-                .flatMap(this::processQueueItem)
-                .subscribe(
-                        unused -> {},
-                        error -> log.error("Error processing queue: {}", error.getMessage()),
-                        () -> log.trace("Queue processing cycle completed")
-                );
-    }
+    @Override
+    public void start() {
+        if (!notificationConfig.getQueue().isEnabled()) {
+            log.info("Notification queue consumer disabled");
+            return;
+        }
 
-    @Scheduled(fixedDelay = 30000) // Process retry queue every 30 seconds
-    public void processRetryQueue() {
-        redisTemplate.opsForList()
-                .rightPop(RETRY_QUEUE_KEY)
-                .repeatWhenEmpty(flux -> flux.delayElements(java.time.Duration.ofSeconds(5)))
-                .take(java.time.Duration.ofSeconds(25))
-                .flatMap(this::processRetryItem)
-                .subscribe(
-                        unused -> {},
-                        error -> log.error("Error processing retry queue: {}", error.getMessage()),
-                        () -> log.trace("Retry queue processing cycle completed")
-                );
+        int batchSize = notificationConfig.getQueue().getBatchSize();
+        Duration pollTimeout = Duration.ofSeconds(notificationConfig.getQueue().getPollTimeoutSeconds());
+
+        running = true;
+        log.info("Starting {} notification queue consumer", queueProvider.getProviderName());
+
+        // Long-lived consumer: blocking pops keep an idle queue cheap, and the next pop is only
+        // issued once the previous batch has been delivered and acknowledged
+        Mono.defer(() -> pollQueue(batchSize, pollTimeout))
+                .repeat(() -> running)
+                .filter(batch -> !batch.isEmpty())
+                // Acknowledge only what was delivered or logged, so failed and in-flight items stay pending
+                .concatMap(batch -> processBatch(batch)
+                        .flatMap(queueProvider::acknowledge)
+                        .onErrorResume(error -> {
+                            log.error("Error processing queue batch: {}", error.getMessage());
+                            return Mono.empty();
+                        }), 1)
+                .doFinally(signalType -> {
+                    log.info("Notification queue consumer stopped");
+                    Runnable callback = stopCallback;
+                    if (callback != null) {
+                        callback.run();
+                    }
+                })
+                .subscribe();
     }
 
-    private Mono<Void> processQueueItem(String queueItem) {
-        String[] parts = queueItem.split("\\|");
-        if (parts.length != 4) {
-            log.warn("Invalid queue item format: {}", queueItem);
-            return Mono.empty();
+    @Override
+    public void stop(Runnable callback) {
+        if (!running) {
+            callback.run();
+            return;
         }
 
-        String recipient = parts[0];
-        String templateName = parts[1];
-        String notificationType = parts[2];
-        UUID requestedBy = UUID.fromString(parts[3]);
+        // The in-flight pop returns within the poll timeout and the current batch is finished first
+        log.info("Stopping notification queue consumer");
+        stopCallback = callback;
+        running = false;
+    }
 
-        log.debug("Processing queued notification: {} to {}", templateName, recipient);
+    @Override
+    public void stop() {
+        running = false;
+    }
 
-        // Process based on notification type
-        if ("EMAIL".equals(notificationType)) {
-            return processQueuedEmail(recipient, templateName, requestedBy);
-        } else if ("SMS".equals(notificationType)) {
-            return processQueuedSms(recipient, templateName, requestedBy);
-        }
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
 
-        return Mono.empty();
+    private Mono<List<QueueMessage>> pollQueue(int batchSize, Duration pollTimeout) {
+        return queueProvider.poll(batchSize, pollTimeout)
+                .onErrorResume(error -> {
+                    log.error("Error polling notification queue: {}", error.getMessage());
+                    return Mono.delay(Duration.ofSeconds(1)).thenReturn(List.<QueueMessage>of());
+                });
     }
 
-    private Mono<Void> processRetryItem(String retryItem) {
-        String[] parts = retryItem.split("\\|");
-        if (parts.length != 2) {
-            log.warn("Invalid retry item format: {}", retryItem);
-            return Mono.empty();
+    // Completes with the messages to acknowledge: delivered, logged for retry or deliberately dropped.
+    // Undecodable ones are dead-lettered; the rest stay pending for redelivery
+    private Mono<List<QueueMessage>> processBatch(List<QueueMessage> queueMessages) {
+        // Group by job so each template is rendered once per batch
+        Map<UUID, List<QueueItem>> itemsByJob = new LinkedHashMap<>();
+        Map<QueueItem, QueueMessage> messagesByItem = new IdentityHashMap<>();
+        List<QueueMessage> done = new ArrayList<>();
+        List<QueueMessage> invalid = new ArrayList<>();
+
+        for (QueueMessage queueMessage : queueMessages) {
+            if (queueMessage.getPayload() == null) {
+                done.add(queueMessage); // deleted while pending
+                continue;
+            }
+
+            try {
+                QueueItem item = QueueItemCodec.decode(queueMessage.getPayload());
+                itemsByJob.computeIfAbsent(item.getJobId(), jobId -> new ArrayList<>()).add(item);
+                messagesByItem.put(item, queueMessage);
+            } catch (IllegalArgumentException e) {
+                log.warn("Dead-lettering invalid queue item {}: {}", queueMessage.getId(), e.getMessage());
+                invalid.add(queueMessage);
+            }
         }
 
-        UUID logId = UUID.fromString(parts[0]);
-        int retryCount = Integer.parseInt(parts[1]);
-
-        return logRepository.findById(logId)
-                .flatMap(log -> {
-                    log.setRetryCount(retryCount);
-                    log.setStatus("PENDING");
-
-                    // Retry the notification based on type
-                    if ("EMAIL".equals(log.getNotificationType())) {
-                        return retryEmailNotification(log);
-                    } else if ("SMS".equals(log.getNotificationType())) {
-                        return retrySmsNotification(log);
-                    }
+        log.debug("Processing {} queued notifications across {} jobs", queueMessages.size(), itemsByJob.size());
 
-                    return Mono.empty();
-                })
-                .then();
-    }
+        Flux<QueueMessage> delivered = Flux.fromIterable(itemsByJob.entrySet())
+                .flatMap(entry -> deliverJob(entry.getKey(), entry.getValue()))
+                .map(messagesByItem::get);
 
-    private Mono<Void> processQueuedEmail(String recipient, String templateName, UUID requestedBy) {
-        // Implementation for queued email processing
-        return Mono.empty(); // Placeholder
+        return queueProvider.deadLetter(invalid)
+                .thenMany(Flux.fromIterable(done).concatWith(delivered))
+                .collectList();
     }
 
-    private Mono<Void> processQueuedSms(String recipient, String templateName, UUID requestedBy) {
-        // Implementation for queued SMS processing
-        return Mono.empty(); // Placeholder
+    private Flux<QueueItem> deliverJob(UUID jobId, List<QueueItem> items) {
+        return loadJob(jobId)
+                .map(job -> bulkProcessor.deliver(job, items)
+                        .flatMapIterable(handled -> items.stream()
+                                .filter(item -> handled.contains(item.getRecipient()))
+                                .toList()))
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    log.warn("Bulk job {} expired, dropping {} recipients", jobId, items.size());
+                    return Flux.fromIterable(items);
+                }))
+                .flatMapMany(handled -> handled)
+                .onErrorResume(error -> {
+                    log.error("Bulk delivery of job {} failed, leaving {} items pending: {}", jobId, items.size(), error.getMessage());
+                    return Flux.empty();
+                });
     }
 
-    private Mono<Void> retryEmailNotification(NotificationLog log) {
-        // Implementation for email retry
-        return Mono.empty(); // Placeholder
+    private Mono<Void> saveJob(BulkJob job) {
+        return Mono.fromCallable(() -> objectMapper.writeValueAsBytes(job))
+                .flatMap(bytes -> binaryRedisTemplate.opsForValue().set(JOB_KEY + job.getJobId(), bytes,
+                        Duration.ofHours(notificationConfig.getQueue().getJobTtlHours())))
+                .then();
     }
 
-    private Mono<Void> retrySmsNotification(NotificationLog log) {
-        // Implementation for SMS retry
-        return Mono.empty(); // Placeholder
+    private Mono<BulkJob> loadJob(UUID jobId) {
+        return binaryRedisTemplate.opsForValue().get(JOB_KEY + jobId)
+                .flatMap(bytes -> Mono.fromCallable(() -> objectMapper.readValue(bytes, BulkJob.class)));
     }
 }
\ No newline at end of file
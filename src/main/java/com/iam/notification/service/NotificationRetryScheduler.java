@@ -0,0 +1,288 @@
+package com.iam.notification.service;
+
+import com.iam.notification.config.NotificationConfig;
+import com.iam.notification.dto.EmailRequest;
+import com.iam.notification.dto.NotificationResponse;
+import com.iam.notification.dto.SmsRequest;
+import com.iam.notification.model.NotificationLog;
+import com.iam.notification.provider.EmailProvider;
+import com.iam.notification.provider.SmsProvider;
+import com.iam.notification.repository.NotificationLogRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.data.relational.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationRetryScheduler {
+
+    private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final NotificationLogRepository logRepository;
+    private final R2dbcEntityTemplate entityTemplate;
+    private final NotificationStatsRollups statsRollups;
+    private final EmailProvider emailProvider;
+    private final SmsProvider smsProvider;
+    private final NotificationConfig notificationConfig;
+
+    // ZSET of "logId|createdAt" entries scored by next-attempt epoch millis
+    private static final String RETRY_SCHEDULE_KEY = "notification:retry:scheduled";
+    private static final String DEAD_LETTER_KEY = "notification:retry:dead-letter";
+    // HASH of entry member -> attempts that errored before the log row could be updated
+    private static final String RETRY_ERRORS_KEY = "notification:retry:errors";
+    private static final long DEAD_LETTER_MAX_SIZE = 100_000;
+    // Longer than any provider send, so a lease only runs out when its replica is gone
+    private static final long RETRY_LEASE_MILLIS = 5 * 60 * 1000;
+
+    // RedisScript only takes the raw List result type; members come back through the String value serializer
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final RedisScript<List<String>> CLAIM_DUE_SCRIPT = (RedisScript) RedisScript.of("""
+            local due = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, tonumber(ARGV[3]))
+            for _, id in ipairs(due) do
+                redis.call('ZADD', KEYS[1], ARGV[2], id)
+            end
+            return due
+            """, List.class);
+
+    private final AtomicBoolean polling = new AtomicBoolean();
+
+    public Mono<Void> schedule(NotificationLog failedLog) {
+        return schedule(RetryEntry.of(failedLog), failedLog);
+    }
+
+    private Mono<Void> schedule(RetryEntry entry, NotificationLog failedLog) {
+        if (failedLog.getRetryCount() >= failedLog.getMaxRetries()) {
+            return deadLetter(entry);
+        }
+
+        long delayMillis = backoffMillis(failedLog.getRetryCount());
+        double dueAt = System.currentTimeMillis() + delayMillis;
+
+        // Re-scheduling the same log only moves its score, so a log is never queued twice
+        return redisTemplate.opsForZSet()
+                .add(RETRY_SCHEDULE_KEY, entry.member(), dueAt)
+                .then()
+                .doOnSuccess(unused -> log.debug("Notification {} retry {} scheduled in {} ms",
+                        failedLog.getLogId(), failedLog.getRetryCount() + 1, delayMillis));
+    }
+
+    @Scheduled(fixedDelayString = "${notification.queue.retry-poll-interval-ms:1000}")
+    public void processDueRetries() {
+        if (!polling.compareAndSet(false, true)) {
+            return; // previous sweep still running
+        }
+
+        long now = System.currentTimeMillis();
+        int pageSize = notificationConfig.getQueue().getRetryBatchSize();
+
+        // Page through everything due at the start of the sweep; one page is in flight at a time
+        // so leases do not run out on a large backlog
+        Mono.defer(() -> claimDue(now, pageSize))
+                .flatMap(members -> Flux.fromIterable(members)
+                        .flatMap(member -> retry(RetryEntry.parse(member)), notificationConfig.getQueue().getConcurrency())
+                        .then()
+                        .thenReturn(members.size()))
+                .repeat()
+                .takeUntil(claimed -> claimed < pageSize)
+                .doFinally(signalType -> polling.set(false))
+                .subscribe(
+                        unused -> {},
+                        error -> log.error("Error processing retry schedule: {}", error.getMessage())
+                );
+    }
+
+    // Leases due entries by pushing their score past the lease, so a replica that dies mid-attempt
+    // leaves them due again instead of losing them; the script makes each claim exclusive
+    private Mono<List<String>> claimDue(long now, int count) {
+        return redisTemplate.execute(CLAIM_DUE_SCRIPT, List.of(RETRY_SCHEDULE_KEY),
+                        List.of(String.valueOf(now), String.valueOf(now + RETRY_LEASE_MILLIS), String.valueOf(count)))
+                .next()
+                .defaultIfEmpty(List.of());
+    }
+
+    private Mono<Void> retry(RetryEntry entry) {
+        return findLog(entry)
+                .map(notificationLog -> attempt(entry, notificationLog))
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    log.warn("Notification {} no longer exists, dropping its retry", entry.logId());
+                    return complete(entry);
+                }))
+                .flatMap(attempt -> attempt)
+                .onErrorResume(error -> {
+                    log.error("Retry of notification {} failed: {}", entry.logId(), error.getMessage());
+                    return recordError(entry);
+                });
+    }
+
+    // The log row could not be read or updated, so the errored attempt is counted against the entry
+    // instead: it backs off like a failed send and is dead-lettered once the queue's retries are spent
+    private Mono<Void> recordError(RetryEntry entry) {
+        return redisTemplate.<String, String>opsForHash()
+                .increment(RETRY_ERRORS_KEY, entry.member(), 1)
+                .flatMap(errors -> errors > notificationConfig.getQueue().getMaxRetries()
+                        ? deadLetter(entry)
+                        : redisTemplate.opsForZSet()
+                                .add(RETRY_SCHEDULE_KEY, entry.member(), System.currentTimeMillis() + backoffMillis(errors.intValue() - 1))
+                                .then())
+                // Redis is unreachable too; the lease runs out and the attempt is picked up again
+                .onErrorResume(error -> {
+                    log.error("Failed to reschedule notification {}: {}", entry.logId(), error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<NotificationLog> findLog(RetryEntry entry) {
+        // Entries scheduled before created_at was recorded have to probe every partition
+        return entry.createdAt() != null
+                ? entityTemplate.selectOne(Query.query(entry.criteria()), NotificationLog.class)
+                : logRepository.findById(entry.logId());
+    }
+
+    private Mono<Void> attempt(RetryEntry entry, NotificationLog notificationLog) {
+        if ("SENT".equals(notificationLog.getStatus()) || "DELIVERED".equals(notificationLog.getStatus())) {
+            log.debug("Notification {} already delivered, skipping retry", notificationLog.getLogId());
+            return complete(entry);
+        }
+
+        // Success removes the entry and failure re-scores it with the next backoff; a send that errors
+        // counts as a failed attempt
+        return resend(notificationLog)
+                .onErrorResume(error -> Mono.just(NotificationResponse.builder()
+                        .success(false)
+                        .errorMessage(error.getMessage())
+                        .failure(NotificationResponse.Failure.UNKNOWN)
+                        .build()))
+                .map(response -> recordAttempt(entry, notificationLog, response))
+                .defaultIfEmpty(complete(entry))
+                .flatMap(recorded -> recorded);
+    }
+
+    private Mono<Void> complete(RetryEntry entry) {
+        return redisTemplate.opsForZSet().remove(RETRY_SCHEDULE_KEY, entry.member())
+                .then(redisTemplate.opsForHash().remove(RETRY_ERRORS_KEY, entry.member()))
+                .then();
+    }
+
+    private Mono<NotificationResponse> resend(NotificationLog notificationLog) {
+        log.info("Retrying {} notification {} (attempt {})", notificationLog.getNotificationType(),
+                notificationLog.getLogId(), notificationLog.getRetryCount() + 1);
+
+        if ("EMAIL".equals(notificationLog.getNotificationType())) {
+            return emailProvider.sendEmail(EmailRequest.builder()
+                    .to(notificationLog.getRecipient())
+                    .from(notificationConfig.getEmail().getFromAddress())
+                    .replyTo(notificationConfig.getEmail().getReplyToAddress())
+                    .subject(notificationLog.getSubject())
+                    .bodyHtml(notificationLog.getContent())
+                    .bodyText(notificationLog.getContentText())
+                    .build());
+        } else if ("SMS".equals(notificationLog.getNotificationType())) {
+            return smsProvider.sendSms(SmsRequest.builder()
+                    .phoneNumber(notificationLog.getRecipient())
+                    .message(notificationLog.getContent())
+                    .build());
+        }
+
+        log.warn("Notification type {} cannot be retried", notificationLog.getNotificationType());
+        return Mono.empty();
+    }
+
+    private Mono<Void> recordAttempt(RetryEntry entry, NotificationLog notificationLog, NotificationResponse response) {
+        String previousStatus = notificationLog.getStatus();
+        notificationLog.setRetryCount(notificationLog.getRetryCount() + 1);
+        notificationLog.setStatus(response.isSuccess() ? "SENT" : "FAILED");
+        notificationLog.setProvider(response.getProvider());
+        notificationLog.setProviderMessageId(response.getProviderId());
+        notificationLog.setErrorMessage(response.getErrorMessage());
+        notificationLog.setSentAt(response.isSuccess() ? LocalDateTime.now() : null);
+
+        // Explicit UPDATE: rows are inserted by NotificationLogWriter, save() must never decide insert vs update
+        return entityTemplate.update(NotificationLog.class)
+                .matching(Query.query(RetryEntry.of(notificationLog).criteria()))
+                .apply(Update.update("retryCount", notificationLog.getRetryCount())
+                        .set("status", notificationLog.getStatus())
+                        .set("provider", notificationLog.getProvider())
+                        .set("providerMessageId", notificationLog.getProviderMessageId())
+                        .set("errorMessage", notificationLog.getErrorMessage())
+                        .set("sentAt", notificationLog.getSentAt()))
+                .flatMap(updated -> {
+                    if (updated == 0) {
+                        return complete(entry); // row is gone
+                    }
+
+                    // The entry keeps its member so the lease is replaced rather than duplicated; a bare log id
+                    // entry is swapped for one carrying created_at, added before the old one goes
+                    Mono<Void> next = response.isSuccess() ? complete(entry)
+                            : entry.createdAt() != null ? schedule(entry, notificationLog)
+                            : schedule(notificationLog).then(complete(entry));
+                    return statsRollups.recordStatusChange(notificationLog, previousStatus).then(next);
+                });
+    }
+
+    private Mono<Void> deadLetter(RetryEntry entry) {
+        log.warn("Max retries exceeded for notification: {}", entry.logId());
+
+        return complete(entry)
+                .then(redisTemplate.opsForList().leftPush(DEAD_LETTER_KEY, entry.logId().toString()))
+                .flatMap(size -> {
+                    if (size <= DEAD_LETTER_MAX_SIZE) {
+                        return Mono.empty();
+                    }
+
+                    log.warn("Dead-letter list is full, discarding the {} oldest entries", size - DEAD_LETTER_MAX_SIZE);
+                    return redisTemplate.opsForList().trim(DEAD_LETTER_KEY, 0, DEAD_LETTER_MAX_SIZE - 1).then();
+                });
+    }
+
+    private long backoffMillis(int retryCount) {
+        // Exponential backoff with equal jitter: [delay / 2, delay)
+        long baseMillis = notificationConfig.getQueue().getRetryDelaySeconds() * 1000L;
+        long maxMillis = notificationConfig.getQueue().getRetryMaxDelaySeconds() * 1000L;
+        long delay = Math.min(maxMillis, baseMillis << Math.min(retryCount, 20));
+        long half = Math.max(1, delay / 2);
+
+        return half + ThreadLocalRandom.current().nextLong(half);
+    }
+
+    // created_at lets lookups and updates prune to the log's partition. It is stored rounded to
+    // microseconds, so it is matched within a second either side rather than exactly.
+    private record RetryEntry(UUID logId, LocalDateTime createdAt) {
+
+        static RetryEntry of(NotificationLog notificationLog) {
+            return new RetryEntry(notificationLog.getLogId(), notificationLog.getCreatedAt());
+        }
+
+        static RetryEntry parse(String member) {
+            int separator = member.indexOf('|');
+            return separator < 0
+                    ? new RetryEntry(UUID.fromString(member), null)
+                    : new RetryEntry(UUID.fromString(member.substring(0, separator)), LocalDateTime.parse(member.substring(separator + 1)));
+        }
+
+        String member() {
+            return createdAt != null ? logId + "|" + createdAt : logId.toString();
+        }
+
+        Criteria criteria() {
+            Criteria byId = Criteria.where("logId").is(logId);
+            return createdAt != null
+                    ? byId.and("createdAt").between(createdAt.minusSeconds(1), createdAt.plusSeconds(1))
+                    : byId;
+        }
+    }
+}
@@ -1,11 +1,11 @@
 package com.iam.notification.service;
 
+import com.iam.notification.config.Messages;
+import com.iam.notification.config.NotificationConfig;
 import com.iam.notification.dto.*;
 import com.iam.notification.model.NotificationLog;
 import com.iam.notification.provider.EmailProvider;
 import com.iam.notification.provider.SmsProvider;
-import com.iam.notification.repository.NotificationLogRepository;
-import com.iam.notification.repository.UserNotificationPreferenceRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -23,10 +23,11 @@ public class NotificationService {
     private final EmailProvider emailProvider;
     private final SmsProvider smsProvider;
     private final TemplateService templateService;
-    private final NotificationLogRepository logRepository;
-    private final UserNotificationPreferenceRepository preferenceRepository;
+    private final NotificationLogWriter logWriter;
+    private final NotificationPreferenceService preferenceService;
     private final NotificationQueueService queueService;
     private final RealTimeNotificationService realTimeService;
+    private final NotificationConfig notificationConfig;
 
     public Mono<NotificationResponse> sendEmail(SendEmailRequest request) {
         log.info("Processing email notification to: {}", request.getTo());
@@ -77,25 +78,29 @@ public class NotificationService {
                             .bodyText(processedTemplate.getBodyText())
                             .build();
 
-                    return emailProvider.sendEmail(emailRequest);
-                })
-                .flatMap(response -> logNotification(
-                        "EMAIL",
-                        request.getTo(),
-                        request.getTemplateName(),
-                        response,
-                        request.getUserId()
-                ).thenReturn(response));
+                    return emailProvider.sendEmail(emailRequest)
+                            .flatMap(response -> logNotification(
+                                    "EMAIL",
+                                    request.getTo(),
+                                    request.getTemplateName(),
+                                    emailRequest.getSubject(),
+                                    emailRequest.getBodyHtml(),
+                                    emailRequest.getBodyText(),
+                                    response,
+                                    request.getUserId()
+                            ).thenReturn(response));
+                });
     }
 
     public Mono<NotificationResponse> sendBulkNotification(SendBulkNotificationRequest request) {
         log.info("Processing bulk notification to {} recipients", request.getRecipients().size());
 
         return queueService.enqueueBulkNotification(request)
-                .then(Mono.just(NotificationResponse.builder()
+                .map(jobId -> NotificationResponse.builder()
                         .success(true)
-                        .message("Bulk notification queued successfully")
-                        .build()));
+                        .jobId(jobId)
+                        .message(Messages.BULK_NOTIFICATION_QUEUED)
+                        .build());
     }
 
     public Mono<NotificationResponse> sendRealTimeNotification(SendRealTimeNotificationRequest request) {
@@ -104,9 +109,18 @@ public class NotificationService {
                         .success(true)
                         .provider("WEBSOCKET")
                         .message("Real-time notification sent")
+                        .build()))
+                .onErrorResume(error -> Mono.just(NotificationResponse.builder()
+                        .success(false)
+                        .provider("WEBSOCKET")
+                        .errorMessage("Failed to send real-time notification: " + error.getMessage())
                         .build()));
     }
 
+    public Mono<BroadcastResult> broadcastRealTimeNotification(BroadcastRealTimeNotificationRequest request) {
+        return realTimeService.broadcastToAllUsers(request.getMessage(), request.getType());
+    }
+
     // Integration methods for other services
     public Mono<Void> sendWelcomeEmail(UUID userId, String email, String name) {
         SendTemplatedEmailRequest request = SendTemplatedEmailRequest.builder()
@@ -197,6 +211,9 @@ public class NotificationService {
                         "EMAIL",
                         request.getTo(),
                         "direct",
+                        emailRequest.getSubject(),
+                        emailRequest.getBodyHtml(),
+                        emailRequest.getBodyText(),
                         response,
                         request.getUserId()
                 ).thenReturn(response));
@@ -213,6 +230,9 @@ public class NotificationService {
                         "SMS",
                         request.getPhoneNumber(),
                         "direct",
+                        null,
+                        smsRequest.getMessage(),
+                        null,
                         response,
                         request.getUserId()
                 ).thenReturn(response));
@@ -221,26 +241,30 @@ public class NotificationService {
     private Mono<Boolean> checkUserEmailPreference(UUID userId) {
         if (userId == null) return Mono.just(true);
 
-        return preferenceRepository.findByUserIdAndNotificationCategory(userId, "ACCOUNT")
+        return preferenceService.getPreference(userId, "ACCOUNT")
                 .map(pref -> pref.getEmailEnabled())
-                .defaultIfEmpty(true);
+                .defaultIfEmpty(NotificationPreferenceService.DEFAULT_EMAIL_ENABLED);
     }
 
     private Mono<Boolean> checkUserSmsPreference(UUID userId) {
         if (userId == null) return Mono.just(true);
 
-        return preferenceRepository.findByUserIdAndNotificationCategory(userId, "ACCOUNT")
+        return preferenceService.getPreference(userId, "ACCOUNT")
                 .map(pref -> pref.getSmsEnabled())
-                .defaultIfEmpty(false);
+                .defaultIfEmpty(NotificationPreferenceService.DEFAULT_SMS_ENABLED);
     }
 
-    private Mono<Void> logNotification(String type, String recipient, String templateName,
-                                       NotificationResponse response, UUID userId) {
+    private Mono<Void> logNotification(String type, String recipient, String templateName, String subject,
+                                       String content, String contentText, NotificationResponse response, UUID userId) {
         NotificationLog log = NotificationLog.builder()
                 .logId(UUID.randomUUID())
                 .notificationType(type)
                 .recipient(recipient)
                 .templateName(templateName)
+                // Content is only kept when it is needed for a retry
+                .subject(response.isSuccess() ? null : subject)
+                .content(response.isSuccess() ? null : content)
+                .contentText(response.isSuccess() ? null : contentText)
                 .status(response.isSuccess() ? "SENT" : "FAILED")
                 .provider(response.getProvider())
                 .providerMessageId(response.getProviderId())
@@ -248,9 +272,16 @@ public class NotificationService {
                 .sentAt(response.isSuccess() ? LocalDateTime.now() : null)
                 .userId(userId)
                 .retryCount(0)
+                .maxRetries("SMS".equals(type)
+                        ? notificationConfig.getSms().getRetryAttempts()
+                        : notificationConfig.getEmail().getRetryAttempts())
                 .createdAt(LocalDateTime.now())
                 .build();
 
-        return logRepository.save(log).then();
+        // Insert is write-behind; a retry is only due well after the row has been flushed
+        return logWriter.write(log)
+                .thenReturn(log)
+                .filter(written -> !response.isSuccess())
+                .flatMap(queueService::enqueueRetry);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,191 @@
+package com.iam.notification.service;
+
+import com.iam.notification.config.NotificationConfig;
+import com.iam.notification.model.NotificationLog;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Per-minute and per-hour counters by status, type, provider, template and organization,
+// incremented as log rows are written so stats never scan notification_logs.
+// The table and its backfill come from db/stats-rollups.sql
+@Component
+@Slf4j
+public class NotificationStatsRollups {
+
+    private static final String MINUTE = "MINUTE";
+    private static final String HOUR = "HOUR";
+
+    private static final String UPSERT_PREFIX = "INSERT INTO notification_stats_rollups " +
+            "(granularity, bucket_start, dimension, dimension_value, count) VALUES ";
+    private static final String UPSERT_SUFFIX = " ON CONFLICT (granularity, bucket_start, dimension, dimension_value) " +
+            "DO UPDATE SET count = notification_stats_rollups.count + EXCLUDED.count";
+
+    // Whole hours come from hourly rollups, the partial hours at either edge from minute rollups
+    private static final String TOTALS_QUERY = "SELECT dimension, dimension_value, SUM(count)::BIGINT AS total " +
+            "FROM notification_stats_rollups " +
+            "WHERE (granularity = 'HOUR' AND bucket_start >= :hourStart AND bucket_start < :hourEnd) " +
+            "OR (granularity = 'MINUTE' AND ((bucket_start >= :start AND bucket_start < :hourStart) " +
+            "OR (bucket_start >= :hourEnd AND bucket_start < :end))) " +
+            "GROUP BY dimension, dimension_value";
+
+    private final DatabaseClient databaseClient;
+    private final int minuteRetentionDays;
+
+    public NotificationStatsRollups(DatabaseClient databaseClient, NotificationConfig notificationConfig) {
+        this.databaseClient = databaseClient;
+        this.minuteRetentionDays = notificationConfig.getLogs().getMinuteRollupRetentionDays();
+    }
+
+    public Mono<Void> record(List<NotificationLog> logs) {
+        Map<RollupKey, Long> increments = new TreeMap<>();
+
+        for (NotificationLog notificationLog : logs) {
+            LocalDateTime createdAt = notificationLog.getCreatedAt() != null ? notificationLog.getCreatedAt() : LocalDateTime.now();
+            increment(increments, createdAt, "status", notificationLog.getStatus(), 1);
+            increment(increments, createdAt, "type", notificationLog.getNotificationType(), 1);
+            increment(increments, createdAt, "provider", notificationLog.getProvider(), 1);
+            increment(increments, createdAt, "template", notificationLog.getTemplateName(), 1);
+            if (notificationLog.getOrganizationId() != null) {
+                increment(increments, createdAt, "organization", notificationLog.getOrganizationId().toString(), 1);
+            }
+        }
+
+        return upsert(increments);
+    }
+
+    // Moves a log between status counters in its original bucket, e.g. FAILED to SENT after a retry
+    public Mono<Void> recordStatusChange(NotificationLog notificationLog, String previousStatus) {
+        if (previousStatus == null || previousStatus.equals(notificationLog.getStatus()) || notificationLog.getCreatedAt() == null) {
+            return Mono.empty();
+        }
+
+        Map<RollupKey, Long> increments = new TreeMap<>();
+        increment(increments, notificationLog.getCreatedAt(), "status", previousStatus, -1);
+        increment(increments, notificationLog.getCreatedAt(), "status", notificationLog.getStatus(), 1);
+        return upsert(increments);
+    }
+
+    // dimension -> value -> count for [start, end)
+    public Mono<Map<String, Map<String, Long>>> totals(LocalDateTime start, LocalDateTime end) {
+        // Edges older than the minute retention are widened to whole hours
+        LocalDateTime cutoff = minuteRollupCutoff();
+        LocalDateTime minuteStart = start.truncatedTo(ChronoUnit.MINUTES);
+        LocalDateTime hourStart = start.truncatedTo(ChronoUnit.HOURS);
+        if (hourStart.isBefore(start) && !start.isBefore(cutoff)) {
+            hourStart = hourStart.plusHours(1);
+        }
+        LocalDateTime hourEnd = end.truncatedTo(ChronoUnit.HOURS);
+        if (hourEnd.isBefore(end) && end.isBefore(cutoff)) {
+            hourEnd = hourEnd.plusHours(1);
+        }
+        if (!hourStart.isBefore(hourEnd)) {
+            hourStart = hourEnd = end; // range within a single hour
+        }
+
+        return databaseClient.sql(TOTALS_QUERY)
+                .bind("start", minuteStart)
+                .bind("end", end)
+                .bind("hourStart", hourStart)
+                .bind("hourEnd", hourEnd)
+                .map((row, metadata) -> new RollupTotal(
+                        row.get("dimension", String.class),
+                        row.get("dimension_value", String.class),
+                        row.get("total", Long.class)))
+                .all()
+                .collectList()
+                .map(rows -> {
+                    Map<String, Map<String, Long>> totals = new HashMap<>();
+                    rows.forEach(total -> totals
+                            .computeIfAbsent(total.dimension(), dimension -> new HashMap<>())
+                            .put(total.value(), total.count()));
+                    return totals;
+                });
+    }
+
+    @Scheduled(cron = "0 15 * * * *") // Prune expired minute rollups hourly
+    public void pruneMinuteRollups() {
+        databaseClient.sql("DELETE FROM notification_stats_rollups WHERE granularity = 'MINUTE' AND bucket_start < :cutoff")
+                .bind("cutoff", minuteRollupCutoff())
+                .fetch()
+                .rowsUpdated()
+                .subscribe(
+                        deleted -> log.debug("Pruned {} minute stats rollups", deleted),
+                        error -> log.error("Error pruning minute stats rollups: {}", error.getMessage())
+                );
+    }
+
+    private LocalDateTime minuteRollupCutoff() {
+        return LocalDateTime.now().minusDays(minuteRetentionDays).truncatedTo(ChronoUnit.HOURS);
+    }
+
+    private void increment(Map<RollupKey, Long> increments, LocalDateTime createdAt, String dimension, String value, long delta) {
+        if (value == null) {
+            return;
+        }
+
+        increments.merge(new RollupKey(MINUTE, createdAt.truncatedTo(ChronoUnit.MINUTES), dimension, value), delta, Long::sum);
+        increments.merge(new RollupKey(HOUR, createdAt.truncatedTo(ChronoUnit.HOURS), dimension, value), delta, Long::sum);
+    }
+
+    private Mono<Void> upsert(Map<RollupKey, Long> increments) {
+        if (increments.isEmpty()) {
+            return Mono.empty();
+        }
+
+        // Keys are sorted, so concurrent upserts from several replicas lock rows in the same order
+        StringBuilder sql = new StringBuilder(UPSERT_PREFIX);
+        for (int i = 0; i < increments.size(); i++) {
+            sql.append(i == 0 ? "" : ", ")
+                    .append("(:g").append(i).append(", :b").append(i).append(", :d").append(i)
+                    .append(", :v").append(i).append(", :c").append(i).append(')');
+        }
+        sql.append(UPSERT_SUFFIX);
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        int i = 0;
+        for (Map.Entry<RollupKey, Long> entry : increments.entrySet()) {
+            RollupKey key = entry.getKey();
+            spec = spec.bind("g" + i, key.granularity())
+                    .bind("b" + i, key.bucketStart())
+                    .bind("d" + i, key.dimension())
+                    .bind("v" + i, key.value())
+                    .bind("c" + i, entry.getValue());
+            i++;
+        }
+
+        // Counters are best effort; a failure here must never fail the log write itself
+        return spec.fetch().rowsUpdated()
+                .then()
+                .onErrorResume(error -> {
+                    log.warn("Failed to update stats rollups: {}", error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private record RollupKey(String granularity, LocalDateTime bucketStart, String dimension, String value)
+            implements Comparable<RollupKey> {
+
+        private static final Comparator<RollupKey> ORDER = Comparator.comparing(RollupKey::granularity)
+                .thenComparing(RollupKey::bucketStart)
+                .thenComparing(RollupKey::dimension)
+                .thenComparing(RollupKey::value);
+
+        @Override
+        public int compareTo(RollupKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    private record RollupTotal(String dimension, String value, Long count) {}
+}
@@ -1,34 +1,30 @@
 package com.iam.notification.service;
 
 import com.iam.notification.dto.NotificationStatsResponse;
-import com.iam.notification.repository.NotificationLogRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class NotificationStatsService {
 
-    private final NotificationLogRepository logRepository;
+    private final NotificationStatsRollups statsRollups;
 
     public Mono<NotificationStatsResponse> getStats(LocalDateTime start, LocalDateTime end) {
-        return Mono.zip(
-                logRepository.countSuccessfulNotificationsSince(start),
-                logRepository.countFailedNotificationsSince(start),
-                logRepository.countByTypeAndCreatedAtAfter("EMAIL", start),
-                logRepository.countByTypeAndCreatedAtAfter("SMS", start),
-                logRepository.findMostUsedTemplateSince(start)
-        ).map(tuple -> {
-            long totalSent = tuple.getT1();
-            long totalFailed = tuple.getT2();
-            long emailsSent = tuple.getT3();
-            long smsSent = tuple.getT4();
-            String mostUsedTemplate = tuple.getT5();
+        return statsRollups.totals(start, end).map(totals -> {
+            Map<String, Long> byStatus = totals.getOrDefault("status", Map.of());
+            Map<String, Long> byType = totals.getOrDefault("type", Map.of());
+
+            long totalSent = byStatus.getOrDefault("SENT", 0L);
+            long totalFailed = byStatus.getOrDefault("FAILED", 0L);
+            long emailsSent = byType.getOrDefault("EMAIL", 0L);
+            long smsSent = byType.getOrDefault("SMS", 0L);
 
             double successRate = totalSent + totalFailed > 0 ?
                     (double) totalSent / (totalSent + totalFailed) * 100 : 0;
@@ -42,8 +38,8 @@ public class NotificationStatsService {
                     .successRate(successRate)
                     .periodStart(start)
                     .periodEnd(end)
-                    .mostUsedTemplate(mostUsedTemplate)
-                    .primaryProvider("MIXED") // Would be calculated
+                    .mostUsedTemplate(mostFrequent(totals.get("template")))
+                    .primaryProvider(mostFrequent(totals.get("provider")))
                     .build();
         });
     }
@@ -59,4 +55,15 @@ public class NotificationStatsService {
         LocalDateTime end = LocalDateTime.now();
         return getStats(start, end);
     }
-}
\ No newline at end of file
+
+    private String mostFrequent(Map<String, Long> counts) {
+        if (counts == null) {
+            return null;
+        }
+
+        return counts.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse(null);
+    }
+}
@@ -0,0 +1,152 @@
+package com.iam.notification.service;
+
+import org.unbescape.html.HtmlEscape;
+
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Template pre-split into literal and variable segments. Compiled from plain text with inlined
+// simple variables, escaped ([[${name}]]) or not ([(${name})]) exactly as Thymeleaf's TEXT mode
+// would, or spliced from engine output rendered with markers in place of per-recipient variables.
+public final class PlaceholderTemplate {
+
+    private static final Pattern VARIABLE = Pattern.compile("\\s*\\$\\{\\s*([A-Za-z_][A-Za-z0-9_]*)\\s*}\\s*");
+    private static final int VARIABLE_SIZE_HINT = 16;
+
+    // Lower-case hex, so case or encoding changes by the template are detectable. The angle
+    // brackets show whether the engine escaped the value at each place the marker was output
+    private static final String MARKER_TOKEN = HexFormat.of().toHexDigits(ThreadLocalRandom.current().nextLong());
+    private static final String RAW_OPEN = "<";
+    private static final String RAW_CLOSE = ">" + MARKER_TOKEN;
+    private static final String ESCAPED_OPEN = "&lt;";
+    private static final String ESCAPED_CLOSE = "&gt;" + MARKER_TOKEN;
+
+    private final String[] literals;  // literals[i] precedes variables[i]; one trailing literal
+    private final String[] variables;
+    private final boolean[] escaped;  // whether variables[i] is HTML-escaped
+    private final int sizeHint;
+
+    private PlaceholderTemplate(List<String> literals, List<String> variables, List<Boolean> escaped) {
+        this.literals = literals.toArray(String[]::new);
+        this.variables = variables.toArray(String[]::new);
+        this.escaped = new boolean[escaped.size()];
+        for (int i = 0; i < this.escaped.length; i++) {
+            this.escaped[i] = escaped.get(i);
+        }
+        this.sizeHint = literals.stream().mapToInt(String::length).sum() + variables.size() * VARIABLE_SIZE_HINT;
+    }
+
+    // Compiles a plain-text source; empty when it uses more than simple variables and needs the engine
+    public static Optional<PlaceholderTemplate> compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+        List<Boolean> escaped = new ArrayList<>();
+        int position = 0;
+
+        while (true) {
+            int start = nextInline(source, position);
+            if (start < 0) {
+                break;
+            }
+
+            boolean escapedInline = source.charAt(start + 1) == '[';
+            String close = escapedInline ? "]]" : ")]";
+            int end = source.indexOf(close, start + 2);
+            if (end < 0) {
+                return Optional.empty();
+            }
+
+            Matcher matcher = VARIABLE.matcher(source.substring(start + 2, end));
+            if (!matcher.matches()) {
+                return Optional.empty(); // expressions, utility objects, etc.
+            }
+
+            literals.add(source.substring(position, start));
+            variables.add(matcher.group(1));
+            escaped.add(escapedInline);
+            position = end + 2;
+        }
+
+        literals.add(source.substring(position));
+        return Optional.of(new PlaceholderTemplate(literals, variables, escaped));
+    }
+
+    public static String marker(String variable) {
+        return MARKER_TOKEN + RAW_OPEN + variable + RAW_CLOSE;
+    }
+
+    // Splits HTML rendered with marker() values; empty when the template altered a marker.
+    // Values are escaped only where the engine escaped the marker, e.g. th:text but not th:utext
+    public static Optional<PlaceholderTemplate> splice(String rendered) {
+        List<String> literals = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+        List<Boolean> escaped = new ArrayList<>();
+        int position = 0;
+
+        while (true) {
+            int start = rendered.indexOf(MARKER_TOKEN, position);
+            if (start < 0) {
+                break;
+            }
+
+            int nameStart = start + MARKER_TOKEN.length();
+            boolean escapedMarker = rendered.startsWith(ESCAPED_OPEN, nameStart);
+            if (!escapedMarker && !rendered.startsWith(RAW_OPEN, nameStart)) {
+                return Optional.empty();
+            }
+
+            nameStart += escapedMarker ? ESCAPED_OPEN.length() : RAW_OPEN.length();
+            String close = escapedMarker ? ESCAPED_CLOSE : RAW_CLOSE;
+            int end = rendered.indexOf(close, nameStart);
+            if (end < 0) {
+                return Optional.empty();
+            }
+
+            literals.add(rendered.substring(position, start));
+            variables.add(rendered.substring(nameStart, end));
+            escaped.add(escapedMarker);
+            position = end + close.length();
+        }
+
+        literals.add(rendered.substring(position));
+        if (countToken(rendered.toLowerCase()) != variables.size() * 2) {
+            return Optional.empty(); // a marker was transformed, e.g. upper-cased or URL-encoded
+        }
+        return Optional.of(new PlaceholderTemplate(literals, variables, escaped));
+    }
+
+    public String render(Map<String, Object> values) {
+        StringBuilder out = new StringBuilder(sizeHint);
+        for (int i = 0; i < variables.length; i++) {
+            out.append(literals[i]);
+            Object value = values.get(variables[i]);
+            if (value != null) {
+                out.append(escaped[i] ? HtmlEscape.escapeHtml4Xml(value.toString()) : value);
+            }
+        }
+        return out.append(literals[variables.length]).toString();
+    }
+
+    private static int countToken(String rendered) {
+        int count = 0;
+        for (int index = rendered.indexOf(MARKER_TOKEN); index >= 0; index = rendered.indexOf(MARKER_TOKEN, index + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    private static int nextInline(String source, int from) {
+        int escaped = source.indexOf("[[", from);
+        int unescaped = source.indexOf("[(", from);
+        if (escaped < 0 || unescaped < 0) {
+            return Math.max(escaped, unescaped);
+        }
+        return Math.min(escaped, unescaped);
+    }
+}
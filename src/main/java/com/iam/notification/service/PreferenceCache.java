@@ -0,0 +1,128 @@
+package com.iam.notification.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.iam.notification.config.NotificationConfig;
+import com.iam.notification.model.UserNotificationPreference;
+import com.iam.notification.repository.UserNotificationPreferenceRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Component
+@Slf4j
+public class PreferenceCache {
+
+    private static final String INVALIDATION_CHANNEL = "notification:preferences:invalidate";
+
+    private final UserNotificationPreferenceRepository preferenceRepository;
+    private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final boolean enabled;
+    private final AsyncCache<UUID, Map<String, UserNotificationPreference>> localCache;
+
+    private Disposable invalidationListener;
+
+    public PreferenceCache(UserNotificationPreferenceRepository preferenceRepository,
+                           ReactiveRedisTemplate<String, String> redisTemplate,
+                           NotificationConfig notificationConfig) {
+        this.preferenceRepository = preferenceRepository;
+        this.redisTemplate = redisTemplate;
+        this.enabled = notificationConfig.getPreference().isCacheEnabled();
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(notificationConfig.getPreference().getCacheMaxSize())
+                .expireAfterWrite(Duration.ofMinutes(notificationConfig.getPreference().getCacheTtlMinutes()))
+                .buildAsync();
+    }
+
+    @PostConstruct
+    public void listenForInvalidations() {
+        if (!enabled) {
+            return;
+        }
+
+        invalidationListener = redisTemplate.listenToChannel(INVALIDATION_CHANNEL)
+                .doOnNext(message -> localCache.synchronous().invalidate(UUID.fromString(message.getMessage())))
+                .doOnError(error -> {
+                    // Messages may have been missed while disconnected
+                    log.warn("Preference invalidation channel failed, clearing cache: {}", error.getMessage());
+                    localCache.synchronous().invalidateAll();
+                })
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stopListening() {
+        if (invalidationListener != null) {
+            invalidationListener.dispose();
+        }
+    }
+
+    // All of a user's preferences by category; empty when the user has none yet
+    public Mono<Map<String, UserNotificationPreference>> get(UUID userId) {
+        if (!enabled) {
+            return load(userId);
+        }
+
+        return Mono.fromFuture(() -> localCache.get(userId, (key, executor) -> load(key).toFuture()), true);
+    }
+
+    // Cached users are served locally; the rest are loaded together in one query
+    public Mono<Map<UUID, Map<String, UserNotificationPreference>>> getAll(Collection<UUID> userIds) {
+        if (!enabled) {
+            return loadAll(Set.copyOf(userIds));
+        }
+
+        return Mono.fromFuture(() -> localCache.getAll(userIds, (missing, executor) -> loadAll(missing).toFuture()), true);
+    }
+
+    public Mono<Void> invalidate(UUID userId) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+
+        localCache.synchronous().invalidate(userId);
+        return redisTemplate.convertAndSend(INVALIDATION_CHANNEL, userId.toString())
+                .then()
+                .onErrorResume(error -> {
+                    log.warn("Failed to broadcast preference invalidation for user {}: {}", userId, error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Map<UUID, Map<String, UserNotificationPreference>>> loadAll(Set<? extends UUID> userIds) {
+        return preferenceRepository.findAllByUserIds(userIds.toArray(UUID[]::new))
+                .collectMultimap(UserNotificationPreference::getUserId)
+                .map(rows -> {
+                    Map<UUID, Map<String, UserNotificationPreference>> preferences = new HashMap<>();
+                    // Users without rows are cached as empty so they are not queried again
+                    userIds.forEach(userId -> preferences.put(userId, byCategory(rows.getOrDefault(userId, List.of()))));
+                    return preferences;
+                });
+    }
+
+    private Map<String, UserNotificationPreference> byCategory(Collection<UserNotificationPreference> preferences) {
+        return preferences.stream()
+                .collect(Collectors.toUnmodifiableMap(UserNotificationPreference::getNotificationCategory, preference -> preference));
+    }
+
+    private Mono<Map<String, UserNotificationPreference>> load(UUID userId) {
+        return preferenceRepository.findByUserId(userId)
+                .collectMap(UserNotificationPreference::getNotificationCategory)
+                .map(Map::copyOf);
+    }
+}
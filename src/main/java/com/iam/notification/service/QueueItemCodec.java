@@ -0,0 +1,71 @@
+package com.iam.notification.service;
+
+import com.iam.notification.dto.QueueItem;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+public final class QueueItemCodec {
+
+    // v1: [version:1][jobId msb:8][jobId lsb:8][recipient UTF-8 to end]
+    // v2: [version:1][jobId msb:8][jobId lsb:8][userId msb:8][userId lsb:8][recipient UTF-8 to end]
+    private static final byte VERSION_1 = 1;
+    private static final byte VERSION_2 = 2;
+    private static final int V1_HEADER_LENGTH = 1 + 16;
+    private static final int V2_HEADER_LENGTH = 1 + 32;
+
+    private QueueItemCodec() {}
+
+    // maxVersion caps the format written so a rollout can keep producing payloads older consumers decode;
+    // the user id is dropped when v2 is not allowed
+    public static byte[] encode(QueueItem item, int maxVersion) {
+        byte[] recipient = item.getRecipient().getBytes(StandardCharsets.UTF_8);
+
+        // Items without a user id stay on v1 so they remain readable by older consumers
+        if (item.getUserId() == null || maxVersion < VERSION_2) {
+            return ByteBuffer.allocate(V1_HEADER_LENGTH + recipient.length)
+                    .put(VERSION_1)
+                    .putLong(item.getJobId().getMostSignificantBits())
+                    .putLong(item.getJobId().getLeastSignificantBits())
+                    .put(recipient)
+                    .array();
+        }
+
+        return ByteBuffer.allocate(V2_HEADER_LENGTH + recipient.length)
+                .put(VERSION_2)
+                .putLong(item.getJobId().getMostSignificantBits())
+                .putLong(item.getJobId().getLeastSignificantBits())
+                .putLong(item.getUserId().getMostSignificantBits())
+                .putLong(item.getUserId().getLeastSignificantBits())
+                .put(recipient)
+                .array();
+    }
+
+    public static QueueItem decode(byte[] payload) {
+        if (payload == null || payload.length == 0) {
+            throw new IllegalArgumentException("Empty queue item");
+        }
+
+        byte version = payload[0];
+        int headerLength = switch (version) {
+            case VERSION_1 -> V1_HEADER_LENGTH;
+            case VERSION_2 -> V2_HEADER_LENGTH;
+            default -> throw new IllegalArgumentException("Unsupported queue item version: " + version);
+        };
+        if (payload.length < headerLength) {
+            throw new IllegalArgumentException("Truncated queue item");
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(payload, 1, payload.length - 1);
+        UUID jobId = new UUID(buffer.getLong(), buffer.getLong());
+        UUID userId = version == VERSION_2 ? new UUID(buffer.getLong(), buffer.getLong()) : null;
+        String recipient = new String(payload, headerLength, payload.length - headerLength, StandardCharsets.UTF_8);
+
+        return QueueItem.builder()
+                .jobId(jobId)
+                .recipient(recipient)
+                .userId(userId)
+                .build();
+    }
+}
@@ -1,76 +1,179 @@
 package com.iam.notification.service;
 
-import lombok.RequiredArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iam.notification.dto.BroadcastResult;
+import com.iam.notification.websocket.RealTimeBroadcaster;
+import com.iam.notification.websocket.RealTimeSession;
+import com.iam.notification.websocket.RealTimeSessionRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.core.Disposable;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class RealTimeNotificationService {
 
-    private final Map<UUID, WebSocketSession> userSessions = new ConcurrentHashMap<>();
+    // Each node listens on its own channel plus the broadcast channel
+    private static final String NODE_CHANNEL_PREFIX = "notification:realtime:node:";
+    private static final String BROADCAST_CHANNEL = "notification:realtime:broadcast";
 
-    public void addUserSession(UUID userId, WebSocketSession session) {
-        userSessions.put(userId, session);
-        log.info("User {} connected to real-time notifications", userId);
+    private final RealTimeSessionRegistry sessionRegistry;
+    private final RealTimePresence presence;
+    private final RealTimeBroadcaster broadcaster;
+    private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    private Disposable clusterListener;
+
+    public RealTimeNotificationService(RealTimeSessionRegistry sessionRegistry,
+                                       RealTimePresence presence,
+                                       RealTimeBroadcaster broadcaster,
+                                       ReactiveRedisTemplate<String, String> redisTemplate,
+                                       ObjectMapper objectMapper) {
+        this.sessionRegistry = sessionRegistry;
+        this.presence = presence;
+        this.broadcaster = broadcaster;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
     }
 
-    public void removeUserSession(UUID userId) {
-        userSessions.remove(userId);
-        log.info("User {} disconnected from real-time notifications", userId);
+    @PostConstruct
+    public void listenForClusterMessages() {
+        clusterListener = redisTemplate.listenToChannel(NODE_CHANNEL_PREFIX + presence.getNodeId(), BROADCAST_CHANNEL)
+                .doOnNext(message -> {
+                    try {
+                        ClusterMessage clusterMessage = objectMapper.readValue(message.getMessage(), ClusterMessage.class);
+                        if (clusterMessage.userId() != null) {
+                            deliverLocal(clusterMessage.userId(), clusterMessage.payload());
+                        } else if (!presence.getNodeId().equals(clusterMessage.origin())) {
+                            broadcaster.broadcast(clusterMessage.payload().getBytes(StandardCharsets.UTF_8)).subscribe(
+                                    result -> log.debug("Broadcast from node {} reached {} of {} local sessions ({} dropped, {} closed)",
+                                            clusterMessage.origin(), result.getDelivered(), result.getSessions(),
+                                            result.getDropped(), result.getClosed()),
+                                    error -> log.warn("Failed to deliver broadcast from node {}: {}",
+                                            clusterMessage.origin(), error.getMessage()));
+                        }
+                    } catch (Exception e) {
+                        log.warn("Ignoring unreadable real-time cluster message: {}", e.getMessage());
+                    }
+                })
+                .doOnError(error -> log.warn("Real-time cluster channel failed: {}", error.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe();
     }
 
-    public Mono<Void> sendNotification(UUID userId, String message, String type) {
-        WebSocketSession session = userSessions.get(userId);
+    @PreDestroy
+    public void stopListening() {
+        if (clusterListener != null) {
+            clusterListener.dispose();
+        }
+    }
 
-        if (session == null || !session.isOpen()) {
-            log.debug("No active session for user: {}", userId);
-            return Mono.empty();
+    // Returns null when this node has no room for another socket
+    public RealTimeSession addUserSession(UUID userId, WebSocketSession session) {
+        RealTimeSession realTimeSession = sessionRegistry.register(userId, session);
+        if (realTimeSession != null) {
+            log.info("User {} connected to real-time notifications (session {})", userId, session.getId());
+            presence.join(userId).subscribe(
+                    unused -> {},
+                    error -> log.warn("Failed to record real-time presence of user {}: {}", userId, error.getMessage()));
         }
+        return realTimeSession;
+    }
 
-        String notification = String.format("""
-            {
-                "type": "%s",
-                "message": "%s",
-                "timestamp": "%s",
-                "userId": "%s"
-            }
-            """, type, message, java.time.LocalDateTime.now(), userId);
-
-        return session.send(Mono.just(session.textMessage(notification)))
-                .doOnSuccess(unused -> log.debug("Real-time notification sent to user: {}", userId))
-                .onErrorResume(error -> {
-                    log.warn("Failed to send real-time notification to user {}: {}", userId, error.getMessage());
-                    removeUserSession(userId);
-                    return Mono.empty();
-                });
+    public void removeUserSession(RealTimeSession session) {
+        UUID userId = session.getUserId();
+        log.info("User {} disconnected from real-time notifications (session {})", userId, session.getId());
+
+        if (sessionRegistry.unregister(session)) {
+            // The user may have reconnected here while the removal was in flight
+            presence.leave(userId)
+                    .then(Mono.defer(() -> sessionRegistry.getSessions(userId).length > 0 ? presence.join(userId) : Mono.empty()))
+                    .subscribe(
+                            unused -> {},
+                            error -> log.warn("Failed to clear real-time presence of user {}: {}", userId, error.getMessage()));
+        }
     }
 
-    public Mono<Void> broadcastToAllUsers(String message, String type) {
-        log.info("Broadcasting notification to {} connected users", userSessions.size());
+    public Mono<Void> sendNotification(UUID userId, String message, String type) {
+        return serialize(new RealTimePayload(type, message, LocalDateTime.now().toString(), userId))
+                .flatMap(payload -> {
+                    // Sockets on this node are written directly; other nodes holding the user get one message each
+                    deliverLocal(userId, payload);
+
+                    // A routing failure is returned to the caller, as the user may only be connected elsewhere
+                    return presence.remoteNodes(userId)
+                            .flatMap(node -> publish(NODE_CHANNEL_PREFIX + node, new ClusterMessage(userId, payload, presence.getNodeId())))
+                            .then()
+                            .doOnError(error -> log.warn("Failed to route real-time notification for user {}: {}", userId, error.getMessage()));
+                });
+    }
 
-        return Mono.fromRunnable(() -> {
-            userSessions.entrySet().parallelStream()
-                    .forEach(entry -> {
-                        sendNotification(entry.getKey(), message, type)
-                                .subscribe();
-                    });
-        });
+    // Serialized once; this node's sockets are written directly and the other nodes get one message
+    public Mono<BroadcastResult> broadcastToAllUsers(String message, String type) {
+        return serialize(new RealTimePayload(type, message, LocalDateTime.now().toString(), null))
+                .flatMap(payload -> Mono.zip(
+                        broadcaster.broadcast(payload.getBytes(StandardCharsets.UTF_8)),
+                        publish(BROADCAST_CHANNEL, new ClusterMessage(null, payload, presence.getNodeId()))
+                                .onErrorResume(error -> {
+                                    log.warn("Failed to publish broadcast to other nodes: {}", error.getMessage());
+                                    return Mono.just(0L);
+                                }),
+                        (result, receivers) -> {
+                            result.setRemoteNodes(Math.max(0, receivers - 1)); // this node also receives it
+                            return result;
+                        }));
     }
 
     public int getConnectedUserCount() {
-        return userSessions.size();
+        return sessionRegistry.getUserCount();
     }
 
-    public boolean isUserConnected(UUID userId) {
-        WebSocketSession session = userSessions.get(userId);
-        return session != null && session.isOpen();
+    public Mono<Boolean> isUserConnected(UUID userId) {
+        return presence.isConnected(userId);
     }
-}
\ No newline at end of file
+
+    private void deliverLocal(UUID userId, String payload) {
+        RealTimeSession[] sessions = sessionRegistry.getSessions(userId);
+
+        if (sessions.length == 0) {
+            log.debug("No active session for user {} on this node", userId);
+            return;
+        }
+
+        // Queued on each of the user's sessions; a full buffer drops only that session's copy
+        for (RealTimeSession session : sessions) {
+            if (!session.offer(payload)) {
+                log.debug("Dropped real-time notification for user {} on session {}", userId, session.getId());
+            }
+        }
+    }
+
+    // Returns the number of nodes that received the message
+    private Mono<Long> publish(String channel, ClusterMessage clusterMessage) {
+        return serialize(clusterMessage).flatMap(json -> redisTemplate.convertAndSend(channel, json));
+    }
+
+    private Mono<String> serialize(Object value) {
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(value));
+    }
+
+    // Frame sent to the client; userId is omitted for broadcasts
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private record RealTimePayload(String type, String message, String timestamp, UUID userId) {}
+
+    // Carries the already serialized frame so every node sends identical bytes; userId is null for broadcasts
+    private record ClusterMessage(UUID userId, String payload, String origin) {}
+}
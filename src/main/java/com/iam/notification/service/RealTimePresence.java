@@ -0,0 +1,173 @@
+package com.iam.notification.service;
+
+import com.iam.notification.config.NotificationConfig;
+import com.iam.notification.websocket.RealTimeSessionRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Which nodes hold sockets for which users. Each node records only its own users, keeps a
+// heartbeat, and any node reaps the entries of a node whose heartbeat has stopped, so joins
+// and departures never require a cluster-wide broadcast. Entries are recorded under the node id
+// plus a generation; a node that finds itself reaped moves to a new generation, so a reaper
+// still removing the old one can never remove what the node records again.
+@Component
+@Slf4j
+public class RealTimePresence {
+
+    private static final String PRESENCE_KEY_PREFIX = "notification:realtime:presence:"; // SET of node members per user
+    private static final String NODE_USERS_KEY_PREFIX = "notification:realtime:node-users:"; // SET of user ids per node member
+    private static final String NODES_KEY = "notification:realtime:nodes"; // ZSET of node members scored by last heartbeat
+    private static final char GENERATION_SEPARATOR = '@'; // node member = node id + '@' + generation
+    private static final int REAP_BATCH_SIZE = 500;
+
+    private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final RealTimeSessionRegistry sessionRegistry;
+    private final long nodeTimeoutMillis;
+    private final AtomicBoolean heartbeating = new AtomicBoolean();
+    private final AtomicLong generation = new AtomicLong(System.currentTimeMillis()); // differs across restarts
+    private volatile String member;
+    private volatile boolean registered;
+
+    @Getter
+    private final String nodeId;
+
+    public RealTimePresence(ReactiveRedisTemplate<String, String> redisTemplate,
+                            RealTimeSessionRegistry sessionRegistry,
+                            NotificationConfig notificationConfig) {
+        this.redisTemplate = redisTemplate;
+        this.sessionRegistry = sessionRegistry;
+        this.nodeTimeoutMillis = notificationConfig.getRealTime().getNodeTimeoutSeconds() * 1000L;
+
+        String configuredId = notificationConfig.getRealTime().getNodeId();
+        this.nodeId = configuredId != null && !configuredId.isBlank() ? configuredId : UUID.randomUUID().toString();
+        this.member = member(generation.get());
+        log.info("Real-time node id {}", nodeId);
+    }
+
+    public Mono<Void> join(UUID userId) {
+        return Mono.defer(() -> join(userId, member));
+    }
+
+    public Mono<Void> leave(UUID userId) {
+        return Mono.defer(() -> {
+            String current = member;
+            return Mono.when(
+                    redisTemplate.opsForSet().remove(PRESENCE_KEY_PREFIX + userId, current),
+                    redisTemplate.opsForSet().remove(NODE_USERS_KEY_PREFIX + current, userId.toString()));
+        });
+    }
+
+    // Nodes other than this one holding sockets for the user
+    public Flux<String> remoteNodes(UUID userId) {
+        return redisTemplate.opsForSet().members(PRESENCE_KEY_PREFIX + userId)
+                .map(RealTimePresence::nodeOf)
+                .filter(node -> !node.equals(nodeId))
+                .distinct();
+    }
+
+    public Mono<Boolean> isConnected(UUID userId) {
+        return redisTemplate.opsForSet().size(PRESENCE_KEY_PREFIX + userId).map(count -> count > 0);
+    }
+
+    @PostConstruct
+    public void register() {
+        heartbeat();
+    }
+
+    @Scheduled(fixedDelayString = "${notification.real-time.heartbeat-interval-seconds:10}", timeUnit = TimeUnit.SECONDS)
+    public void heartbeat() {
+        if (!heartbeating.compareAndSet(false, true)) {
+            return;
+        }
+
+        String current = member;
+        redisTemplate.opsForZSet().add(NODES_KEY, current, System.currentTimeMillis())
+                .flatMap(added -> Boolean.TRUE.equals(added) && registered ? rejoin(current) : Mono.empty())
+                .then(Mono.fromRunnable(() -> registered = true))
+                .then(reapDeadNodes())
+                .doFinally(signalType -> heartbeating.set(false))
+                .subscribe(
+                        unused -> {},
+                        error -> log.warn("Real-time presence heartbeat failed: {}", error.getMessage())
+                );
+    }
+
+    @PreDestroy
+    public void deregister() {
+        // Leave cleanly so other nodes stop publishing to us without waiting for the timeout
+        Mono.defer(() -> removeNode(member))
+                .timeout(Duration.ofSeconds(5))
+                .onErrorResume(error -> {
+                    log.warn("Failed to remove real-time presence of node {}: {}", nodeId, error.getMessage());
+                    return Mono.empty();
+                })
+                .block();
+    }
+
+    // A missing node entry means we were reaped (e.g. after a long pause) and a reaper may still be
+    // removing it, so our users are recorded again under a new generation and the old one is removed
+    private Mono<Void> rejoin(String reaped) {
+        String next = member(generation.incrementAndGet());
+        member = next;
+
+        log.info("Re-registering real-time presence for {} users as {}", sessionRegistry.getUserCount(), next);
+        return redisTemplate.opsForZSet().add(NODES_KEY, next, System.currentTimeMillis())
+                .thenMany(Flux.fromIterable(sessionRegistry.getUserIds()))
+                .flatMap(userId -> join(userId, next), 64)
+                .then(removeNode(reaped));
+    }
+
+    private Mono<Void> join(UUID userId, String node) {
+        return Mono.when(
+                redisTemplate.opsForSet().add(PRESENCE_KEY_PREFIX + userId, node),
+                redisTemplate.opsForSet().add(NODE_USERS_KEY_PREFIX + node, userId.toString()));
+    }
+
+    private Mono<Void> reapDeadNodes() {
+        Range<Double> dead = Range.closed(0d, (double) (System.currentTimeMillis() - nodeTimeoutMillis));
+
+        return redisTemplate.opsForZSet().rangeByScore(NODES_KEY, dead)
+                // ZREM decides which node performs the cleanup
+                .flatMap(deadNode -> redisTemplate.opsForZSet().remove(NODES_KEY, deadNode)
+                        .filter(removed -> removed > 0)
+                        .flatMap(removed -> {
+                            log.warn("Real-time node {} stopped sending heartbeats, removing its presence", nodeOf(deadNode));
+                            return removeNode(deadNode);
+                        }))
+                .then();
+    }
+
+    private Mono<Void> removeNode(String node) {
+        String nodeUsersKey = NODE_USERS_KEY_PREFIX + node;
+
+        return redisTemplate.opsForSet().scan(nodeUsersKey, ScanOptions.scanOptions().count(REAP_BATCH_SIZE).build())
+                .flatMap(userId -> redisTemplate.opsForSet().remove(PRESENCE_KEY_PREFIX + userId, node), REAP_BATCH_SIZE)
+                .then(redisTemplate.delete(nodeUsersKey))
+                .then(redisTemplate.opsForZSet().remove(NODES_KEY, node))
+                .then();
+    }
+
+    private String member(long nodeGeneration) {
+        return nodeId + GENERATION_SEPARATOR + nodeGeneration;
+    }
+
+    private static String nodeOf(String member) {
+        int separator = member.lastIndexOf(GENERATION_SEPARATOR);
+        return separator < 0 ? member : member.substring(0, separator);
+    }
+}
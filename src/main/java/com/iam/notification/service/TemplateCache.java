@@ -0,0 +1,130 @@
+package com.iam.notification.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.iam.notification.config.NotificationConfig;
+import com.iam.notification.model.NotificationTemplate;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+@Component
+@Slf4j
+public class TemplateCache {
+
+    private static final String CACHE_KEY_PREFIX = "notification:template:";
+    private static final String INVALIDATION_CHANNEL = "notification:templates:invalidate";
+
+    private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final CompiledTemplateStore compiledTemplates;
+    private final boolean enabled;
+    private final Duration ttl;
+    private final AsyncCache<String, NotificationTemplate> localCache;
+
+    private Disposable invalidationListener;
+
+    public TemplateCache(ReactiveRedisTemplate<String, String> redisTemplate,
+                         ObjectMapper objectMapper,
+                         CompiledTemplateStore compiledTemplates,
+                         NotificationConfig notificationConfig) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.compiledTemplates = compiledTemplates;
+        this.enabled = notificationConfig.getTemplate().isCacheEnabled();
+        this.ttl = Duration.ofMinutes(notificationConfig.getTemplate().getCacheTtlMinutes());
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(notificationConfig.getTemplate().getCacheMaxSize())
+                .expireAfterWrite(ttl)
+                .buildAsync();
+    }
+
+    // Keys are <name>:<type>:<requested language>
+    public static String templatePrefix(String templateName, String templateType) {
+        return templateName + ":" + templateType + ":";
+    }
+
+    @PostConstruct
+    public void listenForInvalidations() {
+        invalidationListener = redisTemplate.listenToChannel(INVALIDATION_CHANNEL)
+                .doOnNext(message -> evictLocal(message.getMessage()))
+                .doOnError(error -> {
+                    // Messages may have been missed while disconnected
+                    log.warn("Template invalidation channel failed, clearing cache: {}", error.getMessage());
+                    localCache.synchronous().invalidateAll();
+                })
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stopListening() {
+        if (invalidationListener != null) {
+            invalidationListener.dispose();
+        }
+    }
+
+    public Mono<NotificationTemplate> get(String key, Supplier<Mono<NotificationTemplate>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        // Concurrent misses for the same key share a single in-flight load. Cancelling one
+        // subscriber must not cancel the shared future the others are waiting on.
+        return Mono.fromFuture(() -> localCache.get(key, (cacheKey, executor) ->
+                getFromRedis(cacheKey)
+                        .switchIfEmpty(Mono.defer(loader)
+                                .flatMap(template -> putInRedis(cacheKey, template).thenReturn(template)))
+                        .toFuture()), true);
+    }
+
+    // Evicts every language of a template here, in Redis and, through the channel, on the other replicas
+    public Mono<Void> evictTemplate(String templateName, String templateType) {
+        String prefix = templatePrefix(templateName, templateType);
+        evictLocal(prefix);
+
+        return redisTemplate.scan(ScanOptions.scanOptions().match(CACHE_KEY_PREFIX + prefix + "*").count(100).build())
+                .buffer(100)
+                .concatMap(keys -> redisTemplate.delete(keys.toArray(String[]::new)))
+                .then(redisTemplate.convertAndSend(INVALIDATION_CHANNEL, prefix))
+                .then()
+                .onErrorResume(error -> {
+                    log.warn("Failed to invalidate template {} everywhere: {}", prefix, error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private void evictLocal(String prefix) {
+        localCache.synchronous().asMap().keySet().removeIf(key -> key.startsWith(prefix));
+        compiledTemplates.invalidate(prefix);
+    }
+
+    private Mono<NotificationTemplate> getFromRedis(String key) {
+        return redisTemplate.opsForValue().get(CACHE_KEY_PREFIX + key)
+                .flatMap(json -> Mono.fromCallable(() -> objectMapper.readValue(json, NotificationTemplate.class)))
+                .onErrorResume(error -> {
+                    log.warn("Ignoring unreadable cached template {}: {}", key, error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> putInRedis(String key, NotificationTemplate template) {
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(template))
+                .flatMap(json -> redisTemplate.opsForValue().set(CACHE_KEY_PREFIX + key, json, ttl))
+                .then()
+                .onErrorResume(error -> {
+                    log.warn("Failed to cache template {}: {}", key, error.getMessage());
+                    return Mono.empty();
+                });
+    }
+}
@@ -1,19 +1,21 @@
 package com.iam.notification.service;
 
 import com.iam.notification.dto.ProcessedTemplate;
+import com.iam.notification.dto.SaveTemplateRequest;
 import com.iam.notification.model.NotificationTemplate;
 import com.iam.notification.provider.TemplateStorageProvider;
 import com.iam.notification.repository.NotificationTemplateRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
 import reactor.core.publisher.Mono;
 
-import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -22,11 +24,8 @@ public class TemplateService {
 
     private final NotificationTemplateRepository templateRepository;
     private final TemplateStorageProvider templateStorageProvider;
-    private final ReactiveRedisTemplate<String, String> redisTemplate;
-    private final TemplateEngine templateEngine;
-
-    private static final String TEMPLATE_CACHE_KEY = "template:";
-    private static final Duration CACHE_TTL = Duration.ofHours(1);
+    private final TemplateCache templateCache;
+    private final CompiledTemplateStore compiledTemplates;
 
     public Mono<ProcessedTemplate> processEmailTemplate(String templateName, Map<String, Object> variables, String language) {
         log.debug("Processing email template: {} for language: {}", templateName, language);
@@ -40,79 +39,157 @@ public class TemplateService {
                 });
     }
 
+    // Errors propagate: bulk delivery leaves the batch pending rather than sending a generic message
+    public Mono<CohortTemplate> processEmailCohort(String templateName, Map<String, Object> variables, String language,
+                                                   Set<String> recipientVariables) {
+        return getTemplate(templateName, "EMAIL", language)
+                .map(template -> compileCohort(template, variables != null ? variables : Map.of(), recipientVariables))
+                .doOnError(throwable -> log.error("Failed to process template {}: {}", templateName, throwable.getMessage()));
+    }
+
     public Mono<String> processSmsTemplate(String templateName, Map<String, Object> variables, String language) {
         return getTemplate(templateName, "SMS", language)
-                .map(template -> processTextTemplate(template.getBodyText(), variables))
+                .map(template -> processTextTemplate(template, variables))
                 .doOnSuccess(processed -> log.debug("SMS template {} processed successfully", templateName));
     }
 
+    public Mono<NotificationTemplate> saveTemplate(String templateName, SaveTemplateRequest request) {
+        String language = request.getLanguage() != null ? request.getLanguage() : "en";
+
+        return templateRepository.findByTemplateNameAndTemplateTypeAndLanguage(templateName, request.getTemplateType(), language)
+                .defaultIfEmpty(NotificationTemplate.builder()
+                        .templateName(templateName)
+                        .templateType(request.getTemplateType())
+                        .language(language)
+                        .createdAt(LocalDateTime.now())
+                        .createdBy(request.getUpdatedBy())
+                        .build())
+                .flatMap(template -> {
+                    template.setSubject(request.getSubject());
+                    template.setBodyHtml(request.getBodyHtml());
+                    template.setBodyText(request.getBodyText());
+                    template.setVariables(request.getVariables());
+                    if (request.getIsActive() != null) {
+                        template.setIsActive(request.getIsActive());
+                    }
+                    template.setUpdatedAt(LocalDateTime.now());
+                    template.setUpdatedBy(request.getUpdatedBy());
+
+                    return templateRepository.save(template);
+                })
+                .flatMap(saved -> invalidateTemplate(templateName, saved.getTemplateType()).thenReturn(saved));
+    }
+
+    // Every language is evicted, since a language without its own row caches the fallback under its key
+    public Mono<Void> invalidateTemplate(String templateName, String templateType) {
+        return templateCache.evictTemplate(templateName, templateType);
+    }
+
+    public Mono<CohortTemplate> processSmsCohort(String templateName, Map<String, Object> variables, String language) {
+        Map<String, Object> shared = variables != null ? variables : Map.of();
+
+        // SMS bodies take the placeholder fast path, so rendering per recipient is already cheap
+        return getTemplate(templateName, "SMS", language)
+                .map(template -> new CohortTemplate(recipientValues ->
+                        buildProcessed(template, "", "", merge(shared, recipientValues))));
+    }
+
     private Mono<NotificationTemplate> getTemplate(String templateName, String type, String language) {
-        String cacheKey = TEMPLATE_CACHE_KEY + templateName + ":" + type + ":" + language;
+        return templateCache.get(cacheKey(templateName, type, language), () -> loadTemplate(templateName, type, language));
+    }
+
+    private String cacheKey(String templateName, String type, String language) {
+        return TemplateCache.templatePrefix(templateName, type) + language;
+    }
 
-        // Try cache first
-        return redisTemplate.opsForValue().get(cacheKey)
-                .cast(NotificationTemplate.class)
+    private Mono<NotificationTemplate> loadTemplate(String templateName, String type, String language) {
+        return templateRepository.findByTemplateNameAndTemplateTypeAndLanguage(templateName, type, language)
                 .switchIfEmpty(
-                        // Cache miss - get from database
-                        templateRepository.findByTemplateNameAndTemplateTypeAndLanguage(templateName, type, language)
-                                .switchIfEmpty(
-                                        // Fallback to English if language-specific template not found
-                                        templateRepository.findByTemplateNameAndTemplateTypeAndLanguage(templateName, type, "en")
-                                                .doOnNext(template -> log.debug("Using English fallback for template: {}", templateName))
-                                )
-                                .switchIfEmpty(
-                                        // Fallback to storage provider
-                                        templateStorageProvider.getTemplate(templateName, language)
-                                                .map(content -> NotificationTemplate.builder()
-                                                        .templateName(templateName)
-                                                        .templateType(type)
-                                                        .bodyHtml(content)
-                                                        .language(language)
-                                                        .build())
-                                )
-                                .flatMap(template ->
-                                        // Cache the result
-                                        redisTemplate.opsForValue()
-                                                .set(cacheKey, template.toString(), CACHE_TTL)
-                                                .thenReturn(template)
-                                )
+                        // Fallback to English if language-specific template not found
+                        templateRepository.findByTemplateNameAndTemplateTypeAndLanguage(templateName, type, "en")
+                                .doOnNext(template -> log.debug("Using English fallback for template: {}", templateName))
+                )
+                .switchIfEmpty(
+                        // Fallback to storage provider
+                        templateStorageProvider.getTemplate(templateName, language)
+                                .map(content -> NotificationTemplate.builder()
+                                        .templateName(templateName)
+                                        .templateType(type)
+                                        .bodyHtml(content)
+                                        .language(language)
+                                        .build())
                 );
     }
 
     private Mono<ProcessedTemplate> processTemplate(NotificationTemplate template, Map<String, Object> variables) {
-        return Mono.fromCallable(() -> {
-            Context context = new Context();
-            if (variables != null) {
-                variables.forEach(context::setVariable);
-            }
-
-            String processedSubject = template.getSubject() != null ?
-                    templateEngine.process(template.getSubject(), context) : "";
-
-            String processedHtml = template.getBodyHtml() != null ?
-                    templateEngine.process(template.getBodyHtml(), context) : "";
-
-            String processedText = template.getBodyText() != null ?
-                    templateEngine.process(template.getBodyText(), context) : "";
-
-            return ProcessedTemplate.builder()
-                    .subject(processedSubject)
-                    .bodyHtml(processedHtml)
-                    .bodyText(processedText)
-                    .templateName(template.getTemplateName())
-                    .language(template.getLanguage())
-                    .build();
-        });
-    }
-
-    private String processTextTemplate(String template, Map<String, Object> variables) {
-        if (template == null || variables == null) {
-            return template;
-        }
+        return Mono.fromCallable(() -> renderTemplate(template, variables != null ? variables : Map.of()));
+    }
 
+    private ProcessedTemplate renderTemplate(NotificationTemplate template, Map<String, Object> variables) {
         Context context = new Context();
         variables.forEach(context::setVariable);
-        return templateEngine.process(template, context);
+
+        String processedSubject = template.getSubject() != null ?
+                compiledTemplates.render(template, "subject", template.getSubject(), context) : "";
+
+        String processedHtml = template.getBodyHtml() != null ?
+                compiledTemplates.render(template, "html", template.getBodyHtml(), context) : "";
+
+        return buildProcessed(template, processedSubject, processedHtml, variables);
+    }
+
+    private CohortTemplate compileCohort(NotificationTemplate template, Map<String, Object> variables,
+                                         Set<String> recipientVariables) {
+        // Render the shared part once, with markers standing in for per-recipient variables
+        Context context = new Context();
+        variables.forEach(context::setVariable);
+        recipientVariables.forEach(name -> context.setVariable(name, PlaceholderTemplate.marker(name)));
+
+        Optional<PlaceholderTemplate> subject = splice(template, "subject", template.getSubject(), context);
+        Optional<PlaceholderTemplate> html = splice(template, "html", template.getBodyHtml(), context);
+
+        if (subject.isEmpty() || html.isEmpty()) {
+            log.debug("Template {} transforms per-recipient variables, rendering each recipient separately",
+                    template.getTemplateName());
+            return new CohortTemplate(recipientValues -> renderTemplate(template, merge(variables, recipientValues)));
+        }
+
+        return new CohortTemplate(recipientValues -> buildProcessed(template,
+                subject.get().render(recipientValues),
+                html.get().render(recipientValues),
+                merge(variables, recipientValues)));
+    }
+
+    private Optional<PlaceholderTemplate> splice(NotificationTemplate template, String part, String source, Context context) {
+        return PlaceholderTemplate.splice(source != null ? compiledTemplates.render(template, part, source, context) : "");
+    }
+
+    private ProcessedTemplate buildProcessed(NotificationTemplate template, String subject, String html,
+                                             Map<String, Object> variables) {
+        String processedText = template.getBodyText() != null ?
+                compiledTemplates.renderText(template, "text", template.getBodyText(), variables) : "";
+
+        return ProcessedTemplate.builder()
+                .subject(subject)
+                .bodyHtml(html)
+                .bodyText(processedText)
+                .templateName(template.getTemplateName())
+                .language(template.getLanguage())
+                .build();
+    }
+
+    private Map<String, Object> merge(Map<String, Object> variables, Map<String, Object> recipientValues) {
+        Map<String, Object> merged = new HashMap<>(variables);
+        merged.putAll(recipientValues);
+        return merged;
+    }
+
+    private String processTextTemplate(NotificationTemplate template, Map<String, Object> variables) {
+        if (template.getBodyText() == null || variables == null) {
+            return template.getBodyText();
+        }
+
+        return compiledTemplates.renderText(template, "text", template.getBodyText(), variables);
     }
 
     private Mono<ProcessedTemplate> getDefaultErrorTemplate(String templateName, String language) {
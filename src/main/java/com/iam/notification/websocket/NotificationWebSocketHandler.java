@@ -5,6 +5,7 @@ import com.iam.common.jwt.JwtTokenProvider;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.socket.CloseStatus;
 import org.springframework.web.reactive.socket.WebSocketHandler;
 import org.springframework.web.reactive.socket.WebSocketSession;
 import reactor.core.publisher.Mono;
@@ -22,20 +23,24 @@ public class NotificationWebSocketHandler implements WebSocketHandler {
 
     @Override
     public Mono<Void> handle(WebSocketSession session) {
-        log.info("WebSocket connection attempt from: {}", session.getRemoteAddress());
+        log.info("WebSocket connection attempt from: {}", session.getHandshakeInfo().getRemoteAddress());
 
         return authenticateSession(session)
                 .flatMap(userId -> {
-                    log.info("User {} connected to real-time notifications", userId);
-                    realTimeService.addUserSession(userId, session);
+                    RealTimeSession realTimeSession = realTimeService.addUserSession(userId, session);
+                    if (realTimeSession == null) {
+                        log.warn("Rejecting WebSocket connection for user {}: connection limit reached", userId);
+                        return session.close(CloseStatus.SERVICE_OVERLOAD);
+                    }
 
-                    return session.receive()
+                    // A single send() drains the session's buffer; closing the inbound side ends it
+                    Mono<Void> inbound = session.receive()
                             .doOnNext(message -> log.debug("Received WebSocket message from user {}: {}", userId, message.getPayloadAsText()))
                             .then()
-                            .doFinally(signalType -> {
-                                log.info("User {} disconnected from real-time notifications", userId);
-                                realTimeService.removeUserSession(userId);
-                            });
+                            .doFinally(signalType -> realTimeSession.complete());
+
+                    return Mono.when(session.send(realTimeSession.outbound()), inbound)
+                            .doFinally(signalType -> realTimeService.removeUserSession(realTimeSession));
                 })
                 .onErrorResume(error -> {
                     log.warn("WebSocket authentication failed: {}", error.getMessage());
@@ -0,0 +1,119 @@
+package com.iam.notification.websocket;
+
+import com.iam.notification.dto.BroadcastResult;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Fans one pre-serialized frame out to every local socket. The payload is written once into a
+// pooled direct buffer and each socket gets a retained duplicate of it, so per-socket cost is a
+// small wrapper object and a queue offer; the actual writes run on each channel's event loop.
+@Component
+@Slf4j
+public class RealTimeBroadcaster {
+
+    private static final int CHUNK_SIZE = 1024;
+
+    private final RealTimeSessionRegistry sessionRegistry;
+
+    public RealTimeBroadcaster(RealTimeSessionRegistry sessionRegistry) {
+        this.sessionRegistry = sessionRegistry;
+    }
+
+    public Mono<BroadcastResult> broadcast(byte[] payload) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            SharedFrame shared = new SharedFrame(PooledByteBufAllocator.DEFAULT.directBuffer(payload.length).writeBytes(payload));
+
+            List<RealTimeSession> targets = new ArrayList<>(sessionRegistry.getSessionCount());
+            sessionRegistry.forEachSession(targets::add);
+
+            AtomicInteger delivered = new AtomicInteger();
+            AtomicInteger dropped = new AtomicInteger();
+            AtomicInteger closed = new AtomicInteger();
+
+            // Chunks are offered in parallel, at most one per CPU at a time. A cancelled broadcast
+            // lets running chunks finish with the buffer and skips the ones not yet started
+            return Flux.range(0, (targets.size() + CHUNK_SIZE - 1) / CHUNK_SIZE)
+                    .flatMap(chunk -> Mono.fromRunnable(() -> {
+                        if (!shared.acquire()) {
+                            return;
+                        }
+                        try {
+                            int end = Math.min(targets.size(), (chunk + 1) * CHUNK_SIZE);
+                            for (RealTimeSession session : targets.subList(chunk * CHUNK_SIZE, end)) {
+                                if (!session.isOpen()) {
+                                    closed.incrementAndGet();
+                                } else if (session.offer(frame(session, shared.buffer, payload))) {
+                                    delivered.incrementAndGet();
+                                } else {
+                                    dropped.incrementAndGet();
+                                }
+                            }
+                        } finally {
+                            shared.release();
+                        }
+                    }).subscribeOn(Schedulers.parallel()), Schedulers.DEFAULT_POOL_SIZE)
+                    .then(Mono.fromSupplier(() -> BroadcastResult.builder()
+                            .sessions(targets.size())
+                            .delivered(delivered.get())
+                            .dropped(dropped.get())
+                            .closed(closed.get())
+                            .durationMs((System.nanoTime() - start) / 1_000_000)
+                            .build()))
+                    .doFinally(signalType -> shared.release())
+                    .doOnNext(result -> log.info("Broadcast to {} sockets: {} delivered, {} dropped, {} closed in {} ms",
+                            result.getSessions(), result.getDelivered(), result.getDropped(), result.getClosed(),
+                            result.getDurationMs()));
+        });
+    }
+
+    private WebSocketMessage frame(RealTimeSession session, ByteBuf shared, byte[] payload) {
+        DataBufferFactory bufferFactory = session.getSession().bufferFactory();
+        DataBuffer buffer = bufferFactory instanceof NettyDataBufferFactory nettyFactory
+                ? nettyFactory.wrap(shared.retainedDuplicate())
+                : bufferFactory.wrap(payload); // wraps without copying
+        return new WebSocketMessage(WebSocketMessage.Type.TEXT, buffer);
+    }
+
+    // Held by the broadcast and by each running chunk; the buffer is released by whichever lets
+    // go last, so a cancelled broadcast never frees it under a chunk still taking duplicates
+    private static final class SharedFrame {
+        private final ByteBuf buffer;
+        private final AtomicInteger holders = new AtomicInteger(1);
+
+        private SharedFrame(ByteBuf buffer) {
+            this.buffer = buffer;
+        }
+
+        // False once the broadcast and every chunk have let go
+        private boolean acquire() {
+            int current;
+            do {
+                current = holders.get();
+                if (current == 0) {
+                    return false;
+                }
+            } while (!holders.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        private void release() {
+            if (holders.decrementAndGet() == 0) {
+                buffer.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.iam.notification.websocket;
+
+import lombok.Getter;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+
+// One connected socket. Outbound messages go through a bounded buffer drained by a single
+// session.send(), so a slow client drops its own messages instead of holding memory or threads.
+public class RealTimeSession {
+
+    @Getter
+    private final UUID userId;
+    @Getter
+    private final WebSocketSession session;
+    private final Sinks.Many<WebSocketMessage> outbound;
+    private long dropped;
+
+    RealTimeSession(UUID userId, WebSocketSession session, int bufferSize) {
+        this.userId = userId;
+        this.session = session;
+        this.outbound = Sinks.many().unicast().onBackpressureBuffer(new ArrayBlockingQueue<>(bufferSize));
+    }
+
+    public String getId() {
+        return session.getId();
+    }
+
+    public boolean isOpen() {
+        return session.isOpen();
+    }
+
+    public boolean offer(String text) {
+        return offer(session.textMessage(text));
+    }
+
+    // Returns false if the message was dropped because the buffer is full or the session closed
+    public synchronized boolean offer(WebSocketMessage message) {
+        Sinks.EmitResult result = outbound.tryEmitNext(message);
+        if (result.isSuccess()) {
+            return true;
+        }
+
+        // Release the payload of a message that will never be written
+        message.release();
+        if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+            dropped++;
+        }
+        return false;
+    }
+
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    Flux<WebSocketMessage> outbound() {
+        return outbound.asFlux();
+    }
+
+    synchronized void complete() {
+        outbound.tryEmitComplete();
+    }
+}
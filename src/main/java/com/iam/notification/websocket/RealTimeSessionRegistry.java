@@ -0,0 +1,114 @@
+package com.iam.notification.websocket;
+
+import com.iam.notification.config.NotificationConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.socket.WebSocketSession;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Sessions per user. Each user maps to a small copy-on-write array updated under that key's
+// ConcurrentHashMap bin lock, so lookups and fan-out never lock or allocate.
+@Component
+@Slf4j
+public class RealTimeSessionRegistry {
+
+    private static final RealTimeSession[] NO_SESSIONS = new RealTimeSession[0];
+
+    private final Map<UUID, RealTimeSession[]> sessionsByUser = new ConcurrentHashMap<>();
+    private final AtomicInteger sessionCount = new AtomicInteger();
+    private final int maxConnections;
+    private final int bufferSize;
+
+    public RealTimeSessionRegistry(NotificationConfig notificationConfig) {
+        this.maxConnections = notificationConfig.getRealTime().getMaxConnections();
+        this.bufferSize = notificationConfig.getRealTime().getSessionBufferSize();
+    }
+
+    // Returns null when the node is already holding its maximum number of sockets
+    public RealTimeSession register(UUID userId, WebSocketSession session) {
+        if (sessionCount.incrementAndGet() > maxConnections) {
+            sessionCount.decrementAndGet();
+            return null;
+        }
+
+        RealTimeSession realTimeSession = new RealTimeSession(userId, session, bufferSize);
+        sessionsByUser.merge(userId, new RealTimeSession[] {realTimeSession}, (existing, added) -> {
+            RealTimeSession[] sessions = Arrays.copyOf(existing, existing.length + 1);
+            sessions[existing.length] = realTimeSession;
+            return sessions;
+        });
+        return realTimeSession;
+    }
+
+    // Removes only this session; the user's other devices stay connected. Returns true when
+    // this was the user's last session on this node.
+    public boolean unregister(RealTimeSession realTimeSession) {
+        realTimeSession.complete();
+
+        boolean[] removed = new boolean[1];
+        sessionsByUser.computeIfPresent(realTimeSession.getUserId(), (userId, existing) -> {
+            int index = indexOf(existing, realTimeSession);
+            if (index < 0) {
+                return existing;
+            }
+
+            removed[0] = true;
+            if (existing.length == 1) {
+                return null;
+            }
+            RealTimeSession[] sessions = new RealTimeSession[existing.length - 1];
+            System.arraycopy(existing, 0, sessions, 0, index);
+            System.arraycopy(existing, index + 1, sessions, index, existing.length - index - 1);
+            return sessions;
+        });
+
+        if (removed[0]) {
+            sessionCount.decrementAndGet();
+            if (realTimeSession.getDropped() > 0) {
+                log.warn("Session {} of user {} dropped {} messages on a full buffer",
+                        realTimeSession.getId(), realTimeSession.getUserId(), realTimeSession.getDropped());
+            }
+        }
+        return removed[0] && !sessionsByUser.containsKey(realTimeSession.getUserId());
+    }
+
+    public RealTimeSession[] getSessions(UUID userId) {
+        return sessionsByUser.getOrDefault(userId, NO_SESSIONS);
+    }
+
+    public Set<UUID> getUserIds() {
+        return sessionsByUser.keySet();
+    }
+
+    public void forEachSession(Consumer<RealTimeSession> action) {
+        for (RealTimeSession[] sessions : sessionsByUser.values()) {
+            for (RealTimeSession session : sessions) {
+                action.accept(session);
+            }
+        }
+    }
+
+    public int getUserCount() {
+        return sessionsByUser.size();
+    }
+
+    public int getSessionCount() {
+        return sessionCount.get();
+    }
+
+    private static int indexOf(RealTimeSession[] sessions, RealTimeSession target) {
+        for (int i = 0; i < sessions.length; i++) {
+            if (sessions[i] == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
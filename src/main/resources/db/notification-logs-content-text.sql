@@ -0,0 +1,4 @@
+-- Keeps the plain-text part of failed emails so retries resend both parts.
+-- Run before deploying the version that writes content_text; on a partitioned
+-- notification_logs the column is added to every partition.
+ALTER TABLE notification_logs ADD COLUMN IF NOT EXISTS content_text TEXT;
@@ -0,0 +1,60 @@
+-- One-time migration of notification_logs to a table range-partitioned by created_at.
+-- Run during a maintenance window; NotificationLogPartitionManager creates and retires
+-- partitions once the table is partitioned. Existing rows stay in notification_logs_legacy,
+-- attached as the partition for everything before the cutover (the day after its newest row).
+-- The first daily or monthly partition starts at the cutover, and the legacy partition is
+-- retired once its newest rows are past the retention window.
+BEGIN;
+
+ALTER TABLE notification_logs RENAME TO notification_logs_legacy;
+ALTER TABLE notification_logs_legacy ALTER COLUMN created_at SET NOT NULL;
+
+CREATE TABLE notification_logs (
+    LIKE notification_logs_legacy INCLUDING DEFAULTS
+) PARTITION BY RANGE (created_at);
+
+-- The partition key must be part of the primary key
+ALTER TABLE notification_logs ADD PRIMARY KEY (log_id, created_at);
+CREATE INDEX idx_notification_logs_created_at ON notification_logs (created_at);
+CREATE INDEX idx_notification_logs_user_created ON notification_logs (user_id, created_at);
+CREATE INDEX idx_notification_logs_org_created ON notification_logs (organization_id, created_at);
+CREATE INDEX idx_notification_logs_status ON notification_logs (status);
+
+ALTER TABLE notification_logs_legacy DROP CONSTRAINT IF EXISTS notification_logs_pkey;
+ALTER TABLE notification_logs_legacy ADD PRIMARY KEY (log_id, created_at);
+
+-- The cutover is the day after the newest legacy row, so every existing row (today's included)
+-- fits the legacy bound and rows written for the rest of today go to the legacy partition too.
+-- The partitions after it are created here, so nothing written before the application's
+-- partition manager first runs lands in the default partition.
+-- Set partition_interval and partitions_ahead to notification.logs.partition-interval and
+-- notification.logs.partitions-ahead.
+DO $$
+DECLARE
+    partition_interval text := 'daily';
+    partitions_ahead int := 7;
+    step interval := CASE partition_interval WHEN 'monthly' THEN interval '1 month' ELSE interval '1 day' END;
+    cutover timestamp;
+    period_start timestamp;
+BEGIN
+    SELECT date_trunc('day', greatest(max(created_at), now()::timestamp)) + interval '1 day'
+    INTO cutover
+    FROM notification_logs_legacy;
+
+    EXECUTE format('ALTER TABLE notification_logs ATTACH PARTITION notification_logs_legacy '
+                   'FOR VALUES FROM (MINVALUE) TO (%L)', cutover);
+
+    -- Same names and bounds as NotificationLogPartitionManager: the period the cutover falls
+    -- in starts at the cutover
+    period_start := date_trunc(CASE partition_interval WHEN 'monthly' THEN 'month' ELSE 'day' END, cutover);
+    FOR i IN 0..partitions_ahead LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF notification_logs FOR VALUES FROM (%L) TO (%L)',
+                       'notification_logs_p' || to_char(period_start, CASE partition_interval WHEN 'monthly' THEN 'YYYYMM' ELSE 'YYYYMMDD' END),
+                       greatest(period_start, cutover), period_start + step);
+        period_start := period_start + step;
+    END LOOP;
+END $$;
+
+CREATE TABLE notification_logs_default PARTITION OF notification_logs DEFAULT;
+
+COMMIT;
@@ -0,0 +1,36 @@
+-- Pre-aggregated notification counts, maintained as logs are written.
+-- Run before deploying the version that reads stats from the rollups; re-running it is safe.
+CREATE TABLE IF NOT EXISTS notification_stats_rollups (
+    granularity     VARCHAR(10)  NOT NULL, -- MINUTE, HOUR
+    bucket_start    TIMESTAMP    NOT NULL,
+    dimension       VARCHAR(20)  NOT NULL, -- status, type, provider, template, organization
+    dimension_value VARCHAR(255) NOT NULL,
+    count           BIGINT       NOT NULL DEFAULT 0,
+    PRIMARY KEY (granularity, bucket_start, dimension, dimension_value)
+);
+
+-- Backfills the rollups from the existing notification_logs so stats cover rows written before
+-- them. It only runs while the table is still empty, so a second run never double-counts.
+-- Minute rollups are limited to the default 7 day retention; older ones would be pruned anyway.
+INSERT INTO notification_stats_rollups (granularity, bucket_start, dimension, dimension_value, count)
+SELECT granularity, bucket_start, dimension, dimension_value, count(*)
+FROM (
+    SELECT g.granularity,
+           date_trunc(g.unit, l.created_at) AS bucket_start,
+           d.dimension,
+           d.dimension_value
+    FROM notification_logs l
+    CROSS JOIN (VALUES ('MINUTE', 'minute'), ('HOUR', 'hour')) AS g (granularity, unit)
+    CROSS JOIN LATERAL (VALUES
+        ('status', l.status),
+        ('type', l.notification_type),
+        ('provider', l.provider),
+        ('template', l.template_name),
+        ('organization', l.organization_id::TEXT)
+    ) AS d (dimension, dimension_value)
+    WHERE l.created_at IS NOT NULL
+      AND d.dimension_value IS NOT NULL
+      AND (g.granularity = 'HOUR' OR l.created_at >= date_trunc('hour', now()::TIMESTAMP) - INTERVAL '7 days')
+      AND NOT EXISTS (SELECT 1 FROM notification_stats_rollups)
+) AS buckets
+GROUP BY granularity, bucket_start, dimension, dimension_value;
@@ -0,0 +1,124 @@
+package com.iam.notification.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.SdkHttpFullResponse;
+import software.amazon.awssdk.http.async.AsyncExecuteRequest;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.services.ses.SesAsyncClient;
+import software.amazon.awssdk.services.ses.model.SendEmailRequest;
+import software.amazon.awssdk.services.sns.SnsAsyncClient;
+import software.amazon.awssdk.services.sns.model.PublishRequest;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AwsConfigTest {
+
+    private static final String SES_RESPONSE = """
+            <SendEmailResponse xmlns="http://ses.amazonaws.com/doc/2010-12-01/">
+              <SendEmailResult><MessageId>ses-1</MessageId></SendEmailResult>
+            </SendEmailResponse>""";
+    private static final String SNS_RESPONSE = """
+            <PublishResponse xmlns="http://sns.amazonaws.com/doc/2010-03-31/">
+              <PublishResult><MessageId>sns-1</MessageId></PublishResult>
+            </PublishResponse>""";
+
+    private final AwsConfig awsConfig = new AwsConfig();
+    private final NotificationConfig notificationConfig = new NotificationConfig();
+    private final AwsCredentialsProvider credentials = StaticCredentialsProvider.create(AwsBasicCredentials.create("key", "secret"));
+
+    // Stands in for the shared Netty client: answers on its own "event loop" once the test lets it
+    private final SdkAsyncHttpClient sharedHttpClient = mock(SdkAsyncHttpClient.class);
+    private final ExecutorService eventLoop = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "fake-event-loop"));
+    private final CountDownLatch respond = new CountDownLatch(1);
+    private final List<String> requestedHosts = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(awsConfig, "awsRegion", "us-east-1");
+        when(sharedHttpClient.clientName()).thenReturn("NettyNio");
+        when(sharedHttpClient.execute(any(AsyncExecuteRequest.class))).thenAnswer(invocation -> {
+            AsyncExecuteRequest request = invocation.getArgument(0);
+            requestedHosts.add(request.request().host());
+            String body = request.request().host().startsWith("email") ? SES_RESPONSE : SNS_RESPONSE;
+
+            CompletableFuture<Void> exchange = new CompletableFuture<>();
+            eventLoop.execute(() -> {
+                try {
+                    respond.await(5, TimeUnit.SECONDS);
+                    request.responseHandler().onHeaders(SdkHttpFullResponse.builder().statusCode(200).build());
+                    request.responseHandler().onStream(Flux.just(ByteBuffer.wrap(body.getBytes(StandardCharsets.UTF_8))));
+                    exchange.complete(null);
+                } catch (Exception e) {
+                    exchange.completeExceptionally(e);
+                }
+            });
+            return exchange;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        eventLoop.shutdownNow();
+    }
+
+    @Test
+    void sesAndSnsSendThroughTheSharedClientAndLeaveItOpen() throws Exception {
+        respond.countDown();
+
+        try (SesAsyncClient ses = awsConfig.sesAsyncClient(credentials, sharedHttpClient, notificationConfig);
+             SnsAsyncClient sns = awsConfig.snsAsyncClient(credentials, sharedHttpClient, notificationConfig)) {
+            assertThat(ses.sendEmail(SendEmailRequest.builder().source("noreply@example.com").build())
+                    .get(5, TimeUnit.SECONDS).messageId()).isEqualTo("ses-1");
+            assertThat(sns.publish(PublishRequest.builder().phoneNumber("+15551234567").message("Hi").build())
+                    .get(5, TimeUnit.SECONDS).messageId()).isEqualTo("sns-1");
+        }
+
+        assertThat(requestedHosts).containsExactly("email.us-east-1.amazonaws.com", "sns.us-east-1.amazonaws.com");
+        // The pool is a bean shared by every client, so closing one client must not close it
+        verify(sharedHttpClient, never()).close();
+    }
+
+    @Test
+    void completesOnTheEventLoopByDefault() throws Exception {
+        assertThat(completionThread()).isEqualTo("fake-event-loop");
+    }
+
+    @Test
+    void hopsToTheSdkExecutorWhenConfigured() throws Exception {
+        notificationConfig.getAwsHttp().setCompleteOnEventLoop(false);
+
+        assertThat(completionThread()).startsWith("sdk-async-response");
+    }
+
+    // The thread that runs a stage chained on the SDK future
+    private String completionThread() throws Exception {
+        try (SesAsyncClient ses = awsConfig.sesAsyncClient(credentials, sharedHttpClient, notificationConfig)) {
+            CompletableFuture<String> thread = ses.sendEmail(SendEmailRequest.builder().source("noreply@example.com").build())
+                    .thenApply(response -> Thread.currentThread().getName());
+            respond.countDown();
+            return thread.get(5, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.iam.notification.provider;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProviderRateLimiterTest {
+
+    @Test
+    void delaysCallsOverTheRate() {
+        ProviderRateLimiter limiter = new ProviderRateLimiter(10, 1, 0);
+
+        long start = System.nanoTime();
+        limiter.execute(() -> Mono.just(1)).block();
+        limiter.execute(() -> Mono.just(2)).block();
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertThat(elapsedMillis).isGreaterThanOrEqualTo(90);
+    }
+
+    @Test
+    void chargesACallOneSlotPerMessage() {
+        ProviderRateLimiter limiter = new ProviderRateLimiter(10, 1, 0);
+
+        long start = System.nanoTime();
+        // Five messages at 10/s: the call goes once its last slot is due, 400ms out
+        limiter.execute(5, () -> Mono.just(1)).block();
+        long batchMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        limiter.execute(() -> Mono.just(2)).block();
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertThat(batchMillis).isBetween(350L, 480L);
+        assertThat(elapsedMillis).isGreaterThanOrEqualTo(480);
+    }
+
+    @Test
+    void refundsTheSlotOfACallerCancelledWhileWaiting() {
+        ProviderRateLimiter limiter = new ProviderRateLimiter(2, 1, 0);
+        AtomicInteger calls = new AtomicInteger();
+
+        long start = System.nanoTime();
+        limiter.execute(() -> Mono.fromCallable(calls::incrementAndGet)).block();
+        // Reserves the slot 500ms out, then gives it back
+        Disposable cancelled = limiter.execute(() -> Mono.fromCallable(calls::incrementAndGet)).subscribe();
+        cancelled.dispose();
+
+        limiter.execute(() -> Mono.fromCallable(calls::incrementAndGet)).block();
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        // Without the refund the third call would wait for the slot after the cancelled one, at 1s
+        assertThat(calls).hasValue(2);
+        assertThat(elapsedMillis).isBetween(400L, 900L);
+    }
+
+    @Test
+    void releasesThePermitOfACallerCancelledWhileWaiting() {
+        ProviderRateLimiter limiter = new ProviderRateLimiter(0, 1, 1);
+
+        Disposable holder = limiter.execute(() -> Mono.never()).subscribe();
+        Disposable waiter = limiter.execute(() -> Mono.just(1)).subscribe();
+        waiter.dispose();
+        holder.dispose();
+
+        assertThat(limiter.execute(() -> Mono.just(2)).block(Duration.ofSeconds(1))).isEqualTo(2);
+    }
+
+    @Test
+    void keepsThePermitOfAWaiterCancelledAsItIsGranted() throws Exception {
+        for (int i = 0; i < 2000; i++) {
+            ProviderRateLimiter limiter = new ProviderRateLimiter(0, 1, 1);
+            Disposable holder = limiter.execute(() -> Mono.never()).subscribe();
+            Disposable waiter = limiter.execute(() -> Mono.never()).subscribe();
+
+            // Releasing the holder grants the waiter while the waiter is being cancelled
+            CountDownLatch start = new CountDownLatch(1);
+            Thread canceller = new Thread(() -> {
+                awaitQuietly(start);
+                waiter.dispose();
+            });
+            canceller.start();
+            start.countDown();
+            holder.dispose();
+            canceller.join();
+
+            // Exactly one permit is left: it is neither lost nor handed back twice
+            AtomicInteger calls = new AtomicInteger();
+            limiter.execute(() -> Mono.fromCallable(calls::incrementAndGet).then(Mono.never())).subscribe();
+            limiter.execute(() -> Mono.fromCallable(calls::incrementAndGet)).subscribe();
+            assertThat(calls).as("calls let through after iteration %d", i).hasValue(1);
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
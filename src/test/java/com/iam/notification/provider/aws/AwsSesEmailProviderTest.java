@@ -0,0 +1,124 @@
+package com.iam.notification.provider.aws;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iam.notification.dto.EmailRequest;
+import com.iam.notification.dto.NotificationResponse.Failure;
+import com.iam.notification.provider.ProviderRateLimiter;
+import com.iam.notification.provider.ProviderRateLimiterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.test.StepVerifier;
+import software.amazon.awssdk.services.ses.SesAsyncClient;
+import software.amazon.awssdk.services.ses.model.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AwsSesEmailProviderTest {
+
+    private final SesAsyncClient sesClient = mock(SesAsyncClient.class);
+    private final ProviderRateLimiterRegistry rateLimiters = mock(ProviderRateLimiterRegistry.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AwsSesEmailProvider provider = new AwsSesEmailProvider(sesClient, rateLimiters, objectMapper);
+
+    @BeforeEach
+    void setUp() {
+        when(rateLimiters.get("AWS_SES")).thenReturn(ProviderRateLimiter.unlimited());
+        when(sesClient.createTemplate(any(CreateTemplateRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(CreateTemplateResponse.builder().build()));
+    }
+
+    @Test
+    void sendsAChunkAsOneBulkCallWithSharedContentAsDefaultData() throws Exception {
+        bulkStatuses(BulkEmailStatus.SUCCESS, BulkEmailStatus.MESSAGE_REJECTED, BulkEmailStatus.ACCOUNT_THROTTLED);
+
+        StepVerifier.create(provider.sendBatch(List.of(request("a"), request("b"), request("c")), 4))
+                .assertNext(response -> {
+                    assertThat(response.isSuccess()).isTrue();
+                    assertThat(response.getProviderId()).isEqualTo("id-0");
+                })
+                .assertNext(response -> assertThat(response.getFailure()).isEqualTo(Failure.REJECTED))
+                .assertNext(response -> assertThat(response.getFailure()).isEqualTo(Failure.RETRYABLE))
+                .verifyComplete();
+
+        ArgumentCaptor<SendBulkTemplatedEmailRequest> sent = ArgumentCaptor.forClass(SendBulkTemplatedEmailRequest.class);
+        verify(sesClient).sendBulkTemplatedEmail(sent.capture());
+        verify(sesClient, never()).sendEmail(any(SendEmailRequest.class));
+
+        SendBulkTemplatedEmailRequest bulk = sent.getValue();
+        assertThat(bulk.template()).isEqualTo("iam-notification-passthrough-html-text");
+        assertThat(templateData(bulk.defaultTemplateData()))
+                .containsOnly(Map.entry("subject", "Maintenance"), Map.entry("html", "<p>Tonight</p>"));
+        assertThat(bulk.destinations()).hasSize(3);
+        assertThat(bulk.destinations().get(1).destination().toAddresses()).containsExactly("b@example.com");
+        assertThat(templateData(bulk.destinations().get(1).replacementTemplateData()))
+                .containsOnly(Map.entry("text", "Hi b"));
+    }
+
+    @Test
+    void splitsBatchesIntoCallsOfFiftyAndCreatesTheTemplateOnce() {
+        when(sesClient.sendBulkTemplatedEmail(any(SendBulkTemplatedEmailRequest.class))).thenAnswer(invocation -> {
+            SendBulkTemplatedEmailRequest bulk = invocation.getArgument(0);
+            return statuses(bulk.destinations().stream().map(destination -> BulkEmailStatus.SUCCESS).toArray(BulkEmailStatus[]::new));
+        });
+        List<EmailRequest> requests = IntStream.range(0, 120).mapToObj(i -> request("user" + i)).toList();
+
+        StepVerifier.create(provider.sendBatch(requests, 4)).expectNextCount(120).verifyComplete();
+
+        verify(sesClient, times(3)).sendBulkTemplatedEmail(any(SendBulkTemplatedEmailRequest.class));
+        verify(sesClient, times(1)).createTemplate(any(CreateTemplateRequest.class));
+    }
+
+    @Test
+    void sendsOneByOneWhenTheBulkTemplateCannotBeCreated() {
+        when(sesClient.createTemplate(any(CreateTemplateRequest.class)))
+                .thenReturn(CompletableFuture.failedFuture(SesException.builder().message("Access denied").statusCode(403).build()));
+        when(sesClient.sendEmail(any(SendEmailRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(SendEmailResponse.builder().messageId("single").build()));
+
+        StepVerifier.create(provider.sendBatch(List.of(request("a"), request("b")), 4))
+                .expectNextCount(2)
+                .verifyComplete();
+
+        verify(sesClient, times(2)).sendEmail(any(SendEmailRequest.class));
+        verify(sesClient, never()).sendBulkTemplatedEmail(any(SendBulkTemplatedEmailRequest.class));
+    }
+
+    private Map<String, String> templateData(String json) throws Exception {
+        return objectMapper.readValue(json, new TypeReference<>() {});
+    }
+
+    private void bulkStatuses(BulkEmailStatus... statuses) {
+        when(sesClient.sendBulkTemplatedEmail(any(SendBulkTemplatedEmailRequest.class))).thenReturn(statuses(statuses));
+    }
+
+    private static CompletableFuture<SendBulkTemplatedEmailResponse> statuses(BulkEmailStatus... statuses) {
+        return CompletableFuture.completedFuture(SendBulkTemplatedEmailResponse.builder()
+                .status(IntStream.range(0, statuses.length)
+                        .mapToObj(i -> BulkEmailDestinationStatus.builder().status(statuses[i]).messageId("id-" + i).build())
+                        .toList())
+                .build());
+    }
+
+    private static EmailRequest request(String user) {
+        return EmailRequest.builder()
+                .to(user + "@example.com")
+                .from("noreply@example.com")
+                .subject("Maintenance")
+                .bodyHtml("<p>Tonight</p>")
+                .bodyText("Hi " + user)
+                .build();
+    }
+}
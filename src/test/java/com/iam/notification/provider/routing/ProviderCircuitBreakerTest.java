@@ -0,0 +1,144 @@
+package com.iam.notification.provider.routing;
+
+import com.iam.notification.config.NotificationConfig;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProviderCircuitBreakerTest {
+
+    private final NotificationConfig.CircuitBreaker config = new NotificationConfig.CircuitBreaker();
+
+    ProviderCircuitBreakerTest() {
+        config.setWindowSize(10);
+        config.setMinimumCalls(4);
+        config.setFailureRateThreshold(50);
+        config.setSlowCallThresholdMs(1000);
+        config.setSlowCallRateThreshold(75);
+        config.setHalfOpenCalls(2);
+    }
+
+    @Test
+    void staysClosedBelowTheMinimumNumberOfCalls() {
+        ProviderCircuitBreaker breaker = breaker(30);
+
+        record(breaker, false, 3);
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.isHealthy()).isTrue();
+    }
+
+    @Test
+    void opensWhenTheFailureRateReachesTheThreshold() {
+        ProviderCircuitBreaker breaker = breaker(30);
+
+        record(breaker, true, 2);
+        record(breaker, false, 2);
+
+        assertThat(breaker.tryAcquire()).isFalse();
+        assertThat(breaker.isHealthy()).isFalse();
+    }
+
+    @Test
+    void opensWhenTheSlowCallRateReachesTheThreshold() {
+        ProviderCircuitBreaker breaker = breaker(30);
+
+        breaker.record(true, 10);
+        for (int i = 0; i < 3; i++) {
+            breaker.record(true, 1000);
+        }
+
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void onlyCountsTheMostRecentWindow() {
+        ProviderCircuitBreaker breaker = breaker(30);
+
+        record(breaker, true, 10);
+        record(breaker, false, 4); // pushes four successes out of the window: 4 of 10 failed
+        assertThat(breaker.tryAcquire()).isTrue();
+
+        breaker.record(false, 10); // 5 of 10 failed
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void admitsLimitedTrialCallsOnceTheOpenDurationHasPassed() {
+        ProviderCircuitBreaker breaker = breaker(0);
+        record(breaker, false, 4);
+
+        assertThat(breaker.isHealthy()).isTrue();
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void closesAfterEnoughSuccessfulTrialCalls() {
+        ProviderCircuitBreaker breaker = breaker(0);
+        record(breaker, false, 4);
+
+        breaker.tryAcquire();
+        breaker.tryAcquire();
+        record(breaker, true, 2);
+
+        // Closed with an empty window: three failures stay below the minimum number of calls
+        record(breaker, false, 3);
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void reopensWhenATrialCallFails() {
+        ProviderCircuitBreaker breaker = breaker(0);
+        record(breaker, false, 4);
+        breaker.tryAcquire();
+        breaker.record(true, 10);
+
+        breaker.tryAcquire();
+        breaker.record(false, 10);
+
+        // Open again with a fresh cool-down, which is zero here: a new set of trial calls
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void reopensWhenATrialCallIsSlow() {
+        ProviderCircuitBreaker breaker = breaker(0);
+        record(breaker, false, 4);
+        breaker.tryAcquire();
+
+        breaker.record(true, 1000);
+
+        // Still half-open would admit one more trial call; reopened admits a new set of two
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void givesBackATrialSlotWhenTheCallIsCancelled() {
+        ProviderCircuitBreaker breaker = breaker(0);
+        record(breaker, false, 4);
+        breaker.tryAcquire();
+        breaker.tryAcquire();
+        assertThat(breaker.tryAcquire()).isFalse();
+
+        breaker.release();
+
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    private ProviderCircuitBreaker breaker(int openDurationSeconds) {
+        config.setOpenDurationSeconds(openDurationSeconds);
+        return new ProviderCircuitBreaker("TEST", config);
+    }
+
+    private static void record(ProviderCircuitBreaker breaker, boolean success, int calls) {
+        for (int i = 0; i < calls; i++) {
+            breaker.record(success, 10);
+        }
+    }
+}
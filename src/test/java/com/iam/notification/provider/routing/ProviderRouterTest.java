@@ -0,0 +1,256 @@
+package com.iam.notification.provider.routing;
+
+import com.iam.notification.config.NotificationConfig;
+import com.iam.notification.dto.NotificationResponse;
+import com.iam.notification.dto.NotificationResponse.Failure;
+import com.iam.notification.provider.ProviderRateLimiter;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.net.ConnectException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProviderRouterTest {
+
+    private final NotificationConfig.CircuitBreaker config = new NotificationConfig.CircuitBreaker();
+
+    @Test
+    void failsOverOnRetryableFailure() {
+        FakeProvider primary = new FakeProvider("PRIMARY", () -> Mono.just(failed("PRIMARY", Failure.RETRYABLE)));
+        FakeProvider backup = new FakeProvider("BACKUP", () -> Mono.just(sent("BACKUP")));
+
+        StepVerifier.create(router(primary, backup).send(FakeProvider::send))
+                .assertNext(response -> assertThat(response.getProvider()).isEqualTo("BACKUP"))
+                .verifyComplete();
+    }
+
+    @Test
+    void failsOverWhenTheProviderCannotBeReached() {
+        FakeProvider primary = new FakeProvider("PRIMARY", () -> Mono.error(new ConnectException("Connection refused")));
+        FakeProvider backup = new FakeProvider("BACKUP", () -> Mono.just(sent("BACKUP")));
+
+        StepVerifier.create(router(primary, backup).send(FakeProvider::send))
+                .assertNext(response -> assertThat(response.getProvider()).isEqualTo("BACKUP"))
+                .verifyComplete();
+    }
+
+    @Test
+    void returnsRejectionsWithoutFailingOver() {
+        FakeProvider primary = new FakeProvider("PRIMARY", () -> Mono.just(failed("PRIMARY", Failure.REJECTED)));
+        FakeProvider backup = new FakeProvider("BACKUP", () -> Mono.just(sent("BACKUP")));
+
+        StepVerifier.create(router(primary, backup).send(FakeProvider::send))
+                .assertNext(response -> assertThat(response.getFailure()).isEqualTo(Failure.REJECTED))
+                .verifyComplete();
+        assertThat(backup.calls).hasValue(0);
+    }
+
+    @Test
+    void doesNotResendAfterAnUncertainFailure() {
+        FakeProvider primary = new FakeProvider("PRIMARY", () -> Mono.error(new RuntimeException("Read timed out")));
+        FakeProvider backup = new FakeProvider("BACKUP", () -> Mono.just(sent("BACKUP")));
+
+        StepVerifier.create(router(primary, backup).send(FakeProvider::send))
+                .assertNext(response -> assertThat(response.getFailure()).isEqualTo(Failure.UNKNOWN))
+                .verifyComplete();
+        assertThat(backup.calls).hasValue(0);
+    }
+
+    @Test
+    void rejectionsDoNotOpenTheCircuit() {
+        config.setMinimumCalls(2);
+        FakeProvider primary = new FakeProvider("PRIMARY", () -> Mono.just(failed("PRIMARY", Failure.REJECTED)));
+        FakeProvider backup = new FakeProvider("BACKUP", () -> Mono.just(sent("BACKUP")));
+        ProviderRouter<FakeProvider> router = router(primary, backup);
+
+        for (int i = 0; i < 10; i++) {
+            router.send(FakeProvider::send).block();
+        }
+
+        assertThat(primary.calls).hasValue(10);
+        assertThat(backup.calls).hasValue(0);
+    }
+
+    @Test
+    void timesCallsFromWhenTheRateLimiterLetsThemThrough() {
+        config.setMinimumCalls(2);
+        config.setSlowCallThresholdMs(100);
+        config.setSlowCallRateThreshold(50);
+        // The second call waits 250ms for its rate slot
+        ProviderRateLimiter limiter = new ProviderRateLimiter(4, 1, 0);
+        FakeProvider primary = new FakeProvider("PRIMARY", () -> limiter.execute(() -> Mono.just(sent("PRIMARY"))));
+        FakeProvider backup = new FakeProvider("BACKUP", () -> Mono.just(sent("BACKUP")));
+        ProviderRouter<FakeProvider> router = router(primary, backup);
+
+        router.send(FakeProvider::send).block();
+        router.send(FakeProvider::send).block();
+        router.send(FakeProvider::send).block();
+
+        assertThat(primary.calls).hasValue(3);
+        assertThat(backup.calls).hasValue(0);
+    }
+
+    @Test
+    void keepsEachBatchResponseAndOnlyFailsOverTheFailedRequest() {
+        FakeProvider primary = new FakeProvider("PRIMARY", () -> Mono.just(sent("PRIMARY")));
+        FakeProvider backup = new FakeProvider("BACKUP", () -> Mono.just(sent("BACKUP")));
+
+        StepVerifier.create(router(primary, backup).sendBatch(List.of("a", "b", "c"), provider -> 1, ProviderRouterTest::unbatched,
+                        (provider, request) -> provider == primary && request.equals("b")
+                                ? Mono.just(failed("PRIMARY", Failure.RETRYABLE))
+                                : provider.send(),
+                        2))
+                .assertNext(response -> assertThat(response.getProvider()).isEqualTo("PRIMARY"))
+                .assertNext(response -> assertThat(response.getProvider()).isEqualTo("BACKUP"))
+                .assertNext(response -> assertThat(response.getProvider()).isEqualTo("PRIMARY"))
+                .verifyComplete();
+        assertThat(primary.calls).hasValue(2);
+        assertThat(backup.calls).hasValue(1);
+    }
+
+    @Test
+    void routesEachBatchRequestByTheCircuitStateWhenItIsSent() {
+        config.setMinimumCalls(2);
+        FakeProvider primary = new FakeProvider("PRIMARY", () -> Mono.just(failed("PRIMARY", Failure.RETRYABLE)));
+        FakeProvider backup = new FakeProvider("BACKUP", () -> Mono.just(sent("BACKUP")));
+
+        StepVerifier.create(router(primary, backup).sendBatch(List.of(1, 2, 3, 4), provider -> 1, ProviderRouterTest::unbatched,
+                        (provider, request) -> provider.send(), 1))
+                .expectNextCount(4)
+                .verifyComplete();
+        // The primary's circuit opens after two failures, so later requests skip it
+        assertThat(primary.calls).hasValue(2);
+        assertThat(backup.calls).hasValue(4);
+    }
+
+    @Test
+    void failsBatchRequestsWithoutSendingWhenEveryCircuitIsOpen() {
+        config.setMinimumCalls(2);
+        FakeProvider primary = new FakeProvider("PRIMARY", () -> Mono.just(failed("PRIMARY", Failure.RETRYABLE)));
+        FakeProvider backup = new FakeProvider("BACKUP", () -> Mono.just(failed("BACKUP", Failure.RETRYABLE)));
+        ProviderRouter<FakeProvider> router = router(primary, backup);
+        router.send(FakeProvider::send).block();
+        router.send(FakeProvider::send).block();
+
+        StepVerifier.create(router.sendBatch(List.of(1, 2), provider -> 1, ProviderRouterTest::unbatched,
+                        (provider, request) -> provider.send(), 2))
+                .assertNext(response -> assertThat(response.getErrorMessage()).isEqualTo("All providers are unavailable"))
+                .assertNext(response -> assertThat(response.getFailure()).isEqualTo(Failure.RETRYABLE))
+                .verifyComplete();
+        assertThat(primary.calls).hasValue(2);
+        assertThat(backup.calls).hasValue(2);
+    }
+
+    @Test
+    void sendsAChunkToOneBackendAndFailsOverOnlyItsRetryableRequests() {
+        FakeProvider primary = new FakeProvider("PRIMARY", () -> Mono.just(sent("PRIMARY")));
+        FakeProvider backup = new FakeProvider("BACKUP", () -> Mono.just(sent("BACKUP")));
+        AtomicInteger batchCalls = new AtomicInteger();
+
+        StepVerifier.create(router(primary, backup).sendBatch(List.of("a", "b", "c"), provider -> 50,
+                        (provider, chunk) -> {
+                            batchCalls.incrementAndGet();
+                            return Flux.just(sent("PRIMARY"), failed("PRIMARY", Failure.RETRYABLE), failed("PRIMARY", Failure.REJECTED));
+                        },
+                        (provider, request) -> provider.send(), 2))
+                .assertNext(response -> assertThat(response.getProvider()).isEqualTo("PRIMARY"))
+                .assertNext(response -> assertThat(response.getProvider()).isEqualTo("BACKUP"))
+                .assertNext(response -> assertThat(response.getFailure()).isEqualTo(Failure.REJECTED))
+                .verifyComplete();
+        assertThat(batchCalls).hasValue(1);
+        assertThat(backup.calls).hasValue(1);
+    }
+
+    @Test
+    void keepsResponsesEmittedBeforeABatchCallFails() {
+        FakeProvider primary = new FakeProvider("PRIMARY", () -> Mono.just(sent("PRIMARY")));
+        FakeProvider backup = new FakeProvider("BACKUP", () -> Mono.just(sent("BACKUP")));
+
+        StepVerifier.create(router(primary, backup).sendBatch(List.of("a", "b", "c"), provider -> 50,
+                        (provider, chunk) -> Flux.just(sent("PRIMARY")).concatWith(Flux.error(new ConnectException("Connection reset"))),
+                        (provider, request) -> provider.send(), 2))
+                .assertNext(response -> assertThat(response.getProvider()).isEqualTo("PRIMARY"))
+                .assertNext(response -> assertThat(response.getProvider()).isEqualTo("BACKUP"))
+                .assertNext(response -> assertThat(response.getProvider()).isEqualTo("BACKUP"))
+                .verifyComplete();
+        assertThat(backup.calls).hasValue(2);
+    }
+
+    @Test
+    void splitsBatchesIntoChunksOfThePrimarysBatchSize() {
+        FakeProvider primary = new FakeProvider("PRIMARY", () -> Mono.just(sent("PRIMARY")));
+        FakeProvider backup = new FakeProvider("BACKUP", () -> Mono.just(sent("BACKUP")));
+        List<Integer> chunkSizes = new CopyOnWriteArrayList<>();
+
+        StepVerifier.create(router(primary, backup).sendBatch(List.of(1, 2, 3, 4, 5), provider -> provider == primary ? 2 : 50,
+                        (provider, chunk) -> {
+                            chunkSizes.add(chunk.size());
+                            return unbatched(provider, chunk);
+                        },
+                        (provider, request) -> provider.send(), 1))
+                .expectNextCount(5)
+                .verifyComplete();
+        assertThat(chunkSizes).containsExactly(2, 2, 1);
+    }
+
+    @Test
+    void failsChunksWithoutSendingWhenEveryCircuitIsOpen() {
+        config.setMinimumCalls(2);
+        FakeProvider primary = new FakeProvider("PRIMARY", () -> Mono.just(failed("PRIMARY", Failure.RETRYABLE)));
+        FakeProvider backup = new FakeProvider("BACKUP", () -> Mono.just(failed("BACKUP", Failure.RETRYABLE)));
+        ProviderRouter<FakeProvider> router = router(primary, backup);
+        router.send(FakeProvider::send).block();
+        router.send(FakeProvider::send).block();
+
+        StepVerifier.create(router.sendBatch(List.of(1, 2), provider -> 50, ProviderRouterTest::unbatched,
+                        (provider, request) -> provider.send(), 2))
+                .assertNext(response -> assertThat(response.getErrorMessage()).isEqualTo("All providers are unavailable"))
+                .assertNext(response -> assertThat(response.getErrorMessage()).isEqualTo("All providers are unavailable"))
+                .verifyComplete();
+        assertThat(primary.calls).hasValue(2);
+        assertThat(backup.calls).hasValue(2);
+    }
+
+    private static <R> Flux<NotificationResponse> unbatched(FakeProvider provider, List<R> chunk) {
+        return Flux.fromIterable(chunk).concatMap(request -> provider.send());
+    }
+
+    private ProviderRouter<FakeProvider> router(FakeProvider primary, FakeProvider backup) {
+        return new ProviderRouter<>(List.of(primary, backup), FakeProvider::name, "primary", List.of("backup"), config);
+    }
+
+    private static NotificationResponse sent(String provider) {
+        return NotificationResponse.builder().success(true).provider(provider).build();
+    }
+
+    private static NotificationResponse failed(String provider, Failure failure) {
+        return NotificationResponse.builder().success(false).provider(provider).failure(failure).build();
+    }
+
+    private static final class FakeProvider {
+        private final String name;
+        private final Supplier<Mono<NotificationResponse>> response;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        FakeProvider(String name, Supplier<Mono<NotificationResponse>> response) {
+            this.name = name;
+            this.response = response;
+        }
+
+        String name() {
+            return name;
+        }
+
+        Mono<NotificationResponse> send() {
+            calls.incrementAndGet();
+            return response.get();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.iam.notification.provider.sendgrid;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iam.notification.dto.EmailRequest;
+import com.iam.notification.dto.NotificationResponse.Failure;
+import com.iam.notification.provider.ProviderRateLimiter;
+import com.iam.notification.provider.ProviderRateLimiterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.reactive.MockClientHttpRequest;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.net.ConnectException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SendGridEmailProviderTest {
+
+    private final ProviderRateLimiterRegistry rateLimiters = mock(ProviderRateLimiterRegistry.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Requests as they would go on the wire, and the canned response for each
+    private final List<ClientRequest> requests = new CopyOnWriteArrayList<>();
+    private final List<String> bodies = new CopyOnWriteArrayList<>();
+    private Supplier<Mono<ClientResponse>> response;
+
+    private final WebClient providerWebClient = WebClient.builder()
+            .exchangeFunction(request -> {
+                MockClientHttpRequest wire = new MockClientHttpRequest(request.method(), request.url());
+                return request.writeTo(wire, ExchangeStrategies.withDefaults())
+                        .then(Mono.defer(wire::getBodyAsString))
+                        .flatMap(body -> {
+                            requests.add(request);
+                            bodies.add(body);
+                            return response.get();
+                        });
+            })
+            .build();
+    private final SendGridEmailProvider provider =
+            new SendGridEmailProvider(rateLimiters, providerWebClient, "sg-key", "https://sendgrid.test");
+
+    @BeforeEach
+    void setUp() {
+        when(rateLimiters.get("SENDGRID")).thenReturn(ProviderRateLimiter.unlimited());
+    }
+
+    @Test
+    void postsTheMailWithTheApiKeyAndReturnsTheMessageId() throws Exception {
+        response = () -> Mono.just(ClientResponse.create(HttpStatus.ACCEPTED).header("X-Message-Id", "msg-1").build());
+
+        StepVerifier.create(provider.sendEmail(request()))
+                .assertNext(sent -> {
+                    assertThat(sent.isSuccess()).isTrue();
+                    assertThat(sent.getProviderId()).isEqualTo("msg-1");
+                })
+                .verifyComplete();
+
+        ClientRequest request = requests.get(0);
+        assertThat(request.method()).isEqualTo(HttpMethod.POST);
+        assertThat(request.url()).hasToString("https://sendgrid.test/v3/mail/send");
+        assertThat(request.headers().getFirst(HttpHeaders.AUTHORIZATION)).isEqualTo("Bearer sg-key");
+
+        JsonNode mail = objectMapper.readTree(bodies.get(0));
+        assertThat(mail.at("/personalizations/0/to/0/email").asText()).isEqualTo("user@example.com");
+        assertThat(mail.at("/from/email").asText()).isEqualTo("noreply@example.com");
+        assertThat(mail.at("/subject").asText()).isEqualTo("Welcome");
+        // text/plain must come first; an absent reply-to is left out
+        assertThat(mail.at("/content/0/type").asText()).isEqualTo("text/plain");
+        assertThat(mail.at("/content/1/type").asText()).isEqualTo("text/html");
+        assertThat(mail.has("reply_to")).isFalse();
+    }
+
+    @Test
+    void mapsRejectionsByStatus() {
+        response = () -> Mono.just(ClientResponse.create(HttpStatus.BAD_REQUEST).body("{\"errors\":[]}").build());
+        StepVerifier.create(provider.sendEmail(request()))
+                .assertNext(sent -> {
+                    assertThat(sent.isSuccess()).isFalse();
+                    assertThat(sent.getErrorMessage()).contains("{\"errors\":[]}");
+                    assertThat(sent.getFailure()).isEqualTo(Failure.REJECTED);
+                })
+                .verifyComplete();
+
+        response = () -> Mono.just(ClientResponse.create(HttpStatus.TOO_MANY_REQUESTS).build());
+        StepVerifier.create(provider.sendEmail(request()))
+                .assertNext(sent -> assertThat(sent.getFailure()).isEqualTo(Failure.RETRYABLE))
+                .verifyComplete();
+    }
+
+    @Test
+    void aFailedConnectionIsRetryable() {
+        response = () -> Mono.error(new ConnectException("Connection refused"));
+
+        StepVerifier.create(provider.sendEmail(request()))
+                .assertNext(sent -> {
+                    assertThat(sent.isSuccess()).isFalse();
+                    assertThat(sent.getFailure()).isEqualTo(Failure.RETRYABLE);
+                })
+                .verifyComplete();
+    }
+
+    private static EmailRequest request() {
+        return EmailRequest.builder()
+                .to("user@example.com")
+                .from("noreply@example.com")
+                .subject("Welcome")
+                .bodyHtml("<p>Hello</p>")
+                .bodyText("Hello")
+                .build();
+    }
+}
@@ -0,0 +1,100 @@
+package com.iam.notification.provider.smtp;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Just enough of an SMTP server to count connections and messages and to script failures
+class FakeSmtpServer implements AutoCloseable {
+
+    final AtomicInteger connections = new AtomicInteger();
+    final AtomicInteger messages = new AtomicInteger();
+    final Set<String> rejectedRecipients = ConcurrentHashMap.newKeySet();
+    final AtomicInteger serviceClosingReplies = new AtomicInteger(); // next MAIL FROMs answered with 421
+    volatile boolean dropAfterMessage; // close the connection after each accepted message
+
+    private final ServerSocket serverSocket;
+
+    FakeSmtpServer() throws IOException {
+        serverSocket = new ServerSocket(0);
+        Thread acceptor = new Thread(this::accept, "fake-smtp");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.incrementAndGet();
+                Thread session = new Thread(() -> serve(socket), "fake-smtp-session");
+                session.setDaemon(true);
+                session.start();
+            } catch (IOException e) {
+                return; // closed
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.US_ASCII)) {
+            reply(out, "220 localhost ESMTP");
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.toUpperCase(Locale.ROOT);
+                if (command.startsWith("MAIL FROM") && serviceClosingReplies.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                    reply(out, "421 Service closing transmission channel");
+                    return;
+                } else if (command.startsWith("RCPT TO")) {
+                    String rcpt = line;
+                    boolean rejected = rejectedRecipients.stream().anyMatch(rcpt::contains);
+                    reply(out, rejected ? "550 No such user" : "250 OK");
+                } else if (command.equals("DATA")) {
+                    reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                    while ((line = in.readLine()) != null && !line.equals(".")) {
+                        // message body
+                    }
+                    messages.incrementAndGet();
+                    // Read before replying, as the client may change it as soon as it has the reply
+                    boolean drop = dropAfterMessage;
+                    reply(out, "250 OK");
+                    if (drop) {
+                        return;
+                    }
+                } else if (command.equals("QUIT")) {
+                    reply(out, "221 Bye");
+                    return;
+                } else {
+                    reply(out, "250 OK"); // EHLO, MAIL FROM, RSET, NOOP
+                }
+            }
+        } catch (IOException e) {
+            // client went away
+        }
+    }
+
+    private static void reply(PrintWriter out, String reply) {
+        out.print(reply + "\r\n");
+        out.flush();
+    }
+}
@@ -0,0 +1,124 @@
+package com.iam.notification.provider.smtp;
+
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SmtpTransportPoolTest {
+
+    private FakeSmtpServer server;
+    private SmtpTransportPool pool;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = new FakeSmtpServer();
+    }
+
+    @AfterEach
+    void stopServer() throws IOException {
+        if (pool != null) {
+            pool.close();
+        }
+        server.close();
+    }
+
+    @Test
+    void reusesOneConnectionForConsecutiveSends() throws MessagingException {
+        pool = pool(100);
+
+        for (int i = 0; i < 5; i++) {
+            pool.send(message("user" + i + "@example.com"));
+        }
+
+        assertThat(server.messages).hasValue(5);
+        assertThat(server.connections).hasValue(1);
+    }
+
+    @Test
+    void rotatesConnectionsAfterMaxMessages() throws MessagingException {
+        pool = pool(2);
+
+        for (int i = 0; i < 5; i++) {
+            pool.send(message("user" + i + "@example.com"));
+        }
+
+        assertThat(server.messages).hasValue(5);
+        assertThat(server.connections).hasValue(3);
+    }
+
+    @Test
+    void keepsTheConnectionAfterARejectedRecipient() throws MessagingException {
+        pool = pool(100);
+        server.rejectedRecipients.add("missing@example.com");
+
+        assertThatThrownBy(() -> pool.send(message("missing@example.com")))
+                .isInstanceOf(SendFailedException.class)
+                .isNotInstanceOf(SMTPSendFailedException.class);
+        pool.send(message("user@example.com"));
+
+        assertThat(server.messages).hasValue(1);
+        assertThat(server.connections).hasValue(1);
+    }
+
+    @Test
+    void replacesTheConnectionAfterServiceClosing() throws MessagingException {
+        pool = pool(100);
+        pool.send(message("first@example.com"));
+        server.serviceClosingReplies.set(1);
+
+        assertThatThrownBy(() -> pool.send(message("second@example.com")))
+                .isInstanceOfSatisfying(SMTPSendFailedException.class,
+                        e -> assertThat(e.getReturnCode()).isEqualTo(421));
+        pool.send(message("third@example.com"));
+
+        assertThat(server.messages).hasValue(2);
+        assertThat(server.connections).hasValue(2);
+    }
+
+    @Test
+    void recoversWhenTheServerDropsAPooledConnection() throws MessagingException {
+        pool = pool(100);
+        server.dropAfterMessage = true;
+        pool.send(message("first@example.com"));
+        server.dropAfterMessage = false;
+
+        // The dropped connection fails the next send and is discarded rather than returned
+        assertThatThrownBy(() -> pool.send(message("second@example.com")))
+                .isInstanceOf(MessagingException.class);
+        pool.send(message("third@example.com"));
+
+        assertThat(server.messages).hasValue(2);
+        assertThat(server.connections).hasValue(2);
+    }
+
+    private SmtpTransportPool pool(int maxMessagesPerConnection) {
+        Properties properties = new Properties();
+        properties.put("mail.smtp.connectiontimeout", "2000");
+        properties.put("mail.smtp.timeout", "2000");
+        return new SmtpTransportPool(Session.getInstance(properties), "smtp", "localhost", server.port(),
+                null, null, 4, maxMessagesPerConnection, 30);
+    }
+
+    private MimeMessage message(String to) throws MessagingException {
+        MimeMessage message = pool.createMessage();
+        message.setFrom(new InternetAddress("noreply@example.com"));
+        message.setRecipient(Message.RecipientType.TO, new InternetAddress(to));
+        message.setSubject("Test");
+        message.setText("Hello");
+        message.saveChanges();
+        return message;
+    }
+}
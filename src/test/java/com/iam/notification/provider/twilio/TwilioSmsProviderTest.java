@@ -0,0 +1,118 @@
+package com.iam.notification.provider.twilio;
+
+import com.iam.notification.dto.NotificationResponse.Failure;
+import com.iam.notification.dto.SmsRequest;
+import com.iam.notification.provider.ProviderRateLimiter;
+import com.iam.notification.provider.ProviderRateLimiterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.client.reactive.MockClientHttpRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TwilioSmsProviderTest {
+
+    private final ProviderRateLimiterRegistry rateLimiters = mock(ProviderRateLimiterRegistry.class);
+
+    // Requests as they would go on the wire, and the canned response for each
+    private final List<MockClientHttpRequest> requests = new CopyOnWriteArrayList<>();
+    private final List<String> bodies = new CopyOnWriteArrayList<>();
+    private Supplier<Mono<ClientResponse>> response;
+
+    private final WebClient providerWebClient = WebClient.builder()
+            .exchangeFunction(request -> {
+                MockClientHttpRequest wire = new MockClientHttpRequest(request.method(), request.url());
+                wire.getHeaders().addAll(request.headers());
+                return request.writeTo(wire, ExchangeStrategies.withDefaults())
+                        .then(Mono.defer(wire::getBodyAsString))
+                        .flatMap(body -> {
+                            requests.add(wire);
+                            bodies.add(body);
+                            return response.get();
+                        });
+            })
+            .build();
+    private final TwilioSmsProvider provider = new TwilioSmsProvider(rateLimiters, providerWebClient,
+            "AC123", "token", "+15550000000", "https://twilio.test");
+
+    @BeforeEach
+    void setUp() {
+        when(rateLimiters.get("TWILIO")).thenReturn(ProviderRateLimiter.unlimited());
+    }
+
+    @Test
+    void postsAFormToTheAccountMessagesAndReturnsTheSid() {
+        response = () -> Mono.just(json(HttpStatus.CREATED, "{\"sid\":\"SM1\",\"status\":\"queued\"}"));
+
+        StepVerifier.create(provider.sendSms(SmsRequest.builder().phoneNumber("+15551234567").message("Your code is 1234").build()))
+                .assertNext(sent -> {
+                    assertThat(sent.isSuccess()).isTrue();
+                    assertThat(sent.getProviderId()).isEqualTo("SM1");
+                })
+                .verifyComplete();
+
+        MockClientHttpRequest request = requests.get(0);
+        assertThat(request.getURI()).hasToString("https://twilio.test/2010-04-01/Accounts/AC123/Messages.json");
+        assertThat(request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION))
+                .isEqualTo(HttpHeaders.encodeBasicAuth("AC123", "token", StandardCharsets.UTF_8)
+                        .transform(encoded -> "Basic " + encoded));
+        assertThat(request.getHeaders().getContentType().isCompatibleWith(MediaType.APPLICATION_FORM_URLENCODED)).isTrue();
+        assertThat(UriComponentsBuilder.newInstance().query(bodies.get(0)).build().getQueryParams().toSingleValueMap())
+                .containsEntry("To", "%2B15551234567")
+                .containsEntry("From", "%2B15550000000")
+                .containsKey("Body");
+    }
+
+    @Test
+    void reportsTwilioErrorsByStatus() {
+        response = () -> Mono.just(json(HttpStatus.BAD_REQUEST, "{\"code\":21211,\"message\":\"Invalid 'To' Phone Number\"}"));
+        StepVerifier.create(provider.sendSms(SmsRequest.builder().phoneNumber("+15551234567").message("Hi").build()))
+                .assertNext(sent -> {
+                    assertThat(sent.isSuccess()).isFalse();
+                    assertThat(sent.getErrorMessage()).isEqualTo("Twilio API error 21211: Invalid 'To' Phone Number");
+                    assertThat(sent.getFailure()).isEqualTo(Failure.REJECTED);
+                })
+                .verifyComplete();
+
+        // A body that is not a Twilio error falls back to the status
+        response = () -> Mono.just(json(HttpStatus.SERVICE_UNAVAILABLE, "<html>"));
+        StepVerifier.create(provider.sendSms(SmsRequest.builder().phoneNumber("+15551234567").message("Hi").build()))
+                .assertNext(sent -> {
+                    assertThat(sent.getErrorMessage()).contains("503");
+                    assertThat(sent.getFailure()).isEqualTo(Failure.RETRYABLE);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void acceptsOnlyE164Numbers() {
+        assertThat(List.of("+15551234567", "+442071838750")).allSatisfy(number ->
+                assertThat(provider.validatePhoneNumber(number).block()).as(number).isTrue());
+        assertThat(List.of("5551234567", "+0123", "+1 555 123 4567", "")).allSatisfy(number ->
+                assertThat(provider.validatePhoneNumber(number).block()).as(number).isFalse());
+        assertThat(provider.validatePhoneNumber(null).block()).isFalse();
+    }
+
+    private static ClientResponse json(HttpStatus status, String body) {
+        return ClientResponse.create(status)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(body)
+                .build();
+    }
+}
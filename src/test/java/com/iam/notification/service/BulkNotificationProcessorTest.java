@@ -0,0 +1,121 @@
+package com.iam.notification.service;
+
+import com.iam.notification.config.NotificationConfig;
+import com.iam.notification.dto.BulkJob;
+import com.iam.notification.dto.EmailRequest;
+import com.iam.notification.dto.NotificationResponse;
+import com.iam.notification.dto.ProcessedTemplate;
+import com.iam.notification.dto.QueueItem;
+import com.iam.notification.dto.SmsRequest;
+import com.iam.notification.model.UserNotificationPreference;
+import com.iam.notification.provider.EmailProvider;
+import com.iam.notification.provider.SmsProvider;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BulkNotificationProcessorTest {
+
+    private static final UUID OPTED_OUT = UUID.randomUUID();
+    private static final UUID OPTED_IN = UUID.randomUUID();
+    private static final UUID NO_PREFERENCE = UUID.randomUUID();
+
+    private final EmailProvider emailProvider = mock(EmailProvider.class);
+    private final SmsProvider smsProvider = mock(SmsProvider.class);
+    private final TemplateService templateService = mock(TemplateService.class);
+    private final NotificationPreferenceService preferenceService = mock(NotificationPreferenceService.class);
+    private final NotificationLogWriter logWriter = mock(NotificationLogWriter.class);
+    private final NotificationConfig config = new NotificationConfig();
+    private final BulkNotificationProcessor processor = new BulkNotificationProcessor(emailProvider, smsProvider, templateService,
+            new CohortTemplateCache(config), preferenceService, logWriter, mock(NotificationRetryScheduler.class), config);
+
+    private final CohortTemplate cohort = new CohortTemplate(values -> ProcessedTemplate.builder()
+            .subject("Maintenance")
+            .bodyText("Hi " + values.get("recipient"))
+            .build());
+
+    @Test
+    void skipsOptedOutEmailRecipientsAndCountsThemAsHandled() {
+        when(preferenceService.getPreferences(anyCollection(), eq("SECURITY"))).thenReturn(Mono.just(Map.of(
+                OPTED_OUT, UserNotificationPreference.builder().emailEnabled(false).build(),
+                OPTED_IN, UserNotificationPreference.builder().emailEnabled(true).build())));
+        when(templateService.processEmailCohort(eq("maintenance"), any(), any(), any())).thenReturn(Mono.just(cohort));
+        when(emailProvider.sendBatch(anyList(), anyInt())).thenAnswer(invocation -> {
+            List<EmailRequest> requests = invocation.getArgument(0);
+            return Flux.fromIterable(requests).map(request -> NotificationResponse.builder().success(true).build());
+        });
+        when(logWriter.write(any())).thenReturn(Mono.empty());
+
+        List<QueueItem> items = List.of(
+                item("out@example.com", OPTED_OUT),
+                item("in@example.com", OPTED_IN),
+                item("default@example.com", NO_PREFERENCE),
+                item("anonymous@example.com", null));
+
+        StepVerifier.create(processor.deliver(job("EMAIL"), items))
+                .assertNext(handled -> assertThat(handled).containsExactlyInAnyOrder(
+                        "out@example.com", "in@example.com", "default@example.com", "anonymous@example.com"))
+                .verifyComplete();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<EmailRequest>> sent = ArgumentCaptor.forClass(List.class);
+        verify(emailProvider).sendBatch(sent.capture(), anyInt());
+        // Users without a preference row get the single-send default, which enables email
+        assertThat(sent.getValue()).extracting(EmailRequest::getTo)
+                .containsExactly("in@example.com", "default@example.com", "anonymous@example.com");
+    }
+
+    @Test
+    void sendsSmsOnlyToUsersWhoOptedIn() {
+        when(preferenceService.getPreferences(anyCollection(), eq("SECURITY"))).thenReturn(Mono.just(Map.of(
+                OPTED_IN, UserNotificationPreference.builder().smsEnabled(true).build())));
+        when(templateService.processSmsCohort(eq("maintenance"), any(), any())).thenReturn(Mono.just(cohort));
+        when(smsProvider.sendSms(any())).thenReturn(Mono.just(NotificationResponse.builder().success(true).build()));
+        when(logWriter.write(any())).thenReturn(Mono.empty());
+
+        List<QueueItem> items = List.of(
+                item("+15550000001", OPTED_IN),
+                item("+15550000002", NO_PREFERENCE),
+                item("+15550000003", null));
+
+        StepVerifier.create(processor.deliver(job("SMS"), items))
+                .assertNext(handled -> assertThat(handled).hasSize(3))
+                .verifyComplete();
+
+        // SMS is opt-in, so a user without a preference row is skipped
+        ArgumentCaptor<SmsRequest> sent = ArgumentCaptor.forClass(SmsRequest.class);
+        verify(smsProvider, times(2)).sendSms(sent.capture());
+        assertThat(sent.getAllValues()).extracting(SmsRequest::getPhoneNumber)
+                .containsExactlyInAnyOrder("+15550000001", "+15550000003");
+    }
+
+    private static BulkJob job(String type) {
+        return BulkJob.builder()
+                .jobId(UUID.randomUUID())
+                .templateName("maintenance")
+                .notificationType(type)
+                .notificationCategory("SECURITY")
+                .build();
+    }
+
+    private static QueueItem item(String recipient, UUID userId) {
+        return QueueItem.builder().jobId(UUID.randomUUID()).recipient(recipient).userId(userId).build();
+    }
+}
@@ -0,0 +1,58 @@
+package com.iam.notification.service;
+
+import com.iam.notification.config.NotificationConfig;
+import com.iam.notification.dto.ProcessedTemplate;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CohortTemplateCacheTest {
+
+    private final CohortTemplateCache cache = new CohortTemplateCache(new NotificationConfig());
+
+    @Test
+    void rendersOncePerJobAndType() {
+        UUID jobId = UUID.randomUUID();
+        AtomicInteger loads = new AtomicInteger();
+        CohortTemplate cohort = new CohortTemplate(values -> ProcessedTemplate.builder().subject("s").build());
+
+        for (int batch = 0; batch < 3; batch++) {
+            StepVerifier.create(cache.get(jobId, "EMAIL", () -> Mono.fromCallable(() -> {
+                        loads.incrementAndGet();
+                        return cohort;
+                    })))
+                    .expectNext(cohort)
+                    .verifyComplete();
+        }
+        StepVerifier.create(cache.get(jobId, "SMS", () -> Mono.fromCallable(() -> {
+                    loads.incrementAndGet();
+                    return cohort;
+                })))
+                .expectNext(cohort)
+                .verifyComplete();
+
+        assertThat(loads).hasValue(2);
+        assertThat(cohort.render(Map.of()).getSubject()).isEqualTo("s");
+    }
+
+    @Test
+    void doesNotCacheMissingTemplatesOrFailures() {
+        UUID jobId = UUID.randomUUID();
+        AtomicInteger loads = new AtomicInteger();
+
+        StepVerifier.create(cache.get(jobId, "EMAIL", () -> Mono.fromRunnable(loads::incrementAndGet)))
+                .verifyComplete();
+        StepVerifier.create(cache.get(jobId, "EMAIL", () -> Mono.error(new IllegalStateException("database down"))))
+                .verifyError(IllegalStateException.class);
+        StepVerifier.create(cache.get(jobId, "EMAIL", () -> Mono.fromRunnable(loads::incrementAndGet)))
+                .verifyComplete();
+
+        assertThat(loads).hasValue(2);
+    }
+}
@@ -0,0 +1,106 @@
+package com.iam.notification.service;
+
+import com.iam.notification.config.CompiledTemplateResolver;
+import com.iam.notification.config.NotificationConfig;
+import com.iam.notification.config.ThymeleafConfig;
+import com.iam.notification.model.NotificationTemplate;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.context.Context;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompiledTemplateStoreTest {
+
+    private final CompiledTemplateStore store = new CompiledTemplateStore(
+            new ThymeleafConfig().templateEngine(new CompiledTemplateResolver(1), new NotificationConfig()));
+
+    @Test
+    void rendersSmsBodiesAsTextEvenWhenTheyContainMarkup() {
+        NotificationTemplate sms = template("otp", "SMS");
+
+        String rendered = store.renderText(sms, "text", "Code <b>[(${code})]</b> & more", Map.of("code", "1<2"));
+
+        assertThat(rendered).isEqualTo("Code <b>1<2</b> & more");
+    }
+
+    @Test
+    void fallsBackToTheEngineInTextModeForExpressions() {
+        NotificationTemplate sms = template("greeting", "SMS");
+
+        String rendered = store.renderText(sms, "text", "Hi [(${name.toUpperCase()})] & bye", Map.of("name", "a&b"));
+
+        assertThat(rendered).isEqualTo("Hi A&B & bye");
+    }
+
+    @Test
+    void fastPathMatchesTheEngine() {
+        String source = "Hi [[${name}]] / [(${name})] <3";
+        Map<String, Object> variables = Map.of("name", "Tom & \"Jerry\" <O'Neil>");
+        // A dotted expression forces the same source through the engine
+        String engineSource = "Hi [[${name.toString()}]] / [(${name.toString()})] <3";
+
+        assertThat(store.renderText(template("fast", "SMS"), "text", source, variables))
+                .isEqualTo(store.renderText(template("engine", "SMS"), "text", engineSource, variables));
+    }
+
+    @Test
+    void rendersEmailTextPartAsText() {
+        NotificationTemplate email = template("welcome", "EMAIL");
+
+        String rendered = store.renderText(email, "text", "Hi [(${name})] <3", Map.of("name", "Tom & Jerry"));
+
+        assertThat(rendered).isEqualTo("Hi Tom & Jerry <3");
+    }
+
+    @Test
+    void rendersEmailHtmlPartAsHtml() {
+        NotificationTemplate email = template("welcome", "EMAIL");
+        Context context = new Context();
+        context.setVariable("name", "Tom & Jerry");
+
+        String rendered = store.render(email, "html", "<p th:text=\"${name}\">x</p>", context);
+
+        assertThat(rendered).isEqualTo("<p>Tom &amp; Jerry</p>");
+    }
+
+    @Test
+    void splicedCohortMatchesPerRecipientRendering() {
+        NotificationTemplate email = template("digest", "EMAIL");
+        String source = "<p th:text=\"${recipient}\">x</p><p th:utext=\"${recipient}\">x</p>"
+                + "<a th:attr=\"title=${recipient}\">[(${recipient})] [[${recipient}]]</a>";
+        Map<String, Object> values = Map.of("recipient", "<b>Tom & \"Jerry\"</b>");
+
+        Context markers = new Context();
+        markers.setVariable("recipient", PlaceholderTemplate.marker("recipient"));
+        PlaceholderTemplate cohort = PlaceholderTemplate.splice(store.render(email, "html", source, markers)).orElseThrow();
+
+        Context direct = new Context();
+        direct.setVariables(values);
+        assertThat(cohort.render(values)).isEqualTo(store.render(email, "html", source, direct));
+    }
+
+    @Test
+    void refusesToSpliceUrlEncodedMarkers() {
+        NotificationTemplate email = template("link", "EMAIL");
+        Context markers = new Context();
+        markers.setVariable("recipient", PlaceholderTemplate.marker("recipient"));
+
+        String rendered = store.render(email, "html", "<a th:href=\"@{https://iam-system.com/unsubscribe(email=${recipient})}\">x</a>", markers);
+
+        assertThat(PlaceholderTemplate.splice(rendered)).isEmpty();
+    }
+
+    @Test
+    void picksUpChangedSourceForTheSameTemplate() {
+        NotificationTemplate sms = template("otp", "SMS");
+
+        assertThat(store.renderText(sms, "text", "v1 [[${code}]]", Map.of("code", "1"))).isEqualTo("v1 1");
+        assertThat(store.renderText(sms, "text", "v2 [[${code}]]", Map.of("code", "1"))).isEqualTo("v2 1");
+    }
+
+    private static NotificationTemplate template(String name, String type) {
+        return NotificationTemplate.builder().templateName(name).templateType(type).language("en").build();
+    }
+}
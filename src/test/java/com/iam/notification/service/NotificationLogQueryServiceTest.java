@@ -0,0 +1,108 @@
+package com.iam.notification.service;
+
+import com.iam.notification.config.NotificationConfig;
+import com.iam.notification.model.NotificationLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.core.ReactiveSelectOperation;
+import org.springframework.data.relational.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class NotificationLogQueryServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 10, 1, 0, 0);
+    private static final int PAGE_SIZE = 3;
+
+    private final R2dbcEntityTemplate entityTemplate = mock(R2dbcEntityTemplate.class);
+    private final NotificationConfig config = new NotificationConfig();
+    private final NotificationLogQueryService queryService = new NotificationLogQueryService(entityTemplate, config);
+
+    // Rows in (created_at, log_id) order; pages are served in turn, one per query
+    private final List<NotificationLog> rows = new ArrayList<>();
+    private final List<Query> queries = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        config.getLogs().setExportPageSize(PAGE_SIZE);
+
+        ReactiveSelectOperation.ReactiveSelect<NotificationLog> select = mock(ReactiveSelectOperation.ReactiveSelect.class);
+        when(entityTemplate.select(NotificationLog.class)).thenReturn(select);
+        when(select.matching(any(Query.class))).thenAnswer(invocation -> {
+            Query query = invocation.getArgument(0);
+            int page = queries.size();
+            queries.add(query);
+
+            ReactiveSelectOperation.TerminatingSelect<NotificationLog> terminating = mock(ReactiveSelectOperation.TerminatingSelect.class);
+            when(terminating.all()).thenReturn(Flux.fromIterable(
+                    rows.subList(Math.min(rows.size(), page * PAGE_SIZE), Math.min(rows.size(), (page + 1) * PAGE_SIZE))));
+            return terminating;
+        });
+    }
+
+    @Test
+    void streamsEveryRowInKeysetPages() {
+        addRows(7);
+
+        StepVerifier.create(queryService.streamLogs(START, START.plusDays(1), null, null, null, null))
+                .expectNextSequence(rows)
+                .verifyComplete();
+
+        // A short page ends the stream
+        assertThat(queries).hasSize(3);
+        assertThat(queries).allSatisfy(query -> assertThat(query.getLimit()).isEqualTo(PAGE_SIZE));
+        // Each later page starts after the last row of the one before
+        assertThat(queries.get(0).getCriteria().orElseThrow().toString()).doesNotContain(rows.get(2).getLogId().toString());
+        assertThat(queries.get(1).getCriteria().orElseThrow().toString()).contains(rows.get(2).getLogId().toString());
+        assertThat(queries.get(2).getCriteria().orElseThrow().toString()).contains(rows.get(5).getLogId().toString());
+    }
+
+    @Test
+    void endsWithAnEmptyPageWhenTheLastPageIsFull() {
+        addRows(6);
+
+        StepVerifier.create(queryService.streamLogs(START, START.plusDays(1), null, null, null, null))
+                .expectNextCount(6)
+                .verifyComplete();
+
+        assertThat(queries).hasSize(3);
+    }
+
+    @Test
+    void readsAtMostOnePageAheadOfASlowClient() {
+        addRows(10);
+
+        StepVerifier.create(queryService.streamLogs(START, START.plusDays(1), 42, null, "FAILED", null), 1)
+                .expectNext(rows.get(0))
+                .thenAwait(Duration.ofMillis(50))
+                .thenCancel()
+                .verify();
+
+        // The rest of the four pages is never queried
+        assertThat(queries).hasSizeBetween(1, 2);
+        assertThat(queries.get(0).getCriteria().orElseThrow().toString()).contains("42").contains("FAILED");
+    }
+
+    private void addRows(int count) {
+        IntStream.range(0, count).forEach(i -> rows.add(NotificationLog.builder()
+                .logId(UUID.randomUUID())
+                .createdAt(START.plusMinutes(i / 2)) // pairs share a timestamp, so log_id breaks the tie
+                .status("FAILED")
+                .build()));
+    }
+}
@@ -0,0 +1,139 @@
+package com.iam.notification.service;
+
+import com.iam.notification.config.NotificationConfig;
+import com.iam.notification.model.NotificationLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.FetchSpec;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+class NotificationLogWriterTest {
+
+    private final DatabaseClient databaseClient = mock(DatabaseClient.class);
+    private final NotificationStatsRollups statsRollups = mock(NotificationStatsRollups.class);
+    private final NotificationConfig config = new NotificationConfig();
+
+    // Rows per executed INSERT, in execution order
+    private final List<Integer> insertedBatches = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(statsRollups.record(anyList())).thenReturn(Mono.empty());
+        when(databaseClient.sql(anyString())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            int rows = sql.split(":log_id", -1).length - 1;
+
+            DatabaseClient.GenericExecuteSpec spec = mock(DatabaseClient.GenericExecuteSpec.class,
+                    withSettings().stubOnly().defaultAnswer(RETURNS_SELF));
+            FetchSpec<Map<String, Object>> fetchSpec = mock(FetchSpec.class);
+            when(spec.fetch()).thenReturn(fetchSpec);
+            when(fetchSpec.rowsUpdated()).thenReturn(Mono.fromCallable(() -> {
+                insertedBatches.add(rows);
+                return (long) rows;
+            }));
+            return spec;
+        });
+    }
+
+    @Test
+    void writesFullBatchesOnceTheBufferReachesTheBatchSize() {
+        config.getLogs().setBatchSize(3);
+        NotificationLogWriter writer = startedWriter();
+
+        for (int i = 0; i < 7; i++) {
+            StepVerifier.create(writer.write(logRow())).verifyComplete();
+        }
+
+        assertThat(insertedBatches).containsExactly(3, 3);
+    }
+
+    @Test
+    void flushesBufferedRowsOnShutdown() throws InterruptedException {
+        NotificationLogWriter writer = startedWriter();
+        for (int i = 0; i < 5; i++) {
+            StepVerifier.create(writer.write(logRow())).verifyComplete();
+        }
+        assertThat(insertedBatches).isEmpty();
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        writer.stop(stopped::countDown);
+
+        assertThat(stopped.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(insertedBatches).containsExactly(5);
+        assertThat(writer.isRunning()).isFalse();
+    }
+
+    @Test
+    void writesInlineOnceStopped() {
+        NotificationLogWriter writer = startedWriter();
+        writer.stop();
+
+        StepVerifier.create(writer.write(logRow())).verifyComplete();
+
+        assertThat(insertedBatches).containsExactly(1);
+    }
+
+    @Test
+    void writesInlineWhenTheBufferIsFull() {
+        config.getLogs().setBufferCapacity(2);
+        NotificationLogWriter writer = startedWriter();
+
+        writer.write(logRow()).block();
+        writer.write(logRow()).block();
+        assertThat(insertedBatches).isEmpty();
+
+        StepVerifier.create(writer.write(logRow())).verifyComplete();
+        assertThat(insertedBatches).containsExactly(1);
+    }
+
+    @Test
+    void capsBatchSizeAtTheBindParameterLimit() {
+        config.getLogs().setBatchSize(100_000);
+        config.getLogs().setBufferCapacity(100_000);
+        NotificationLogWriter writer = startedWriter();
+
+        for (int i = 0; i < NotificationLogWriter.MAX_BATCH_SIZE + 1; i++) {
+            writer.write(logRow()).block();
+        }
+        writer.flush();
+
+        assertThat(NotificationLogWriter.MAX_BATCH_SIZE).isEqualTo(65535 / 18);
+        assertThat(insertedBatches).containsExactly(NotificationLogWriter.MAX_BATCH_SIZE, 1);
+    }
+
+    private NotificationLogWriter startedWriter() {
+        NotificationLogWriter writer = new NotificationLogWriter(databaseClient, statsRollups, config);
+        writer.start();
+        return writer;
+    }
+
+    private static NotificationLog logRow() {
+        return NotificationLog.builder()
+                .logId(UUID.randomUUID())
+                .notificationType("EMAIL")
+                .recipient("user@example.com")
+                .status("SENT")
+                .retryCount(0)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,185 @@
+package com.iam.notification.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iam.notification.config.NotificationConfig;
+import com.iam.notification.dto.BulkJob;
+import com.iam.notification.dto.QueueItem;
+import com.iam.notification.dto.QueueMessage;
+import com.iam.notification.dto.SendBulkNotificationRequest;
+import com.iam.notification.provider.NotificationQueueProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NotificationQueueServiceTest {
+
+    private final Map<String, byte[]> jobs = new ConcurrentHashMap<>();
+    private final List<List<byte[]>> pushed = new CopyOnWriteArrayList<>();
+
+    @SuppressWarnings("unchecked")
+    private final ReactiveRedisTemplate<String, byte[]> redisTemplate = mock(ReactiveRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final ReactiveValueOperations<String, byte[]> valueOps = mock(ReactiveValueOperations.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final NotificationQueueProvider queueProvider = mock(NotificationQueueProvider.class);
+    private final BulkNotificationProcessor bulkProcessor = mock(BulkNotificationProcessor.class);
+    private final NotificationConfig config = new NotificationConfig();
+    private final NotificationQueueService queueService = new NotificationQueueService(redisTemplate, objectMapper,
+            queueProvider, bulkProcessor, mock(NotificationRetryScheduler.class), config);
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOps);
+        when(valueOps.set(anyString(), any(byte[].class), any(Duration.class))).thenAnswer(invocation -> {
+            jobs.put(invocation.getArgument(0), invocation.getArgument(1));
+            return Mono.just(true);
+        });
+        when(valueOps.get(anyString())).thenAnswer(invocation -> Mono.justOrEmpty(jobs.get(invocation.<String>getArgument(0))));
+        when(queueProvider.pushAll(anyList())).thenAnswer(invocation -> {
+            pushed.add(invocation.getArgument(0));
+            return Mono.empty();
+        });
+    }
+
+    @Test
+    void storesTheJobOnceAndPushesRecipientsInChunks() throws Exception {
+        config.getQueue().setEnqueueChunkSize(2);
+        UUID userId = UUID.randomUUID();
+
+        UUID jobId = queueService.enqueueBulkNotification(SendBulkNotificationRequest.builder()
+                        .templateName("maintenance")
+                        .notificationType("EMAIL")
+                        .recipients(List.of("a@example.com", "b@example.com", "c@example.com", "d@example.com", "e@example.com"))
+                        .userIds(List.of(userId, userId, userId, userId, userId))
+                        .build())
+                .block();
+
+        assertThat(jobs).containsOnlyKeys("notification:job:" + jobId);
+        assertThat(objectMapper.readValue(jobs.get("notification:job:" + jobId), BulkJob.class).getTemplateName())
+                .isEqualTo("maintenance");
+
+        // One pipelined push per chunk, each item carrying only the job id, recipient and user id
+        assertThat(pushed).extracting(List::size).containsExactlyInAnyOrder(2, 2, 1);
+        List<QueueItem> items = pushed.stream().flatMap(List::stream).map(QueueItemCodec::decode).toList();
+        assertThat(items).extracting(QueueItem::getRecipient)
+                .containsExactlyInAnyOrder("a@example.com", "b@example.com", "c@example.com", "d@example.com", "e@example.com");
+        assertThat(items).allSatisfy(item -> {
+            assertThat(item.getJobId()).isEqualTo(jobId);
+            assertThat(item.getUserId()).isEqualTo(userId);
+        });
+    }
+
+    @Test
+    void failsTheEnqueueWhenAChunkCannotBePushed() {
+        when(queueProvider.pushAll(anyList())).thenReturn(Mono.error(new IllegalStateException("Redis unavailable")));
+
+        StepVerifier.create(queueService.enqueueBulkNotification(SendBulkNotificationRequest.builder()
+                        .templateName("maintenance")
+                        .notificationType("EMAIL")
+                        .recipients(List.of("a@example.com"))
+                        .build()))
+                .expectErrorMessage("Redis unavailable")
+                .verify();
+    }
+
+    @Test
+    void acknowledgesOnlyHandledItemsAndDeadLettersUnreadableOnes() throws Exception {
+        BulkJob job = storeJob();
+        QueueMessage sent = message("1", job, "a@example.com");
+        QueueMessage failed = message("2", job, "b@example.com");
+        QueueMessage unreadable = QueueMessage.builder().id("3").payload(new byte[] {9}).build();
+        QueueMessage deleted = QueueMessage.builder().id("4").build();
+        when(queueProvider.poll(anyInt(), any()))
+                .thenReturn(Mono.just(List.of(sent, failed, unreadable, deleted)))
+                .thenReturn(idlePoll());
+        when(bulkProcessor.deliver(eq(job), anyList())).thenReturn(Mono.just(Set.of("a@example.com")));
+
+        List<List<QueueMessage>> acknowledged = consumeUntilAcknowledged();
+
+        // The failed send stays pending for redelivery
+        assertThat(acknowledged.get(0)).containsExactlyInAnyOrder(sent, deleted);
+        verify(queueProvider).deadLetter(List.of(unreadable));
+    }
+
+    @Test
+    void leavesABatchPendingWhenDeliveryFails() throws Exception {
+        BulkJob job = storeJob();
+        QueueMessage message = message("1", job, "a@example.com");
+        when(queueProvider.poll(anyInt(), any())).thenReturn(Mono.just(List.of(message))).thenReturn(idlePoll());
+        when(bulkProcessor.deliver(eq(job), anyList())).thenReturn(Mono.error(new IllegalStateException("Database unavailable")));
+
+        assertThat(consumeUntilAcknowledged().get(0)).isEmpty();
+    }
+
+    @Test
+    void dropsItemsOfAnExpiredJob() throws Exception {
+        BulkJob expired = BulkJob.builder().jobId(UUID.randomUUID()).templateName("maintenance").notificationType("EMAIL").build();
+        QueueMessage message = message("1", expired, "a@example.com");
+        when(queueProvider.poll(anyInt(), any())).thenReturn(Mono.just(List.of(message))).thenReturn(idlePoll());
+
+        assertThat(consumeUntilAcknowledged().get(0)).containsExactly(message);
+        verify(bulkProcessor, never()).deliver(any(), anyList());
+    }
+
+    // Runs the consumer until its first acknowledgement, then stops it
+    private List<List<QueueMessage>> consumeUntilAcknowledged() throws InterruptedException {
+        List<List<QueueMessage>> acknowledged = new CopyOnWriteArrayList<>();
+        when(queueProvider.deadLetter(anyList())).thenReturn(Mono.empty());
+        when(queueProvider.acknowledge(anyList())).thenAnswer(invocation -> {
+            acknowledged.add(invocation.getArgument(0));
+            return Mono.empty();
+        });
+
+        queueService.start();
+        verify(queueProvider, timeout(5000)).acknowledge(anyList());
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        queueService.stop(stopped::countDown);
+        assertThat(stopped.await(5, TimeUnit.SECONDS)).as("consumer stopped").isTrue();
+        assertThat(queueService.isRunning()).isFalse();
+        return acknowledged;
+    }
+
+    // An idle blocking pop that returns nothing once its timeout runs out
+    private static Mono<List<QueueMessage>> idlePoll() {
+        return Mono.delay(Duration.ofMillis(20)).thenReturn(List.of());
+    }
+
+    private BulkJob storeJob() throws Exception {
+        BulkJob job = BulkJob.builder().jobId(UUID.randomUUID()).templateName("maintenance").notificationType("EMAIL").build();
+        jobs.put("notification:job:" + job.getJobId(), objectMapper.writeValueAsBytes(job));
+        return job;
+    }
+
+    private static QueueMessage message(String id, BulkJob job, String recipient) {
+        return QueueMessage.builder()
+                .id(id)
+                .payload(QueueItemCodec.encode(QueueItem.builder().jobId(job.getJobId()).recipient(recipient).build(), 2))
+                .build();
+    }
+}
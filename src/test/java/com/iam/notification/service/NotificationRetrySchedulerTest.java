@@ -0,0 +1,99 @@
+package com.iam.notification.service;
+
+import com.iam.notification.config.NotificationConfig;
+import com.iam.notification.provider.EmailProvider;
+import com.iam.notification.provider.SmsProvider;
+import com.iam.notification.repository.NotificationLogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.redis.core.ReactiveHashOperations;
+import org.springframework.data.redis.core.ReactiveListOperations;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.doubleThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NotificationRetrySchedulerTest {
+
+    private static final String SCHEDULE_KEY = "notification:retry:scheduled";
+    private static final String ERRORS_KEY = "notification:retry:errors";
+    private static final String DEAD_LETTER_KEY = "notification:retry:dead-letter";
+
+    @SuppressWarnings("unchecked")
+    private final ReactiveRedisTemplate<String, String> redisTemplate = mock(ReactiveRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final ReactiveZSetOperations<String, String> zSet = mock(ReactiveZSetOperations.class);
+    @SuppressWarnings("unchecked")
+    private final ReactiveHashOperations<String, Object, Object> hash = mock(ReactiveHashOperations.class);
+    @SuppressWarnings("unchecked")
+    private final ReactiveListOperations<String, String> list = mock(ReactiveListOperations.class);
+    private final NotificationLogRepository logRepository = mock(NotificationLogRepository.class);
+    private final NotificationConfig config = new NotificationConfig();
+    private final NotificationRetryScheduler scheduler = new NotificationRetryScheduler(redisTemplate, logRepository,
+            mock(R2dbcEntityTemplate.class), mock(NotificationStatsRollups.class), mock(EmailProvider.class),
+            mock(SmsProvider.class), config);
+
+    private final UUID logId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForZSet()).thenReturn(zSet);
+        doReturn(hash).when(redisTemplate).opsForHash();
+        when(redisTemplate.opsForList()).thenReturn(list);
+        doReturn(Flux.just(List.of(logId.toString()))).when(redisTemplate)
+                .execute(ArgumentMatchers.<RedisScript<List<String>>>any(), anyList(), anyList());
+        when(logRepository.findById(logId)).thenReturn(Mono.error(new DataAccessResourceFailureException("Connection refused")));
+        when(zSet.add(eq(SCHEDULE_KEY), eq(logId.toString()), anyDouble())).thenReturn(Mono.just(false));
+        when(zSet.remove(SCHEDULE_KEY, logId.toString())).thenReturn(Mono.just(1L));
+        when(hash.remove(ERRORS_KEY, logId.toString())).thenReturn(Mono.just(1L));
+        when(list.leftPush(DEAD_LETTER_KEY, logId.toString())).thenReturn(Mono.just(1L));
+    }
+
+    @Test
+    void reschedulesAnAttemptThatErroredWithBackoff() {
+        when(hash.increment(ERRORS_KEY, logId.toString(), 1)).thenReturn(Mono.just(1L));
+
+        long before = System.currentTimeMillis();
+        scheduler.processDueRetries();
+
+        // First backoff is within [delay / 2, delay) of the base retry delay
+        long baseMillis = config.getQueue().getRetryDelaySeconds() * 1000L;
+        verify(zSet, timeout(1000)).add(eq(SCHEDULE_KEY), eq(logId.toString()),
+                doubleThat(dueAt -> dueAt >= before + baseMillis / 2));
+        verify(list, never()).leftPush(any(), any());
+    }
+
+    @Test
+    void deadLettersOnceErroredAttemptsExhaustTheRetries() {
+        when(hash.increment(ERRORS_KEY, logId.toString(), 1))
+                .thenReturn(Mono.just((long) config.getQueue().getMaxRetries() + 1));
+
+        scheduler.processDueRetries();
+
+        verify(list, timeout(1000)).leftPush(DEAD_LETTER_KEY, logId.toString());
+        verify(zSet).remove(SCHEDULE_KEY, logId.toString());
+        verify(hash).remove(ERRORS_KEY, logId.toString());
+        verify(zSet, never()).add(any(), any(), anyDouble());
+        verify(list, never()).trim(any(), anyLong(), anyLong());
+    }
+}
@@ -0,0 +1,188 @@
+package com.iam.notification.service;
+
+import com.iam.notification.config.NotificationConfig;
+import com.iam.notification.model.NotificationLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.FetchSpec;
+import org.springframework.r2dbc.core.RowsFetchSpec;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class NotificationStatsRollupsTest {
+
+    // Recent enough that minute rollups are still kept at both edges
+    private static final LocalDateTime RECENT = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusHours(6);
+    // Older than the default seven day minute rollup retention
+    private static final LocalDateTime OLD = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusDays(30);
+
+    private final DatabaseClient databaseClient = mock(DatabaseClient.class);
+    private final NotificationStatsRollups rollups = new NotificationStatsRollups(databaseClient, new NotificationConfig());
+
+    // Parameters bound to the last statement
+    private final Map<String, Object> binds = new HashMap<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        DatabaseClient.GenericExecuteSpec spec = mock(DatabaseClient.GenericExecuteSpec.class, invocation -> {
+            switch (invocation.getMethod().getName()) {
+                case "bind" -> binds.put(invocation.getArgument(0), invocation.getArgument(1));
+                case "map" -> {
+                    RowsFetchSpec<Object> rowsSpec = mock(RowsFetchSpec.class);
+                    when(rowsSpec.all()).thenReturn(Flux.empty());
+                    return rowsSpec;
+                }
+                case "fetch" -> {
+                    FetchSpec<Map<String, Object>> fetchSpec = mock(FetchSpec.class);
+                    when(fetchSpec.rowsUpdated()).thenReturn(Mono.just(1L));
+                    return fetchSpec;
+                }
+                default -> {
+                    return null;
+                }
+            }
+            return invocation.getMock();
+        });
+        when(databaseClient.sql(anyString())).thenReturn(spec);
+    }
+
+    @Test
+    void readsHourAlignedRangeFromHourlyRollupsOnly() {
+        totals(RECENT, RECENT.plusHours(3));
+
+        assertThat(binds).containsEntry("hourStart", RECENT)
+                .containsEntry("hourEnd", RECENT.plusHours(3))
+                .containsEntry("start", RECENT)
+                .containsEntry("end", RECENT.plusHours(3));
+    }
+
+    @Test
+    void readsPartialHoursAtEitherEdgeFromMinuteRollups() {
+        LocalDateTime start = RECENT.plusMinutes(20).plusSeconds(30);
+        LocalDateTime end = RECENT.plusHours(2).plusMinutes(40);
+
+        totals(start, end);
+
+        assertThat(binds).containsEntry("start", RECENT.plusMinutes(20))
+                .containsEntry("hourStart", RECENT.plusHours(1))
+                .containsEntry("hourEnd", RECENT.plusHours(2))
+                .containsEntry("end", end);
+    }
+
+    @Test
+    void readsRangeWithinOneHourFromMinuteRollupsOnly() {
+        LocalDateTime start = RECENT.plusMinutes(20);
+        LocalDateTime end = RECENT.plusMinutes(40);
+
+        totals(start, end);
+
+        // An empty hourly range, and the minute range [start, end)
+        assertThat(binds).containsEntry("start", start)
+                .containsEntry("hourStart", end)
+                .containsEntry("hourEnd", end)
+                .containsEntry("end", end);
+    }
+
+    @Test
+    void widensEdgesOlderThanMinuteRetentionToWholeHours() {
+        LocalDateTime start = OLD.plusMinutes(20);
+        LocalDateTime end = OLD.plusHours(2).plusMinutes(40);
+
+        totals(start, end);
+
+        assertThat(binds).containsEntry("hourStart", OLD)
+                .containsEntry("hourEnd", OLD.plusHours(3));
+    }
+
+    @Test
+    void widensOnlyTheEdgeOlderThanMinuteRetention() {
+        LocalDateTime start = OLD.plusMinutes(20);
+        LocalDateTime end = RECENT.plusMinutes(40);
+
+        totals(start, end);
+
+        assertThat(binds).containsEntry("hourStart", OLD)
+                .containsEntry("hourEnd", RECENT)
+                .containsEntry("end", end);
+    }
+
+    @Test
+    void countsEachLogInItsMinuteAndHourBuckets() {
+        LocalDateTime minute = RECENT.plusMinutes(5);
+        List<NotificationLog> logs = List.of(
+                log(minute.plusSeconds(10), "SENT"),
+                log(minute.plusSeconds(50), "SENT"),
+                log(RECENT.plusHours(1).plusMinutes(30), "FAILED"));
+
+        StepVerifier.create(rollups.record(logs)).verifyComplete();
+
+        assertThat(upserted()).contains(
+                new Upsert("MINUTE", minute, "status", "SENT", 2L),
+                new Upsert("HOUR", RECENT, "status", "SENT", 2L),
+                new Upsert("MINUTE", RECENT.plusHours(1).plusMinutes(30), "status", "FAILED", 1L),
+                new Upsert("HOUR", RECENT.plusHours(1), "status", "FAILED", 1L),
+                new Upsert("HOUR", RECENT, "type", "EMAIL", 2L),
+                new Upsert("HOUR", RECENT.plusHours(1), "type", "EMAIL", 1L));
+    }
+
+    @Test
+    void movesStatusChangeWithinTheOriginalBuckets() {
+        NotificationLog retried = log(RECENT.plusMinutes(5), "SENT");
+
+        StepVerifier.create(rollups.recordStatusChange(retried, "FAILED")).verifyComplete();
+
+        assertThat(upserted()).containsExactlyInAnyOrder(
+                new Upsert("MINUTE", RECENT.plusMinutes(5), "status", "FAILED", -1L),
+                new Upsert("HOUR", RECENT, "status", "FAILED", -1L),
+                new Upsert("MINUTE", RECENT.plusMinutes(5), "status", "SENT", 1L),
+                new Upsert("HOUR", RECENT, "status", "SENT", 1L));
+    }
+
+    @Test
+    void ignoresUnchangedStatus() {
+        StepVerifier.create(rollups.recordStatusChange(log(RECENT, "SENT"), "SENT")).verifyComplete();
+
+        assertThat(binds).isEmpty();
+    }
+
+    private void totals(LocalDateTime start, LocalDateTime end) {
+        StepVerifier.create(rollups.totals(start, end))
+                .expectNext(Map.of())
+                .verifyComplete();
+    }
+
+    private Set<Upsert> upserted() {
+        Set<Upsert> upserts = new HashSet<>();
+        for (int i = 0; binds.containsKey("g" + i); i++) {
+            upserts.add(new Upsert((String) binds.get("g" + i), (LocalDateTime) binds.get("b" + i),
+                    (String) binds.get("d" + i), (String) binds.get("v" + i), (Long) binds.get("c" + i)));
+        }
+        return upserts;
+    }
+
+    private static NotificationLog log(LocalDateTime createdAt, String status) {
+        return NotificationLog.builder()
+                .notificationType("EMAIL")
+                .status(status)
+                .createdAt(createdAt)
+                .build();
+    }
+
+    private record Upsert(String granularity, LocalDateTime bucketStart, String dimension, String value, Long count) {}
+}
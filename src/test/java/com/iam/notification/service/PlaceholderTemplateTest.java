@@ -0,0 +1,98 @@
+package com.iam.notification.service;
+
+import org.junit.jupiter.api.Test;
+import org.unbescape.html.HtmlEscape;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PlaceholderTemplateTest {
+
+    @Test
+    void compilesSimpleInlinedVariables() {
+        PlaceholderTemplate template = compile("Hi [[${name}]], your code is [(${code})].");
+
+        assertThat(template.render(Map.of("name", "Ada", "code", "123456")))
+                .isEqualTo("Hi Ada, your code is 123456.");
+    }
+
+    @Test
+    void toleratesWhitespaceInsideInlines() {
+        PlaceholderTemplate template = compile("[[ ${ name } ]]!");
+
+        assertThat(template.render(Map.of("name", "Ada"))).isEqualTo("Ada!");
+    }
+
+    @Test
+    void escapesOnlyEscapedInlines() {
+        PlaceholderTemplate template = compile("Reply <STOP> to [[${name}]] & [(${name})]");
+
+        // Literal text is never touched; [[...]] escapes its value and [(...)] does not
+        assertThat(template.render(Map.of("name", "Tom & <Jerry>")))
+                .isEqualTo("Reply <STOP> to Tom &amp; &lt;Jerry&gt; & Tom & <Jerry>");
+    }
+
+    @Test
+    void rendersUnknownVariablesAsEmpty() {
+        PlaceholderTemplate template = compile("Hi [[${name}]]![[${missing}]]");
+
+        assertThat(template.render(Map.of("name", "Ada"))).isEqualTo("Hi Ada!");
+    }
+
+    @Test
+    void keepsSourceWithoutInlinesVerbatim() {
+        assertThat(compile("No variables here [ ] ( )").render(Map.of())).isEqualTo("No variables here [ ] ( )");
+        assertThat(compile("").render(Map.of())).isEmpty();
+    }
+
+    @Test
+    void fallsBackForExpressionsTheFastPathCannotEvaluate() {
+        assertThat(PlaceholderTemplate.compile("Hi [[${user.name}]]")).isEmpty();
+        assertThat(PlaceholderTemplate.compile("[[${#dates.format(now)}]]")).isEmpty();
+        assertThat(PlaceholderTemplate.compile("[[${name} + '!']]")).isEmpty();
+        assertThat(PlaceholderTemplate.compile("[[#{message.key}]]")).isEmpty();
+    }
+
+    @Test
+    void fallsBackForUnclosedInlines() {
+        assertThat(PlaceholderTemplate.compile("Hi [[${name}")).isEmpty();
+        assertThat(PlaceholderTemplate.compile("Hi [(${name}]]")).isEmpty();
+    }
+
+    @Test
+    void splicesMarkersBackIntoRenderedOutput() {
+        String rendered = "<p>Hello " + PlaceholderTemplate.marker("recipient") + "</p>";
+
+        Optional<PlaceholderTemplate> spliced = PlaceholderTemplate.splice(rendered);
+
+        assertThat(spliced).isPresent();
+        assertThat(spliced.get().render(Map.of("recipient", "ada@example.com")))
+                .isEqualTo("<p>Hello ada@example.com</p>");
+    }
+
+    @Test
+    void escapesSplicedValuesOnlyWhereTheMarkerWasEscaped() {
+        String marker = PlaceholderTemplate.marker("recipient");
+        String rendered = "<b>" + HtmlEscape.escapeHtml4Xml(marker) + "</b><i>" + marker + "</i>";
+
+        PlaceholderTemplate spliced = PlaceholderTemplate.splice(rendered).orElseThrow();
+
+        assertThat(spliced.render(Map.of("recipient", "<Tom & Jerry>")))
+                .isEqualTo("<b>&lt;Tom &amp; Jerry&gt;</b><i><Tom & Jerry></i>");
+    }
+
+    @Test
+    void refusesToSpliceTransformedMarkers() {
+        String rendered = "<p>" + PlaceholderTemplate.marker("recipient").toUpperCase() + "</p>";
+
+        assertThat(PlaceholderTemplate.splice(rendered)).isEmpty();
+    }
+
+    private static PlaceholderTemplate compile(String source) {
+        Optional<PlaceholderTemplate> template = PlaceholderTemplate.compile(source);
+        assertThat(template).as("fast path for %s", source).isPresent();
+        return template.get();
+    }
+}
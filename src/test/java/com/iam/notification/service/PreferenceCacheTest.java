@@ -0,0 +1,109 @@
+package com.iam.notification.service;
+
+import com.iam.notification.config.NotificationConfig;
+import com.iam.notification.model.UserNotificationPreference;
+import com.iam.notification.repository.UserNotificationPreferenceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PreferenceCacheTest {
+
+    private static final String INVALIDATION_CHANNEL = "notification:preferences:invalidate";
+
+    private final UserNotificationPreferenceRepository repository = mock(UserNotificationPreferenceRepository.class);
+    @SuppressWarnings("unchecked")
+    private final ReactiveRedisTemplate<String, String> redisTemplate = mock(ReactiveRedisTemplate.class);
+    private final Sinks.Many<ReactiveSubscription.Message<String, String>> invalidations = Sinks.many().multicast().directBestEffort();
+    private final PreferenceCache cache = new PreferenceCache(repository, redisTemplate, new NotificationConfig());
+
+    private final UUID cached = UUID.randomUUID();
+    private final UUID uncached = UUID.randomUUID();
+    private final UUID withoutRows = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        doReturn(invalidations.asFlux()).when(redisTemplate).listenToChannel(INVALIDATION_CHANNEL);
+        when(redisTemplate.convertAndSend(anyString(), anyString())).thenReturn(Mono.just(1L));
+        when(repository.findByUserId(any())).thenAnswer(invocation -> Flux.just(preference(invocation.getArgument(0), "SECURITY")));
+        when(repository.findAllByUserIds(any())).thenAnswer(invocation -> Flux.fromArray(invocation.<UUID[]>getArgument(0))
+                .filter(userId -> !userId.equals(withoutRows))
+                .map(userId -> preference(userId, "ACCOUNT")));
+        cache.listenForInvalidations();
+    }
+
+    @Test
+    void loadsAUserOnce() {
+        for (int i = 0; i < 3; i++) {
+            StepVerifier.create(cache.get(cached))
+                    .assertNext(preferences -> assertThat(preferences).containsOnlyKeys("SECURITY"))
+                    .verifyComplete();
+        }
+
+        verify(repository, times(1)).findByUserId(cached);
+    }
+
+    @Test
+    void loadsOnlyMissingUsersInOneQueryAndRemembersUsersWithoutRows() {
+        cache.get(cached).block();
+
+        StepVerifier.create(cache.getAll(List.of(cached, uncached, withoutRows)))
+                .assertNext(preferences -> {
+                    assertThat(preferences.get(cached)).containsOnlyKeys("SECURITY");
+                    assertThat(preferences.get(uncached)).containsOnlyKeys("ACCOUNT");
+                    assertThat(preferences.get(withoutRows)).isEmpty();
+                })
+                .verifyComplete();
+        cache.getAll(List.of(uncached, withoutRows)).block();
+
+        ArgumentCaptor<UUID[]> queried = ArgumentCaptor.forClass(UUID[].class);
+        verify(repository, times(1)).findAllByUserIds(queried.capture());
+        assertThat(queried.getValue()).containsExactlyInAnyOrder(uncached, withoutRows);
+    }
+
+    @Test
+    void invalidatingAUserReloadsItHereAndTellsTheOtherReplicas() {
+        cache.get(cached).block();
+
+        StepVerifier.create(cache.invalidate(cached)).verifyComplete();
+        cache.get(cached).block();
+
+        verify(redisTemplate).convertAndSend(INVALIDATION_CHANNEL, cached.toString());
+        verify(repository, times(2)).findByUserId(cached);
+    }
+
+    @Test
+    void anInvalidationFromAnotherReplicaEvictsTheUser() {
+        cache.get(cached).block();
+        cache.get(uncached).block();
+
+        invalidations.tryEmitNext(new ReactiveSubscription.ChannelMessage<>(INVALIDATION_CHANNEL, cached.toString()));
+        cache.get(cached).block();
+        cache.get(uncached).block();
+
+        verify(repository, times(2)).findByUserId(cached);
+        verify(repository, times(1)).findByUserId(uncached);
+    }
+
+    private static UserNotificationPreference preference(UUID userId, String category) {
+        return UserNotificationPreference.builder().userId(userId).notificationCategory(category).build();
+    }
+}
@@ -0,0 +1,114 @@
+package com.iam.notification.service;
+
+import com.iam.notification.config.NotificationConfig;
+import com.iam.notification.dto.QueueItem;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QueueItemCodecTest {
+
+    private static final UUID JOB_ID = UUID.fromString("5b0c8f8e-7d1f-4a57-9a3e-2a4d6f1c0b11");
+    private static final UUID USER_ID = UUID.fromString("0e6b1b7c-3f0a-4f8e-b2d4-9c1e5a7d3f22");
+
+    @Test
+    void roundTripsItemWithoutUserIdAsVersion1() {
+        QueueItem item = QueueItem.builder().jobId(JOB_ID).recipient("user@example.com").build();
+
+        byte[] payload = QueueItemCodec.encode(item, 2);
+
+        assertThat(payload[0]).isEqualTo((byte) 1);
+        assertThat(payload).hasSize(17 + "user@example.com".length());
+        assertThat(QueueItemCodec.decode(payload)).isEqualTo(item);
+    }
+
+    @Test
+    void roundTripsItemWithUserIdAsVersion2() {
+        QueueItem item = QueueItem.builder().jobId(JOB_ID).recipient("+15551234567").userId(USER_ID).build();
+
+        byte[] payload = QueueItemCodec.encode(item, 2);
+
+        assertThat(payload[0]).isEqualTo((byte) 2);
+        assertThat(QueueItemCodec.decode(payload)).isEqualTo(item);
+    }
+
+    @Test
+    void writesVersion1WithoutUserIdWhenVersion2IsNotAllowed() {
+        QueueItem item = QueueItem.builder().jobId(JOB_ID).recipient("+15551234567").userId(USER_ID).build();
+
+        byte[] payload = QueueItemCodec.encode(item, 1);
+
+        assertThat(payload[0]).isEqualTo((byte) 1);
+        assertThat(QueueItemCodec.decode(payload))
+                .isEqualTo(QueueItem.builder().jobId(JOB_ID).recipient("+15551234567").build());
+    }
+
+    @Test
+    void writesVersion2WithTheDefaultConfig() {
+        QueueItem item = QueueItem.builder().jobId(JOB_ID).recipient("user@example.com").userId(USER_ID).build();
+
+        byte[] payload = QueueItemCodec.encode(item, new NotificationConfig().getQueue().getItemFormatVersion());
+
+        assertThat(QueueItemCodec.decode(payload).getUserId()).isEqualTo(USER_ID);
+    }
+
+    @Test
+    void roundTripsMultiByteAndEmptyRecipients() {
+        QueueItem unicode = QueueItem.builder().jobId(JOB_ID).recipient("jürgen@exämple.de").build();
+        QueueItem empty = QueueItem.builder().jobId(JOB_ID).recipient("").userId(USER_ID).build();
+
+        assertThat(QueueItemCodec.decode(QueueItemCodec.encode(unicode, 2))).isEqualTo(unicode);
+        assertThat(QueueItemCodec.decode(QueueItemCodec.encode(empty, 2))).isEqualTo(empty);
+    }
+
+    @Test
+    void decodesHandWrittenVersion1Payload() {
+        byte[] recipient = "legacy@example.com".getBytes(StandardCharsets.UTF_8);
+        byte[] payload = ByteBuffer.allocate(17 + recipient.length)
+                .put((byte) 1)
+                .putLong(JOB_ID.getMostSignificantBits())
+                .putLong(JOB_ID.getLeastSignificantBits())
+                .put(recipient)
+                .array();
+
+        QueueItem item = QueueItemCodec.decode(payload);
+
+        assertThat(item.getJobId()).isEqualTo(JOB_ID);
+        assertThat(item.getRecipient()).isEqualTo("legacy@example.com");
+        assertThat(item.getUserId()).isNull();
+    }
+
+    @Test
+    void rejectsEmptyPayload() {
+        assertThatThrownBy(() -> QueueItemCodec.decode(new byte[0]))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> QueueItemCodec.decode(null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsUnknownVersion() {
+        byte[] payload = QueueItemCodec.encode(QueueItem.builder().jobId(JOB_ID).recipient("user@example.com").build(), 2);
+        payload[0] = 3;
+
+        assertThatThrownBy(() -> QueueItemCodec.decode(payload))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("version");
+    }
+
+    @Test
+    void rejectsTruncatedHeader() {
+        byte[] payload = QueueItemCodec.encode(QueueItem.builder().jobId(JOB_ID).recipient("").userId(USER_ID).build(), 2);
+        byte[] truncated = new byte[payload.length - 1];
+        System.arraycopy(payload, 0, truncated, 0, truncated.length);
+
+        assertThatThrownBy(() -> QueueItemCodec.decode(truncated))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Truncated");
+    }
+}
@@ -0,0 +1,179 @@
+package com.iam.notification.service;
+
+import com.iam.notification.config.NotificationConfig;
+import com.iam.notification.websocket.RealTimeSessionRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveSetOperations;
+import org.springframework.data.redis.core.ReactiveZSetOperations;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RealTimePresenceTest {
+
+    private static final String NODES_KEY = "notification:realtime:nodes";
+    private static final String NODE_USERS_KEY_PREFIX = "notification:realtime:node-users:";
+
+    // In-memory Redis behind the mocked operations, shared by every node in a test
+    private final Map<String, Set<String>> sets = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Double>> zSets = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    private final ReactiveRedisTemplate<String, String> redisTemplate = mock(ReactiveRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final ReactiveSetOperations<String, String> setOps = mock(ReactiveSetOperations.class);
+    @SuppressWarnings("unchecked")
+    private final ReactiveZSetOperations<String, String> zSetOps = mock(ReactiveZSetOperations.class);
+
+    private final UUID userId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForSet()).thenReturn(setOps);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOps);
+
+        when(setOps.add(anyString(), any(String[].class))).thenAnswer(invocation -> {
+            Object[] values = (Object[]) invocation.getRawArguments()[1];
+            Set<String> set = sets.computeIfAbsent(invocation.getArgument(0), key -> ConcurrentHashMap.newKeySet());
+            return Mono.just(Arrays.stream(values).filter(value -> set.add((String) value)).count());
+        });
+        when(setOps.remove(anyString(), any(Object[].class))).thenAnswer(invocation -> {
+            Object[] values = (Object[]) invocation.getRawArguments()[1];
+            Set<String> set = sets.getOrDefault(invocation.<String>getArgument(0), Set.of());
+            return Mono.just(Arrays.stream(values).filter(set::remove).count());
+        });
+        when(setOps.members(anyString())).thenAnswer(invocation ->
+                Flux.fromIterable(List.copyOf(sets.getOrDefault(invocation.<String>getArgument(0), Set.of()))));
+        when(setOps.scan(anyString(), any(ScanOptions.class))).thenAnswer(invocation ->
+                Flux.fromIterable(List.copyOf(sets.getOrDefault(invocation.<String>getArgument(0), Set.of()))));
+        when(setOps.size(anyString())).thenAnswer(invocation ->
+                Mono.just((long) sets.getOrDefault(invocation.<String>getArgument(0), Set.of()).size()));
+        when(redisTemplate.delete(any(String[].class))).thenAnswer(invocation -> {
+            Object[] keys = (Object[]) invocation.getRawArguments()[0];
+            return Mono.just(Arrays.stream(keys).filter(key -> sets.remove(key) != null).count());
+        });
+
+        when(zSetOps.add(anyString(), anyString(), anyDouble())).thenAnswer(invocation -> Mono.just(
+                zSets.computeIfAbsent(invocation.getArgument(0), key -> new ConcurrentHashMap<>())
+                        .put(invocation.getArgument(1), invocation.getArgument(2)) == null));
+        when(zSetOps.remove(anyString(), any(Object[].class))).thenAnswer(invocation -> {
+            Object[] members = (Object[]) invocation.getRawArguments()[1];
+            Map<String, Double> zSet = zSets.getOrDefault(invocation.<String>getArgument(0), Map.of());
+            return Mono.just(Arrays.stream(members).filter(member -> zSet.remove(member) != null).count());
+        });
+        when(zSetOps.rangeByScore(anyString(), any())).thenAnswer(invocation -> {
+            Range<Double> range = invocation.getArgument(1);
+            return Flux.fromIterable(zSets.getOrDefault(invocation.<String>getArgument(0), Map.of()).entrySet().stream()
+                    .filter(entry -> range.contains(entry.getValue()))
+                    .map(Map.Entry::getKey)
+                    .toList());
+        });
+    }
+
+    @Test
+    void routesToNodesThatJoinedUntilTheyLeave() {
+        RealTimePresence local = presence("a", new RealTimeSessionRegistry(new NotificationConfig()));
+        RealTimePresence remote = presence("b", new RealTimeSessionRegistry(new NotificationConfig()));
+
+        StepVerifier.create(remote.join(userId)).verifyComplete();
+        StepVerifier.create(local.join(userId)).verifyComplete();
+
+        // A node never routes to itself
+        StepVerifier.create(local.remoteNodes(userId)).expectNext("b").verifyComplete();
+        StepVerifier.create(remote.remoteNodes(userId)).expectNext("a").verifyComplete();
+
+        StepVerifier.create(remote.leave(userId)).verifyComplete();
+        StepVerifier.create(local.remoteNodes(userId)).verifyComplete();
+        StepVerifier.create(local.isConnected(userId)).expectNext(true).verifyComplete();
+
+        StepVerifier.create(local.leave(userId)).verifyComplete();
+        StepVerifier.create(local.isConnected(userId)).expectNext(false).verifyComplete();
+    }
+
+    @Test
+    void rejoinsUnderANewGenerationOnceReaped() {
+        RealTimeSessionRegistry registry = new RealTimeSessionRegistry(new NotificationConfig());
+        registry.register(userId, mock(WebSocketSession.class));
+        RealTimePresence paused = presence("a", registry);
+        RealTimePresence reaper = presence("b", new RealTimeSessionRegistry(new NotificationConfig()));
+
+        paused.register();
+        reaper.register();
+        StepVerifier.create(paused.join(userId)).verifyComplete();
+        String reapedMember = onlyMemberOf("a");
+
+        // The paused node misses its heartbeats and is reaped along with its presence
+        zSets.get(NODES_KEY).put(reapedMember, 0d);
+        reaper.heartbeat();
+        StepVerifier.create(reaper.remoteNodes(userId)).verifyComplete();
+
+        // Its next heartbeat finds the entry gone and records its users again under a new member
+        paused.heartbeat();
+        String rejoinedMember = onlyMemberOf("a");
+        assertThat(rejoinedMember).isNotEqualTo(reapedMember);
+        StepVerifier.create(reaper.remoteNodes(userId)).expectNext("a").verifyComplete();
+
+        // A reaper still working through the old generation cannot remove the new one
+        zSets.get(NODES_KEY).put(reapedMember, 0d);
+        reaper.heartbeat();
+        assertThat(zSets.get(NODES_KEY)).containsKey(rejoinedMember).doesNotContainKey(reapedMember);
+        assertThat(sets.get(NODE_USERS_KEY_PREFIX + rejoinedMember)).containsExactly(userId.toString());
+        StepVerifier.create(reaper.remoteNodes(userId)).expectNext("a").verifyComplete();
+    }
+
+    @Test
+    void onlyOneReaperRemovesADeadNode() {
+        RealTimePresence dead = presence("a", new RealTimeSessionRegistry(new NotificationConfig()));
+        RealTimePresence first = presence("b", new RealTimeSessionRegistry(new NotificationConfig()));
+        RealTimePresence second = presence("c", new RealTimeSessionRegistry(new NotificationConfig()));
+
+        dead.register();
+        StepVerifier.create(dead.join(userId)).verifyComplete();
+        String deadMember = onlyMemberOf("a");
+        zSets.get(NODES_KEY).put(deadMember, 0d);
+
+        // Both reapers read the dead node before either removes it
+        when(zSetOps.rangeByScore(eq(NODES_KEY), any())).thenReturn(Flux.just(deadMember));
+        first.heartbeat();
+        second.heartbeat();
+
+        verify(setOps, times(1)).scan(eq(NODE_USERS_KEY_PREFIX + deadMember), any(ScanOptions.class));
+        StepVerifier.create(first.isConnected(userId)).expectNext(false).verifyComplete();
+    }
+
+    private RealTimePresence presence(String nodeId, RealTimeSessionRegistry registry) {
+        NotificationConfig config = new NotificationConfig();
+        config.getRealTime().setNodeId(nodeId);
+        return new RealTimePresence(redisTemplate, registry, config);
+    }
+
+    private String onlyMemberOf(String nodeId) {
+        List<String> members = zSets.get(NODES_KEY).keySet().stream()
+                .filter(member -> member.startsWith(nodeId + "@"))
+                .toList();
+        assertThat(members).hasSize(1);
+        return members.get(0);
+    }
+}
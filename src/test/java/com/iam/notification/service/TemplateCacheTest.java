@@ -0,0 +1,138 @@
+package com.iam.notification.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iam.notification.config.NotificationConfig;
+import com.iam.notification.model.NotificationTemplate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.core.ScanOptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TemplateCacheTest {
+
+    private static final String KEY_PREFIX = "notification:template:";
+
+    // In-memory Redis values behind the mocked operations
+    private final Map<String, String> redis = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    private final ReactiveRedisTemplate<String, String> redisTemplate = mock(ReactiveRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final ReactiveValueOperations<String, String> valueOps = mock(ReactiveValueOperations.class);
+    private final CompiledTemplateStore compiledTemplates = mock(CompiledTemplateStore.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final TemplateCache cache = new TemplateCache(redisTemplate, objectMapper, compiledTemplates, new NotificationConfig());
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOps);
+        when(valueOps.get(anyString())).thenAnswer(invocation -> Mono.justOrEmpty(redis.get(invocation.<String>getArgument(0))));
+        when(valueOps.set(anyString(), anyString(), any(Duration.class))).thenAnswer(invocation -> {
+            redis.put(invocation.getArgument(0), invocation.getArgument(1));
+            return Mono.just(true);
+        });
+        when(redisTemplate.scan(any(ScanOptions.class))).thenAnswer(invocation ->
+                Flux.fromIterable(List.copyOf(redis.keySet())).filter(key -> key.startsWith(KEY_PREFIX + "welcome:EMAIL:")));
+        when(redisTemplate.delete(any(String[].class))).thenAnswer(invocation -> {
+            Object[] keys = (Object[]) invocation.getRawArguments()[0];
+            return Mono.just(Arrays.stream(keys).filter(key -> redis.remove(key) != null).count());
+        });
+        when(redisTemplate.convertAndSend(anyString(), anyString())).thenReturn(Mono.just(1L));
+    }
+
+    @Test
+    void concurrentMissesShareOneLoadAndFillBothTiers() {
+        Sinks.One<NotificationTemplate> database = Sinks.one();
+
+        Mono<NotificationTemplate> first = cache.get("welcome:EMAIL:en", () -> load(database.asMono()));
+        Mono<NotificationTemplate> second = cache.get("welcome:EMAIL:en", () -> load(database.asMono()));
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> database.tryEmitValue(template("Welcome")))
+                .assertNext(both -> assertThat(both.getT1()).isSameAs(both.getT2()))
+                .verifyComplete();
+
+        assertThat(loads).hasValue(1);
+        assertThat(redis).containsKey(KEY_PREFIX + "welcome:EMAIL:en");
+
+        // Served from this replica without another load
+        StepVerifier.create(cache.get("welcome:EMAIL:en", () -> load(Mono.just(template("Other")))))
+                .assertNext(template -> assertThat(template.getSubject()).isEqualTo("Welcome"))
+                .verifyComplete();
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void aReplicaMissIsServedFromRedis() throws Exception {
+        redis.put(KEY_PREFIX + "welcome:EMAIL:en", objectMapper.writeValueAsString(template("From Redis")));
+
+        StepVerifier.create(cache.get("welcome:EMAIL:en", () -> load(Mono.just(template("From database")))))
+                .assertNext(template -> assertThat(template.getSubject()).isEqualTo("From Redis"))
+                .verifyComplete();
+        assertThat(loads).hasValue(0);
+    }
+
+    @Test
+    void anUnreadableRedisEntryFallsBackToTheLoader() {
+        redis.put(KEY_PREFIX + "welcome:EMAIL:en", "{not json");
+
+        StepVerifier.create(cache.get("welcome:EMAIL:en", () -> load(Mono.just(template("From database")))))
+                .assertNext(template -> assertThat(template.getSubject()).isEqualTo("From database"))
+                .verifyComplete();
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void evictsEveryLanguageOfATemplateEverywhere() {
+        cache.get("welcome:EMAIL:en", () -> load(Mono.just(template("Welcome")))).block();
+        cache.get("welcome:EMAIL:de", () -> load(Mono.just(template("Willkommen")))).block();
+        cache.get("welcome:SMS:en", () -> load(Mono.just(template("Hi")))).block();
+
+        StepVerifier.create(cache.evictTemplate("welcome", "EMAIL")).verifyComplete();
+
+        assertThat(redis).containsOnlyKeys(KEY_PREFIX + "welcome:SMS:en");
+        verify(redisTemplate).convertAndSend("notification:templates:invalidate", "welcome:EMAIL:");
+        verify(compiledTemplates).invalidate("welcome:EMAIL:");
+
+        // Both languages load again; the SMS template is still cached here
+        cache.get("welcome:EMAIL:en", () -> load(Mono.just(template("Welcome back")))).block();
+        cache.get("welcome:EMAIL:de", () -> load(Mono.just(template("Willkommen zurück")))).block();
+        cache.get("welcome:SMS:en", () -> load(Mono.just(template("Hi again")))).block();
+        assertThat(loads).hasValue(5);
+    }
+
+    private Mono<NotificationTemplate> load(Mono<NotificationTemplate> source) {
+        return Mono.defer(() -> {
+            loads.incrementAndGet();
+            return source;
+        });
+    }
+
+    private static NotificationTemplate template(String subject) {
+        return NotificationTemplate.builder()
+                .templateName("welcome")
+                .templateType("EMAIL")
+                .subject(subject)
+                .build();
+    }
+}
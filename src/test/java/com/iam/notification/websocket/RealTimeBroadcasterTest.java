@@ -0,0 +1,87 @@
+package com.iam.notification.websocket;
+
+import com.iam.notification.config.NotificationConfig;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RealTimeBroadcasterTest {
+
+    private static final byte[] PAYLOAD = "{\"type\":\"INFO\",\"message\":\"Maintenance tonight\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final NotificationConfig config = new NotificationConfig();
+    private final RealTimeSessionRegistry registry;
+    private final RealTimeBroadcaster broadcaster;
+
+    RealTimeBroadcasterTest() {
+        config.getRealTime().setSessionBufferSize(1);
+        registry = new RealTimeSessionRegistry(config);
+        broadcaster = new RealTimeBroadcaster(registry);
+    }
+
+    @Test
+    void countsDeliveredDroppedAndClosedSockets() {
+        register(true);
+        register(true);
+        register(false);
+        RealTimeSession full = register(true);
+        full.offer(new WebSocketMessage(WebSocketMessage.Type.TEXT, DefaultDataBufferFactory.sharedInstance.wrap(new byte[0])));
+
+        StepVerifier.create(broadcaster.broadcast(PAYLOAD))
+                .assertNext(result -> {
+                    assertThat(result.getSessions()).isEqualTo(4);
+                    assertThat(result.getDelivered()).isEqualTo(2);
+                    assertThat(result.getDropped()).isEqualTo(1);
+                    assertThat(result.getClosed()).isEqualTo(1);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void releasesTheSharedBufferOnceEveryFrameIsReleased() {
+        List<RealTimeSession> sessions = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            sessions.add(register(true));
+        }
+
+        StepVerifier.create(broadcaster.broadcast(PAYLOAD)).expectNextCount(1).verifyComplete();
+
+        List<WebSocketMessage> frames = new ArrayList<>();
+        for (RealTimeSession session : sessions) {
+            session.complete();
+            frames.addAll(session.outbound().collectList().block());
+        }
+        assertThat(frames).hasSize(3)
+                .allSatisfy(frame -> assertThat(frame.getPayloadAsText()).isEqualTo(new String(PAYLOAD, StandardCharsets.UTF_8)));
+
+        // Each frame holds the shared buffer; the broadcast itself has let go of it
+        ByteBuf shared = ((NettyDataBuffer) frames.get(0).getPayload()).getNativeBuffer().unwrap();
+        assertThat(shared.refCnt()).isEqualTo(3);
+
+        frames.forEach(WebSocketMessage::release);
+        assertThat(shared.refCnt()).isZero();
+    }
+
+    private RealTimeSession register(boolean open) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(UUID.randomUUID().toString());
+        when(session.isOpen()).thenReturn(open);
+        when(session.bufferFactory()).thenReturn(new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT));
+        return registry.register(UUID.randomUUID(), session);
+    }
+}
@@ -0,0 +1,78 @@
+package com.iam.notification.websocket;
+
+import com.iam.notification.config.NotificationConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.socket.WebSocketSession;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RealTimeSessionRegistryTest {
+
+    private final NotificationConfig config = new NotificationConfig();
+    private final UUID userId = UUID.randomUUID();
+
+    @Test
+    void aSecondDeviceDoesNotEvictTheFirst() {
+        RealTimeSessionRegistry registry = new RealTimeSessionRegistry(config);
+
+        RealTimeSession laptop = registry.register(userId, session("laptop"));
+        RealTimeSession phone = registry.register(userId, session("phone"));
+
+        assertThat(registry.getSessions(userId)).containsExactly(laptop, phone);
+        assertThat(registry.getUserCount()).isEqualTo(1);
+        assertThat(registry.getSessionCount()).isEqualTo(2);
+    }
+
+    @Test
+    void oneDeviceDisconnectingKeepsTheOther() {
+        RealTimeSessionRegistry registry = new RealTimeSessionRegistry(config);
+        RealTimeSession laptop = registry.register(userId, session("laptop"));
+        RealTimeSession phone = registry.register(userId, session("phone"));
+
+        assertThat(registry.unregister(laptop)).as("last session of the user").isFalse();
+        assertThat(registry.getSessions(userId)).containsExactly(phone);
+        assertThat(registry.getUserIds()).containsExactly(userId);
+
+        assertThat(registry.unregister(phone)).as("last session of the user").isTrue();
+        assertThat(registry.getSessions(userId)).isEmpty();
+        assertThat(registry.getUserCount()).isZero();
+        assertThat(registry.getSessionCount()).isZero();
+    }
+
+    @Test
+    void unregisteringTwiceCountsTheSessionOnce() {
+        RealTimeSessionRegistry registry = new RealTimeSessionRegistry(config);
+        RealTimeSession laptop = registry.register(userId, session("laptop"));
+        registry.register(userId, session("phone"));
+
+        registry.unregister(laptop);
+
+        assertThat(registry.unregister(laptop)).isFalse();
+        assertThat(registry.getSessionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void refusesSocketsOverTheNodeLimit() {
+        config.getRealTime().setMaxConnections(2);
+        RealTimeSessionRegistry registry = new RealTimeSessionRegistry(config);
+        RealTimeSession first = registry.register(userId, session("first"));
+        registry.register(UUID.randomUUID(), session("second"));
+
+        assertThat(registry.register(userId, session("third"))).isNull();
+        assertThat(registry.getSessionCount()).isEqualTo(2);
+
+        // A freed slot can be used again
+        registry.unregister(first);
+        assertThat(registry.register(userId, session("fourth"))).isNotNull();
+    }
+
+    private static WebSocketSession session(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        return session;
+    }
+}